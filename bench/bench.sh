@@ -0,0 +1,32 @@
+#!/bin/bash
+# Runs the JMH benchmarks and writes machine-readable results.
+#
+# Needs the JMH jars in libs/jmh/ (jmh-core, jmh-generator-annprocess,
+# jopt-simple, commons-math3), next to the PDFBox jar in libs/.
+# Extra arguments are passed to JMH, e.g. a benchmark filter:
+#   bench/bench.sh MatcherBenchmark -p size=TYPICAL
+
+cd "$(dirname "$0")/.." || exit 1
+
+PDFBOX="libs/pdfbox-app-3.0.4.jar"
+JMH="libs/jmh/*"
+TARGET="bench/target"
+RESULTS="bench/results"
+
+rm -rf "$TARGET"
+mkdir -p "$TARGET/app" "$TARGET/classes" "$TARGET/work" "$RESULTS"
+
+echo "Compiling application..."
+javac -cp "$PDFBOX" -d "$TARGET/app" src/*.java || exit 1
+
+echo "Compiling benchmarks..."
+javac -cp "$TARGET/app:$PDFBOX:$JMH" -processorpath "$JMH" -d "$TARGET/classes" bench/src/bench/*.java || exit 1
+
+RESULT_FILE="$RESULTS/jmh-$(date +%Y-%m-%d_%H-%M-%S).json"
+CLASSPATH="$(pwd)/$TARGET/classes:$(pwd)/$TARGET/app:$(pwd)/$PDFBOX:$(pwd)/libs/jmh/*"
+
+# Reports are written relative to the working directory, so run from scratch space
+cd "$TARGET/work" || exit 1
+java -cp "$CLASSPATH" org.openjdk.jmh.Main -rf json -rff "../../../$RESULT_FILE" -prof gc "$@" || exit 1
+
+echo "Results written to $RESULT_FILE"
@@ -0,0 +1,49 @@
+package bench;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Inputs shared by every benchmark: a synthetic resume and job description of
+// the selected size, plus the outputs of the earlier stages so each benchmark
+// measures only its own stage
+@State(Scope.Benchmark)
+public class Documents {
+    @Param({"SMALL", "TYPICAL", "LARGE"})
+    public SyntheticDocs.Size size;
+
+    Object parser;
+    Object matcher;
+    Object optimizer;
+
+    String resume;
+    String jobDescription;
+    List<?> skills;
+    List<?> education;
+    List<?> experience;
+    Object profile;
+    Object terms;
+    Object matchResult;
+    List<?> missingKeywords;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        parser = (Object) Stages.NEW_PARSER.invokeExact();
+        matcher = (Object) Stages.NEW_MATCHER.invokeExact();
+        optimizer = (Object) Stages.NEW_OPTIMIZER.invokeExact();
+
+        resume = SyntheticDocs.resume(size);
+        jobDescription = SyntheticDocs.jobDescription(size);
+        skills = (List<?>) (Object) Stages.EXTRACT_SKILLS.invokeExact(parser, (Object) resume);
+        education = (List<?>) (Object) Stages.EXTRACT_EDUCATION.invokeExact(parser, (Object) resume);
+        experience = (List<?>) (Object) Stages.EXTRACT_EXPERIENCE.invokeExact(parser, (Object) resume);
+        profile = (Object) Stages.COMPILE_PROFILE.invokeExact(matcher, (Object) jobDescription);
+        terms = (Object) Stages.RESUME_TERMS.invokeExact((Object) skills, (Object) education, (Object) experience);
+        matchResult = (Object) Stages.MATCH_PROFILE.invokeExact(matcher, (Object) skills, (Object) education,
+                (Object) experience, profile);
+        missingKeywords = (List<?>) (Object) Stages.MISSING_KEYWORDS.invokeExact(matchResult);
+    }
+}
@@ -0,0 +1,45 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JobMatcher scoring, split into compiling a posting and scoring against it
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatcherBenchmark {
+
+    // Keyword extraction and weighting for a posting seen for the first time
+    @Benchmark
+    public Object compileProfile(Documents docs) throws Throwable {
+        return (Object) Stages.COMPILE_PROFILE.invokeExact(docs.matcher, (Object) docs.jobDescription);
+    }
+
+    // The public text entry point; the posting is served from the profile cache
+    @Benchmark
+    public Object calculateMatchScore(Documents docs) throws Throwable {
+        return (Object) Stages.MATCH_TEXT.invokeExact(docs.matcher, (Object) docs.skills, (Object) docs.education,
+                (Object) docs.experience, (Object) docs.jobDescription);
+    }
+
+    // Scoring alone, against an already compiled posting
+    @Benchmark
+    public Object calculateMatchScoreCompiled(Documents docs) throws Throwable {
+        return (Object) Stages.MATCH_PROFILE.invokeExact(docs.matcher, (Object) docs.skills, (Object) docs.education,
+                (Object) docs.experience, docs.profile);
+    }
+
+    // The allocation-free score of a resume already in term form
+    @Benchmark
+    public double scoreTerms(Documents docs) throws Throwable {
+        return (double) Stages.PROFILE_SCORE.invokeExact(docs.profile, docs.terms);
+    }
+}
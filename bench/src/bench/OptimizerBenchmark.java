@@ -0,0 +1,25 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ATSOptimizer suggestions for a scored resume
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    @Benchmark
+    public Object suggestEnhancements(Documents docs) throws Throwable {
+        return (Object) Stages.SUGGEST.invokeExact(docs.optimizer, (Object) docs.resume, (Object) docs.jobDescription,
+                (Object) docs.missingKeywords);
+    }
+}
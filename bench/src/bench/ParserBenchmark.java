@@ -0,0 +1,34 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ResumeParser extractors over already extracted resume text
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Benchmark
+    public Object extractSkills(Documents docs) throws Throwable {
+        return (Object) Stages.EXTRACT_SKILLS.invokeExact(docs.parser, (Object) docs.resume);
+    }
+
+    @Benchmark
+    public Object extractEducation(Documents docs) throws Throwable {
+        return (Object) Stages.EXTRACT_EDUCATION.invokeExact(docs.parser, (Object) docs.resume);
+    }
+
+    @Benchmark
+    public Object extractExperience(Documents docs) throws Throwable {
+        return (Object) Stages.EXTRACT_EXPERIENCE.invokeExact(docs.parser, (Object) docs.resume);
+    }
+}
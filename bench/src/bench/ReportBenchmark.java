@@ -0,0 +1,89 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ReportGenerator writing a full report to disk, and a ReportSink streaming
+// results into one file the way a batch run does.
+//
+// Reports go to data/ and sinks/ under the working directory, which bench.sh
+// points at a scratch directory. The generator announces every report on
+// stdout, so stdout is silenced while the benchmark runs. Each sink file is
+// deleted after its iteration to keep the scratch directory small.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+    private Object generator;
+    private String suggestions;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp(Documents docs) throws Throwable {
+        Files.createDirectories(Paths.get("data"));
+        generator = (Object) Stages.NEW_REPORT_GENERATOR.invokeExact();
+        suggestions = (String) (Object) Stages.SUGGEST.invokeExact(docs.optimizer, (Object) docs.resume,
+                (Object) docs.jobDescription, (Object) docs.missingKeywords);
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public Object generateReport(Documents docs) throws Throwable {
+        return (Object) Stages.GENERATE_REPORT.invokeExact(generator, (Object) "bench_resume.pdf", docs.matchResult,
+                (Object) suggestions);
+    }
+
+    @Benchmark
+    public Object streamResult(Documents docs, Sink sink) throws Throwable {
+        return (Object) Stages.WRITE_REPORT_SINK.invokeExact(sink.sink, (Object) "bench_resume.pdf",
+                (Object) "bench_job.txt", docs.matchResult, (Object) null);
+    }
+
+    // One open sink per format; the extension picks the format
+    @State(Scope.Benchmark)
+    public static class Sink {
+        @Param({"results.jsonl", "results.csv", "results.jsonl.gz"})
+        public String fileName;
+
+        private Path file;
+        private Object sink;
+
+        @Setup(Level.Iteration)
+        public void open() throws Throwable {
+            file = Files.createDirectories(Paths.get("sinks")).resolve(System.nanoTime() + "-" + fileName);
+            sink = (Object) Stages.OPEN_REPORT_SINK.invokeExact((Object) file);
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws Throwable {
+            Object ignored = (Object) Stages.CLOSE_REPORT_SINK.invokeExact(sink);
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.List;
+
+// Handles to the application's pipeline stages.
+//
+// The application lives in the unnamed package, which code in a named package
+// cannot reference, and JMH refuses benchmarks in the unnamed package. The
+// stages are therefore bound once through method handles. Every handle is
+// erased to Object parameters and return type (primitive results that are
+// measured for allocation stay unboxed) so it can be called with invokeExact; static final handles are constant-folded by the JIT, so the
+// indirection does not show up in the measurements.
+final class Stages {
+    static final MethodHandle NEW_PARSER = constructor("ResumeParser");
+    static final MethodHandle NEW_MATCHER = constructor("JobMatcher");
+    static final MethodHandle NEW_OPTIMIZER = constructor("ATSOptimizer");
+    static final MethodHandle NEW_REPORT_GENERATOR = constructor("ReportGenerator");
+
+    // parser.extractSkills(String) / extractEducation(String) / extractExperience(String)
+    static final MethodHandle EXTRACT_SKILLS = method("ResumeParser", "extractSkills", List.class, String.class);
+    static final MethodHandle EXTRACT_EDUCATION = method("ResumeParser", "extractEducation", List.class, String.class);
+    static final MethodHandle EXTRACT_EXPERIENCE = method("ResumeParser", "extractExperience", List.class, String.class);
+
+    // matcher.compileProfile(String) -> JobProfile
+    static final MethodHandle COMPILE_PROFILE = method("JobMatcher", "compileProfile", type("JobProfile"), String.class);
+    // matcher.calculateMatchScore(List, List, List, String) -> MatchResult
+    static final MethodHandle MATCH_TEXT = method("JobMatcher", "calculateMatchScore", type("JobMatcher$MatchResult"),
+            List.class, List.class, List.class, String.class);
+    // matcher.calculateMatchScore(List, List, List, JobProfile) -> MatchResult
+    static final MethodHandle MATCH_PROFILE = method("JobMatcher", "calculateMatchScore", type("JobMatcher$MatchResult"),
+            List.class, List.class, List.class, type("JobProfile"));
+    // ResumeTerms.of(List, List, List) -> ResumeTerms
+    static final MethodHandle RESUME_TERMS = staticMethod("ResumeTerms", "of", type("ResumeTerms"),
+            List.class, List.class, List.class);
+    // profile.score(ResumeTerms) -> double, left unboxed so the benchmark sees no allocation
+    static final MethodHandle PROFILE_SCORE = find("JobProfile", "score", double.class, type("ResumeTerms"))
+            .asType(MethodType.methodType(double.class, Object.class, Object.class));
+    // matchResult.getMissingKeywords()
+    static final MethodHandle MISSING_KEYWORDS = method("JobMatcher$MatchResult", "getMissingKeywords", List.class);
+
+    // optimizer.suggestEnhancements(String, String, List) -> String
+    static final MethodHandle SUGGEST = method("ATSOptimizer", "suggestEnhancements", String.class,
+            String.class, String.class, List.class);
+
+    // generator.generateReport(String, MatchResult, String)
+    static final MethodHandle GENERATE_REPORT = method("ReportGenerator", "generateReport", void.class,
+            String.class, type("JobMatcher$MatchResult"), String.class);
+
+    // ReportSink.open(Path) -> ReportSink
+    static final MethodHandle OPEN_REPORT_SINK = staticMethod("ReportSink", "open", type("ReportSink"), Path.class);
+    // sink.write(String, String, MatchResult, String)
+    static final MethodHandle WRITE_REPORT_SINK = method("ReportSink", "write", void.class,
+            String.class, String.class, type("JobMatcher$MatchResult"), String.class);
+    // sink.close()
+    static final MethodHandle CLOSE_REPORT_SINK = method("ReportSink", "close", void.class);
+
+    private Stages() {
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Application class " + name + " is not on the class path", e);
+        }
+    }
+
+    private static MethodHandle constructor(String className) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findConstructor(type(className),
+                    MethodType.methodType(void.class));
+            return handle.asType(handle.type().generic());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No public constructor " + className + "()", e);
+        }
+    }
+
+    private static MethodHandle staticMethod(String className, String name, Class<?> returnType,
+                                             Class<?>... parameterTypes) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findStatic(type(className), name,
+                    MethodType.methodType(returnType, parameterTypes));
+            return handle.asType(handle.type().generic());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No public method " + className + "." + name, e);
+        }
+    }
+
+    private static MethodHandle method(String className, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        MethodHandle handle = find(className, name, returnType, parameterTypes);
+        return handle.asType(handle.type().generic());
+    }
+
+    private static MethodHandle find(String className, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(type(className), name,
+                    MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No public method " + className + "." + name, e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package bench;
+
+import java.util.Random;
+
+// Generates resumes and job descriptions of a given size from a fixed seed, so
+// every run and every version benchmarks exactly the same text.
+//
+// The text is built from the vocabulary the parser and matcher look for
+// (skills, degrees, titles, dates, section headers) mixed with filler, in the
+// layout of a typical one-column resume.
+public final class SyntheticDocs {
+
+    public enum Size {
+        // A short student resume and a few-line posting
+        SMALL(1_500, 600),
+        // About two pages of resume and a full posting
+        TYPICAL(8_000, 3_000),
+        // A long CV (publications, many roles) and an oversized posting
+        LARGE(200_000, 40_000);
+
+        final int resumeChars;
+        final int jobChars;
+
+        Size(int resumeChars, int jobChars) {
+            this.resumeChars = resumeChars;
+            this.jobChars = jobChars;
+        }
+    }
+
+    private static final String[] SKILLS = {
+        "Java", "Python", "C++", "JavaScript", "React", "Angular", "Node.js", "Spring Boot", "Hibernate", "SQL",
+        "MongoDB", "PostgreSQL", "AWS", "Docker", "Kubernetes", "CI/CD", "Jenkins", "Git", "REST API",
+        "Microservices", "Machine Learning", "TensorFlow", "Agile", "Scrum", "HTML", "CSS", "JSON", "JUnit",
+        "Design Patterns", "Data Structures", "Algorithms", "Distributed Systems", "GraphQL", "TDD"
+    };
+
+    private static final String[] FILLER = {
+        "designed", "implemented", "developed", "maintained", "the", "a", "service", "platform", "team",
+        "customers", "reduced", "latency", "by", "improved", "throughput", "for", "internal", "tooling", "with",
+        "and", "on", "pipeline", "data", "reporting", "dashboards", "migrated", "legacy", "systems", "to",
+        "cloud", "owned", "release", "process", "mentored", "engineers", "across", "three", "regions"
+    };
+
+    private static final String[] TITLES = {
+        "Software Engineer", "Software Developer", "Data Scientist", "Intern", "Analyst", "Engineering Manager"
+    };
+
+    private static final String[] COMPANIES = {
+        "Acme Corp", "Globex", "Initech", "Umbrella Labs", "Stark Industries", "Wayne Systems"
+    };
+
+    private static final String[] MONTHS = {"Jan", "Mar", "Jun", "Aug", "Oct", "Dec"};
+
+    private SyntheticDocs() {
+    }
+
+    public static String resume(Size size) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(size.resumeChars + 256);
+        text.append("Jordan Example\njordan@example.com | +1 555 010 0200\n\n");
+
+        text.append("EDUCATION\n");
+        text.append("Bachelor of Technology in Computer Science and Engineering\n");
+        text.append("Example Institute of Technology        2016 - 2020\n\n");
+
+        text.append("SKILLS\n");
+        appendWords(text, random, SKILLS, 12, ", ");
+        text.append("\n\n");
+
+        text.append("WORK EXPERIENCE\n");
+        int year = 2024;
+        while (text.length() < size.resumeChars * 3 / 4) {
+            text.append(pick(random, COMPANIES)).append(", Remote        ")
+                    .append(pick(random, MONTHS)).append(' ').append(year - 2).append(" - ")
+                    .append(year == 2024 ? "Present" : pick(random, MONTHS) + " " + year).append('\n');
+            text.append(pick(random, TITLES)).append('\n');
+            for (int bullet = 0; bullet < 4; bullet++) {
+                text.append("- ");
+                appendSentence(text, random, 18);
+                text.append(" using ").append(pick(random, SKILLS)).append(", improving results by ")
+                        .append(5 + random.nextInt(60)).append("%\n");
+            }
+            text.append('\n');
+            year = Math.max(1990, year - 2);
+        }
+
+        text.append("PROJECTS\n");
+        while (text.length() < size.resumeChars) {
+            text.append("- ");
+            appendSentence(text, random, 24);
+            text.append(" with ").append(pick(random, SKILLS)).append(".\n");
+        }
+        return text.toString();
+    }
+
+    public static String jobDescription(Size size) {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder(size.jobChars + 256);
+        text.append("Job Title: Senior Software Engineer\nJob Description:\n");
+        text.append("We are looking for an engineer to build and operate our platform. Requirements include:\n");
+        text.append("- 3+ years of experience in backend development\n");
+        text.append("- Bachelor's degree in Computer Science or Engineering\n");
+        text.append("Key Skills:\n");
+        for (int i = 0; i < 8; i++) {
+            text.append("- ").append(pick(random, SKILLS)).append('\n');
+        }
+        while (text.length() < size.jobChars) {
+            text.append("Experience with ").append(pick(random, SKILLS)).append(" and ").append(pick(random, SKILLS))
+                    .append(" is required. ");
+            appendSentence(text, random, 20);
+            text.append(".\n");
+        }
+        return text.toString();
+    }
+
+    private static void appendSentence(StringBuilder text, Random random, int words) {
+        appendWords(text, random, FILLER, words, " ");
+    }
+
+    private static void appendWords(StringBuilder text, Random random, String[] vocabulary, int words,
+                                    String separator) {
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(separator);
+            }
+            text.append(pick(random, vocabulary));
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
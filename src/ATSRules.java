@@ -0,0 +1,494 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The checks ATSOptimizer runs over a resume, as declarative rules compiled
+// into one scanner.
+//
+// Rules are read from data/ats_rules.txt (or -Dresume.atsRules=<file>), which
+// documents the syntax; the built-in DEFAULT_RULES are used when there is no
+// such file. Every text a rule looks for goes into one KeywordAutomaton, and
+// the checks that are not plain texts are anchored on one: a number before a
+// word is checked backwards from the word, an email address outwards from its
+// '@', a phone number forwards from each digit that starts a word. Those
+// checks only look at the few characters around the anchor, so evaluating any
+// number of rules reads the resume once.
+public class ATSRules {
+    public static final String[] DEFAULT_RULES = {
+        "format: Objective Statement | present | phrase \"Objective:\" \"Career Objective:\""
+                + " | Consider replacing with a professional summary that highlights relevant skills",
+        "format: Length | present | length > 5000 | Resume appears lengthy. Consider condensing to 1-2 pages",
+        "format: References | present | phrase \"References:\" \"References available upon request\""
+                + " | Remove references section to save space",
+        "format: Spacing | present | count \"\\n\\n\" > 20 | Check for inconsistent spacing",
+        "content | absent | phrase capitalized \"achieved\" \"improved\" \"increased\" \"reduced\" \"managed\""
+                + " \"led\" \"developed\" \"created\" \"implemented\" \"designed\" \"coordinated\" \"conducted\""
+                + " \"analyzed\" | Use more action verbs (like 'achieved', 'implemented', 'developed')",
+        "content | absent | number-before \"%\" \"users\" \"customers\" \"clients\" \"projects\" \"dollars\""
+                + " \"revenue\" | Add quantifiable achievements (percentages, numbers, metrics)",
+        "content | present | always | Ensure proper keyword density (avoid overuse or underuse)",
+        "content | absent | email within 500 or phone within 500 | Make contact information more prominent"
+    };
+
+    private static final String DEFAULT_FILE = "data/ats_rules.txt";
+    private static volatile ATSRules shared;
+
+    // One rule: where its suggestion goes and when it is made
+    public static class Rule {
+        private final String title; // null for content rules
+        private final boolean whenPresent;
+        private final String suggestion;
+
+        Rule(String title, boolean whenPresent, String suggestion) {
+            this.title = title;
+            this.whenPresent = whenPresent;
+            this.suggestion = suggestion;
+        }
+
+        // Formatting rules have a title; content rules do not
+        public boolean isFormat() {
+            return title != null;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getSuggestion() {
+            return suggestion;
+        }
+    }
+
+    private enum Kind { PHRASE, COUNT, LENGTH, NUMBER_BEFORE, EMAIL, PHONE, ALWAYS }
+
+    // One test of a rule; a rule holds when any of its tests does
+    private static final class Test {
+        final Kind kind;
+        final int rule;
+        // Matches must end within the first limit characters
+        final int limit;
+        // For COUNT and LENGTH: more than this many
+        final int threshold;
+
+        Test(Kind kind, int rule, int limit, int threshold) {
+            this.kind = kind;
+            this.rule = rule;
+            this.limit = limit;
+            this.threshold = threshold;
+        }
+    }
+
+    private final List<Rule> rules;
+    private final Test[] tests;
+    private final KeywordAutomaton automaton;
+    // Test each automaton keyword belongs to
+    private final int[] testOf;
+
+    private ATSRules(List<Rule> rules, List<Test> tests, List<String> anchors, List<Integer> anchorTests) {
+        this.rules = rules;
+        this.tests = tests.toArray(new Test[0]);
+        this.automaton = new KeywordAutomaton(anchors, false, false);
+        this.testOf = anchorTests.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // The process-wide rules, read from -Dresume.atsRules=<file> or
+    // data/ats_rules.txt, or the defaults when there is no such file
+    public static ATSRules shared() {
+        ATSRules result = shared;
+        if (result == null) {
+            synchronized (ATSRules.class) {
+                result = shared;
+                if (result == null) {
+                    result = loadShared();
+                    shared = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public static synchronized void setShared(ATSRules rules) {
+        shared = rules;
+    }
+
+    public static ATSRules defaults() {
+        return parse(Arrays.asList(DEFAULT_RULES), "built-in rules");
+    }
+
+    private static ATSRules loadShared() {
+        String configured = System.getProperty("resume.atsRules");
+        Path file = Paths.get(configured != null && !configured.isEmpty() ? configured : DEFAULT_FILE);
+        if (configured == null && !Files.exists(file)) {
+            return defaults();
+        }
+        try {
+            return load(file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Using built-in ATS rules: " + e.getMessage());
+            return defaults();
+        }
+    }
+
+    public static ATSRules load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+    }
+
+    public static ATSRules parse(List<String> lines, String source) {
+        List<Rule> rules = new ArrayList<>();
+        List<Test> tests = new ArrayList<>();
+        List<String> anchors = new ArrayList<>();
+        List<Integer> anchorTests = new ArrayList<>();
+
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String where = source + " line " + (n + 1) + ": ";
+            List<String> fields = splitFields(line);
+            if (fields.size() != 4) {
+                throw new IllegalArgumentException(where + "expected <section> | <when> | <test> | <suggestion>");
+            }
+
+            String section = fields.get(0);
+            String title;
+            if (section.equals("content")) {
+                title = null;
+            } else if (section.startsWith("format:") && !section.substring(7).trim().isEmpty()) {
+                title = section.substring(7).trim();
+            } else {
+                throw new IllegalArgumentException(where + "section must be \"content\" or \"format: <title>\"");
+            }
+            boolean whenPresent;
+            if (fields.get(1).equals("present")) {
+                whenPresent = true;
+            } else if (fields.get(1).equals("absent")) {
+                whenPresent = false;
+            } else {
+                throw new IllegalArgumentException(where + "when must be \"present\" or \"absent\"");
+            }
+
+            int rule = rules.size();
+            rules.add(new Rule(title, whenPresent, fields.get(3)));
+            List<String> tokens = tokenize(fields.get(2), where);
+            int i = 0;
+            while (true) {
+                i = parseTest(tokens, i, rule, tests, anchors, anchorTests, where);
+                if (i == tokens.size()) {
+                    break;
+                }
+                if (!tokens.get(i).equals("or") || i + 1 == tokens.size()) {
+                    throw new IllegalArgumentException(where + "unexpected \"" + tokens.get(i) + "\"");
+                }
+                i++;
+            }
+        }
+        return new ATSRules(rules, tests, anchors, anchorTests);
+    }
+
+    // Parse one test starting at token i; returns the index after it
+    private static int parseTest(List<String> tokens, int i, int rule, List<Test> tests, List<String> anchors,
+                                 List<Integer> anchorTests, String where) {
+        String word = tokens.get(i++);
+        Kind kind;
+        switch (word) {
+            case "phrase": kind = Kind.PHRASE; break;
+            case "count": kind = Kind.COUNT; break;
+            case "length": kind = Kind.LENGTH; break;
+            case "number-before": kind = Kind.NUMBER_BEFORE; break;
+            case "email": kind = Kind.EMAIL; break;
+            case "phone": kind = Kind.PHONE; break;
+            case "always": kind = Kind.ALWAYS; break;
+            default:
+                throw new IllegalArgumentException(where + "unknown test \"" + word + "\"");
+        }
+
+        boolean capitalized = false;
+        if (kind == Kind.PHRASE && i < tokens.size() && tokens.get(i).equals("capitalized")) {
+            capitalized = true;
+            i++;
+        }
+        List<String> texts = new ArrayList<>();
+        while (i < tokens.size() && tokens.get(i).startsWith("\"")) {
+            texts.add(tokens.get(i++).substring(1));
+        }
+        int threshold = 0;
+        if (kind == Kind.COUNT || kind == Kind.LENGTH) {
+            if (i + 1 >= tokens.size() || !tokens.get(i).equals(">")) {
+                throw new IllegalArgumentException(where + word + " needs \"> N\"");
+            }
+            threshold = parseNumber(tokens.get(i + 1), where);
+            i += 2;
+        }
+        int limit = Integer.MAX_VALUE;
+        if (i < tokens.size() && tokens.get(i).equals("within")) {
+            if (i + 1 == tokens.size() || kind == Kind.LENGTH || kind == Kind.ALWAYS) {
+                throw new IllegalArgumentException(where + "\"within N\" does not apply to " + word);
+            }
+            limit = parseNumber(tokens.get(i + 1), where);
+            i += 2;
+        }
+
+        boolean needsTexts = kind == Kind.PHRASE || kind == Kind.COUNT || kind == Kind.NUMBER_BEFORE;
+        if (needsTexts ? texts.isEmpty() || texts.contains("") : !texts.isEmpty()) {
+            throw new IllegalArgumentException(where + word + (needsTexts ? " needs non-empty quoted texts"
+                    : " takes no texts"));
+        }
+        if (kind == Kind.COUNT && texts.size() != 1) {
+            throw new IllegalArgumentException(where + "count takes one text");
+        }
+
+        int test = tests.size();
+        tests.add(new Test(kind, rule, limit, threshold));
+        if (kind == Kind.EMAIL) {
+            texts.add("@");
+        } else if (kind == Kind.PHONE) {
+            for (char digit = '0'; digit <= '9'; digit++) {
+                texts.add(String.valueOf(digit));
+            }
+        }
+        for (String text : texts) {
+            anchors.add(text);
+            anchorTests.add(test);
+            if (capitalized && Character.isLowerCase(text.charAt(0))) {
+                anchors.add(Character.toUpperCase(text.charAt(0)) + text.substring(1));
+                anchorTests.add(test);
+            }
+        }
+        return i;
+    }
+
+    private static int parseNumber(String token, String where) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + "expected a number, got \"" + token + "\"");
+        }
+    }
+
+    // Split on '|' outside quotes
+    private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && quoted) {
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '|' && !quoted) {
+                fields.add(line.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        fields.add(line.substring(start).trim());
+        return fields;
+    }
+
+    // Words, and quoted texts with their escapes resolved, marked by a
+    // leading '"'
+    private static List<String> tokenize(String test, String where) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < test.length()) {
+            char c = test.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                StringBuilder text = new StringBuilder("\"");
+                i++;
+                while (i < test.length() && test.charAt(i) != '"') {
+                    char t = test.charAt(i++);
+                    if (t == '\\' && i < test.length()) {
+                        char escaped = test.charAt(i++);
+                        t = escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped;
+                    }
+                    text.append(t);
+                }
+                if (i == test.length()) {
+                    throw new IllegalArgumentException(where + "unterminated quote");
+                }
+                i++;
+                tokens.add(text.toString());
+            } else {
+                int start = i;
+                while (i < test.length() && !Character.isWhitespace(test.charAt(i)) && test.charAt(i) != '"') {
+                    i++;
+                }
+                tokens.add(test.substring(start, i));
+            }
+        }
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException(where + "missing test");
+        }
+        return tokens;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    // Which rules make their suggestion for this text, by rule index
+    public boolean[] evaluate(String text) {
+        int length = text.length();
+        boolean[] holds = new boolean[tests.length];
+        int[] counts = new int[tests.length];
+        int[] lastEnd = new int[tests.length];
+
+        automaton.scan(text, (keyword, start, end) -> {
+            int t = testOf[keyword];
+            Test test = tests[t];
+            if (holds[t] || end > test.limit) {
+                return;
+            }
+            int regionEnd = Math.min(length, test.limit);
+            switch (test.kind) {
+                case PHRASE:
+                    holds[t] = true;
+                    break;
+                case COUNT:
+                    // Non-overlapping occurrences, like repeated indexOf
+                    if (start >= lastEnd[t]) {
+                        lastEnd[t] = end;
+                        holds[t] = ++counts[t] > test.threshold;
+                    }
+                    break;
+                case NUMBER_BEFORE:
+                    holds[t] = numberEndsBefore(text, start);
+                    break;
+                case EMAIL:
+                    holds[t] = isEmailAround(text, start, regionEnd);
+                    break;
+                case PHONE:
+                    holds[t] = isPhoneAt(text, start, regionEnd);
+                    break;
+                default:
+                    break;
+            }
+        });
+
+        boolean[] ruleHolds = new boolean[rules.size()];
+        for (int t = 0; t < tests.length; t++) {
+            Test test = tests[t];
+            if (test.kind == Kind.ALWAYS || (test.kind == Kind.LENGTH && length > test.threshold)) {
+                holds[t] = true;
+            }
+            ruleHolds[test.rule] |= holds[t];
+        }
+        boolean[] fires = new boolean[rules.size()];
+        for (int r = 0; r < fires.length; r++) {
+            fires[r] = ruleHolds[r] == rules.get(r).whenPresent;
+        }
+        return fires;
+    }
+
+    // \d+\s* ending at end, as in "25 %" or "3 projects"
+    private static boolean numberEndsBefore(String text, int end) {
+        int i = end - 1;
+        while (i >= 0 && isRegexSpace(text.charAt(i))) {
+            i--;
+        }
+        return i >= 0 && isDigit(text.charAt(i));
+    }
+
+    // Whether the '@' at at is part of a match of
+    // \b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,}\b within text[0, regionEnd)
+    private static boolean isEmailAround(String text, int at, int regionEnd) {
+        // Some local part start has a word boundary exactly when the run
+        // before the '@' holds a word character
+        boolean wordInLocalPart = false;
+        for (int i = at - 1; i >= 0 && isLocalPartChar(text.charAt(i)); i--) {
+            if (isWordChar(text.charAt(i))) {
+                wordInLocalPart = true;
+                break;
+            }
+        }
+        if (!wordInLocalPart) {
+            return false;
+        }
+        // Some '.' after at least one domain character, followed by two or
+        // more letters that end at a word boundary
+        int domainEnd = at + 1;
+        while (domainEnd < regionEnd && isDomainChar(text.charAt(domainEnd))) {
+            domainEnd++;
+        }
+        for (int dot = at + 2; dot < domainEnd; dot++) {
+            if (text.charAt(dot) != '.') {
+                continue;
+            }
+            int letters = dot + 1;
+            while (letters < regionEnd && isAsciiLetter(text.charAt(letters))) {
+                letters++;
+            }
+            if (letters - dot - 1 >= 2 && (letters == regionEnd || !isWordChar(text.charAt(letters)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether \b\d{3}[-.]?\d{3}[-.]?\d{4}\b matches at start within text[0, regionEnd)
+    private static boolean isPhoneAt(String text, int start, int regionEnd) {
+        if (start > 0 && isWordChar(text.charAt(start - 1))) {
+            return false;
+        }
+        int i = digits(text, start, 3, regionEnd);
+        if (i < 0) {
+            return false;
+        }
+        i = digits(text, separator(text, i, regionEnd), 3, regionEnd);
+        if (i < 0) {
+            return false;
+        }
+        i = digits(text, separator(text, i, regionEnd), 4, regionEnd);
+        return i >= 0 && (i == regionEnd || !isWordChar(text.charAt(i)));
+    }
+
+    private static int digits(String text, int i, int count, int regionEnd) {
+        if (i + count > regionEnd) {
+            return -1;
+        }
+        for (int n = 0; n < count; n++) {
+            if (!isDigit(text.charAt(i + n))) {
+                return -1;
+            }
+        }
+        return i + count;
+    }
+
+    private static int separator(String text, int i, int regionEnd) {
+        return i < regionEnd && (text.charAt(i) == '-' || text.charAt(i) == '.') ? i + 1 : i;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return isWordChar(c) || c == '.' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isAsciiLetter(c) || isDigit(c) || c == '.' || c == '-';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // \w and \b as java.util.regex defines them (see KeywordAutomaton)
+    private static boolean isWordChar(char c) {
+        return isAsciiLetter(c) || isDigit(c) || c == '_';
+    }
+
+    // \s as java.util.regex defines it
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+// Keeps a warmed-up analyzer resident behind a UNIX domain socket, so command
+// lines run through "Main --client <arguments>" skip JVM startup, PDFBox class
+// loading, taxonomy compilation and JIT warm-up.
+//
+//   java ... Main --daemon                       start it (Ctrl-C to stop)
+//   java ... Main --client [<arguments>]         run "Main <arguments>" in it
+//
+// The client sends its arguments and working directory. The daemon runs the
+// command with Main.run on its resident analyzer and streams everything the
+// command prints back, followed by its exit status. Relative paths must mean
+// the same thing on both sides, so a client started in another directory, a
+// long-running mode (--serve, --watch...) or a missing daemon is declined and
+// the client runs the command itself instead.
+//
+// The socket is data/daemon.sock, or -Dresume.daemon.socket=<file>, relative
+// to the working directory of each side.
+public class AnalysisDaemon {
+    private static final String DEFAULT_SOCKET = "data/daemon.sock";
+    private static final int PROTOCOL_MAGIC = 0x52414431; // "RAD1"
+    // Response frames: a kind byte, then output bytes or the exit status
+    private static final int STDOUT = 1;
+    private static final int STDERR = 2;
+    private static final int EXIT = 3;
+    private static final int DECLINED = 4;
+    private static final int WARM_UP_ROUNDS = 20;
+    // Modes that run until stopped, which the daemon leaves to their own JVM
+    private static final Set<String> LONG_RUNNING = new HashSet<>(Arrays.asList(
+            "--daemon", "--client", "--serve", "--watch", "--loadtest"));
+
+    // The connection whose client should see what this thread prints. Set
+    // and cleared around each command and each task it hands to a thread of
+    // its own (see routed), never inherited: a pool thread that happens to be
+    // created during a command serves later commands too.
+    private static final ThreadLocal<Connection> CURRENT = new ThreadLocal<>();
+
+    private final Path socket;
+    private final Path workingDirectory = Paths.get("").toAbsolutePath();
+    private final Main.Analyzer analyzer = new Main.Analyzer();
+    private final ExecutorService executor = ScoringServer.newRequestExecutor();
+
+    public AnalysisDaemon(Path socket) {
+        this.socket = socket;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new AnalysisDaemon(socketPath()).serve();
+    }
+
+    private static Path socketPath() {
+        return Paths.get(System.getProperty("resume.daemon.socket", DEFAULT_SOCKET));
+    }
+
+    // Load the classes, taxonomy and rules and get the hot paths compiled by
+    // analyzing the sample files, so the first client call is as fast as the rest
+    void warmUp() {
+        Path resume = Paths.get(Main.DEFAULT_RESUME);
+        Path job = Paths.get(Main.DEFAULT_JOB_DESCRIPTION);
+        Taxonomy.current();
+        if (!Files.exists(resume) || !Files.exists(job)) {
+            return;
+        }
+        try {
+            String jobDescription = new String(Files.readAllBytes(job));
+            for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                String text = analyzer.parser.extractText(resume.toString());
+                analyzer.parser.extractEducation(text);
+                analyzer.parser.extractExperience(text);
+                JobMatcher.MatchResult result = analyzer.matcher.compareWithJob(text, job.toString());
+                analyzer.optimizer.suggestEnhancements(text, jobDescription, result.getMissingKeywords());
+            }
+        } catch (IOException e) {
+            System.err.println("Skipping warm-up: " + e.getMessage());
+        }
+    }
+
+    // Accept clients until the process is stopped. Clients that connect
+    // while the daemon is still warming up wait for it.
+    void serve() throws IOException {
+        try (ServerSocketChannel server = bind(socket)) {
+            StageMetrics.registerMBeans();
+            long start = System.nanoTime();
+            warmUp();
+            System.out.printf("Warmed up in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException e) {
+                    // the next daemon replaces a stale socket anyway
+                }
+            }));
+            System.setOut(new PrintStream(new Router(STDOUT, System.out), true));
+            System.setErr(new PrintStream(new Router(STDERR, System.err), true));
+            System.out.println("Analysis daemon listening on " + socket);
+            while (true) {
+                SocketChannel channel = server.accept();
+                executor.execute(() -> handle(channel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (Connection connection = new Connection(channel)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            if (in.readInt() != PROTOCOL_MAGIC) {
+                return;
+            }
+            Path directory = Paths.get(in.readUTF());
+            String[] args = new String[in.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readUTF();
+            }
+            if (!directory.equals(workingDirectory) || !runsInDaemon(args)) {
+                connection.decline();
+                return;
+            }
+            int status = 0;
+            CURRENT.set(connection);
+            try {
+                Main.run(args, analyzer);
+            } catch (Exception e) {
+                System.err.println("Error: " + e);
+                status = 1;
+            } finally {
+                CURRENT.remove();
+            }
+            connection.finish(status);
+        } catch (IOException e) {
+            // the client went away; nothing left to tell it
+        }
+    }
+
+    // A task for a thread the running command starts, printing to the same
+    // client as the command while it runs; outside the daemon, the task itself
+    public static Runnable routed(Runnable task) {
+        Connection connection = CURRENT.get();
+        if (connection == null) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(connection);
+            try {
+                task.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    private static boolean runsInDaemon(String[] args) {
+        return args.length == 0 || !LONG_RUNNING.contains(args[0]);
+    }
+
+    // Bind the socket, replacing the file a crashed daemon left behind, but
+    // not the socket of one that is still running
+    private static ServerSocketChannel bind(Path socket) throws IOException {
+        if (Files.exists(socket)) {
+            boolean running;
+            try {
+                connect(socket).close();
+                running = true;
+            } catch (IOException e) {
+                running = false;
+            }
+            if (running) {
+                throw new IOException("Another daemon is already listening on " + socket);
+            }
+            Files.delete(socket);
+        }
+        Path parent = socket.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ServerSocketChannel server = (ServerSocketChannel) invoke(
+                ServerSocketChannel.class, "open", unixFamily());
+        try {
+            server.bind(address(socket));
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        return server;
+    }
+
+    // Run a command line in the daemon, printing its output here. Returns its
+    // exit status, or -1 when no daemon ran it and the caller should.
+    public static int forward(String[] args) {
+        Path socket = socketPath();
+        if (args.length > 0 && LONG_RUNNING.contains(args[0]) || !Files.exists(socket)) {
+            return -1;
+        }
+        try (SocketChannel channel = connect(socket)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(PROTOCOL_MAGIC);
+            out.writeUTF(Paths.get("").toAbsolutePath().toString());
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            return receive(new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel))));
+        } catch (IOException e) {
+            return -1; // not running, or too old a JDK for UNIX domain sockets
+        }
+    }
+
+    private static int receive(DataInputStream in) {
+        boolean started = false;
+        try {
+            while (true) {
+                int kind = in.readByte();
+                if (kind == DECLINED) {
+                    return -1;
+                }
+                if (kind == EXIT) {
+                    System.out.flush();
+                    return in.readInt();
+                }
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                started = true;
+                (kind == STDERR ? System.err : System.out).write(bytes, 0, bytes.length);
+            }
+        } catch (IOException e) {
+            if (!started && e instanceof EOFException) {
+                return -1;
+            }
+            // Part of the command already ran; running it again here could
+            // repeat its side effects
+            System.err.println("Error: lost the connection to the analysis daemon");
+            return 1;
+        }
+    }
+
+    // UNIX domain sockets came in Java 16. They are looked up reflectively so
+    // the rest of the code still builds and runs on Java 11, where the daemon
+    // refuses to start and the client always runs commands itself.
+    private static SocketChannel connect(Path socket) throws IOException {
+        SocketChannel channel = (SocketChannel) invoke(SocketChannel.class, "open", unixFamily());
+        try {
+            channel.connect(address(socket));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private static ProtocolFamily unixFamily() throws IOException {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("UNIX domain sockets need Java 16 or later");
+        }
+    }
+
+    private static SocketAddress address(Path socket) throws IOException {
+        try {
+            Class<?> type = Class.forName("java.net.UnixDomainSocketAddress");
+            return (SocketAddress) type.getMethod("of", Path.class).invoke(null, socket);
+        } catch (InvocationTargetException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("UNIX domain sockets need Java 16 or later");
+        }
+    }
+
+    private static Object invoke(Class<?> type, String factory, ProtocolFamily family) throws IOException {
+        try {
+            return type.getMethod(factory, ProtocolFamily.class).invoke(null, family);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("UNIX domain sockets need Java 16 or later");
+        }
+    }
+
+    // One client. Output is framed as it is flushed; once the command is
+    // finished, stray writes from threads it left behind go to the daemon's
+    // own console instead.
+    private static final class Connection implements AutoCloseable {
+        private final SocketChannel channel;
+        private final DataOutputStream out;
+        private volatile boolean finished;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+
+        synchronized void write(int kind, byte[] bytes, int offset, int length) throws IOException {
+            out.writeByte(kind);
+            out.writeInt(length);
+            out.write(bytes, offset, length);
+        }
+
+        synchronized void flush() throws IOException {
+            out.flush();
+        }
+
+        synchronized void finish(int status) throws IOException {
+            finished = true;
+            out.writeByte(EXIT);
+            out.writeInt(status);
+            out.flush();
+        }
+
+        synchronized void decline() throws IOException {
+            finished = true;
+            out.writeByte(DECLINED);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            channel.close();
+        }
+    }
+
+    // Installed as System.out and System.err: sends what a command prints to
+    // its client, and everything else to the daemon's console
+    private static final class Router extends OutputStream {
+        private final int kind;
+        private final PrintStream console;
+
+        Router(int kind, PrintStream console) {
+            this.kind = kind;
+            this.console = console;
+        }
+
+        private Connection client() {
+            Connection connection = CURRENT.get();
+            return connection != null && !connection.isFinished() ? connection : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            Connection client = client();
+            if (client != null) {
+                client.write(kind, bytes, offset, length);
+            } else {
+                console.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            Connection client = client();
+            if (client != null) {
+                client.flush();
+            } else {
+                console.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,668 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+// Scores a whole pool of resumes against many job descriptions in one run.
+//
+// The work is split into three stages connected by bounded queues:
+//   1. text extraction (PDFBox, the most expensive step)
+//   2. skill / education / experience extraction
+//   3. scoring every parsed resume against every job
+// Each stage has its own worker threads, so a slow PDF only holds up one
+// extraction worker while the other stages keep the remaining cores busy.
+// The bounded queues keep memory flat no matter how many resumes are queued.
+// Besides the per-job rankings, every result can be streamed into one report
+// file (text, JSON Lines or CSV, see ReportSink) as it is scored.
+// With a NearDuplicateIndex, a resume whose text is a near-duplicate of one
+// already in the run skips parsing and scoring and reuses that one's results.
+public class BatchRanker {
+    private static final int QUEUE_CAPACITY_PER_WORKER = 4;
+    private static final long WORKER_CHECK_MILLIS = 200;
+    public static final int DEFAULT_TOP = 1000;
+
+    // Marks the end of input on a queue; compared by identity
+    private static final ParsedResume END_OF_STREAM = new ParsedResume(null, null);
+    private static final Path END_OF_PATHS = Paths.get("");
+
+    private final List<Path> resumeFiles;
+    private final List<Path> jobFiles;
+    private final Path outputDir;
+    private final int threads;
+    private final Path reportFile;
+    private final ScoringMode mode;
+    private final NearDuplicateIndex duplicates;
+    private final int top;
+    private final ExtractionCache cache;
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+    // The first error that stopped a worker thread, which fails the run
+    private final AtomicReference<Throwable> workerFailure = new AtomicReference<>();
+
+    public BatchRanker(List<Path> resumeFiles, List<Path> jobFiles, Path outputDir, int threads) {
+        this(resumeFiles, jobFiles, outputDir, threads, null, ScoringMode.HEURISTIC);
+    }
+
+    // reportFile, when not null, receives every result; its extension picks the format
+    public BatchRanker(List<Path> resumeFiles, List<Path> jobFiles, Path outputDir, int threads, Path reportFile,
+                       ScoringMode mode) {
+        this(resumeFiles, jobFiles, outputDir, threads, reportFile, mode, null);
+    }
+
+    // duplicates, when not null, finds resumes whose results can be reused
+    public BatchRanker(List<Path> resumeFiles, List<Path> jobFiles, Path outputDir, int threads, Path reportFile,
+                       ScoringMode mode, NearDuplicateIndex duplicates) {
+        this(resumeFiles, jobFiles, outputDir, threads, reportFile, mode, duplicates, DEFAULT_TOP);
+    }
+
+    // top bounds the resumes listed (and kept in memory) per job ranking
+    public BatchRanker(List<Path> resumeFiles, List<Path> jobFiles, Path outputDir, int threads, Path reportFile,
+                       ScoringMode mode, NearDuplicateIndex duplicates, int top) {
+        this(resumeFiles, jobFiles, outputDir, threads, reportFile, mode, duplicates, top, ExtractionCache.shared());
+    }
+
+    // cache keeps the extracted texts of this run, instead of the shared one
+    public BatchRanker(List<Path> resumeFiles, List<Path> jobFiles, Path outputDir, int threads, Path reportFile,
+                       ScoringMode mode, NearDuplicateIndex duplicates, int top, ExtractionCache cache) {
+        this.resumeFiles = resumeFiles;
+        this.jobFiles = jobFiles;
+        this.outputDir = outputDir;
+        this.threads = Math.max(1, threads);
+        this.reportFile = reportFile;
+        this.mode = mode;
+        this.duplicates = duplicates;
+        this.top = Math.max(1, top);
+        this.cache = cache;
+    }
+
+    // One scored resume for a given job: just what its ranking line shows,
+    // so the full match results are not kept for the whole batch
+    public static class RankedEntry {
+        // Highest score first; ties keep a stable order by file name
+        static final Comparator<RankedEntry> RANK_ORDER = Comparator
+                .comparingDouble(RankedEntry::getScore).reversed()
+                .thenComparing(RankedEntry::getResumeFile);
+
+        private final String resumeFile;
+        private final double score;
+        private final int matchedCount;
+        private final int missingCount;
+
+        public RankedEntry(String resumeFile, JobMatcher.MatchResult result) {
+            this.resumeFile = resumeFile;
+            this.score = result.getScore();
+            this.matchedCount = result.getMatchedKeywords().size();
+            this.missingCount = result.getMissingKeywords().size();
+        }
+
+        public String getResumeFile() {
+            return resumeFile;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getMatchedCount() {
+            return matchedCount;
+        }
+
+        public int getMissingCount() {
+            return missingCount;
+        }
+    }
+
+    // The best entries of one job's ranking, at most top of them, and how
+    // many resumes were ranked in all
+    private static class Ranking {
+        // Worst of the kept entries first, to be replaced by a better one
+        private final PriorityQueue<RankedEntry> best = new PriorityQueue<>(RankedEntry.RANK_ORDER.reversed());
+        private final int top;
+        private int ranked;
+
+        Ranking(int top) {
+            this.top = top;
+        }
+
+        synchronized void add(RankedEntry entry) {
+            ranked++;
+            if (best.size() < top) {
+                best.add(entry);
+            } else if (RankedEntry.RANK_ORDER.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+
+        synchronized List<RankedEntry> entries() {
+            List<RankedEntry> entries = new ArrayList<>(best);
+            entries.sort(RankedEntry.RANK_ORDER);
+            return entries;
+        }
+
+        synchronized int getRanked() {
+            return ranked;
+        }
+    }
+
+    // A resume scored in this run (the representative) and the
+    // near-duplicates reusing its results
+    private static class DuplicateGroup {
+        // Results per job, once the representative has been scored
+        private JobMatcher.MatchResult[] results;
+        // Set when the representative could not be scored: its duplicates
+        // are then parsed and scored on their own
+        private boolean failed;
+        private final List<ParsedResume> waiting = new ArrayList<>();
+    }
+
+    // Run the pipeline and write one ranked results file per job
+    public void run() throws IOException, InterruptedException {
+        // Every job is analyzed once up front and reused for every resume
+        JobMatcher matcher = new JobMatcher();
+        List<JobProfile> jobs = new ArrayList<>();
+        for (Path jobFile : jobFiles) {
+            jobs.add(matcher.getJobProfile(new String(Files.readAllBytes(jobFile))));
+        }
+        if (mode == ScoringMode.COSINE) {
+            // Cosine scores weigh words by the corpus as it stands once every
+            // job has joined it, so resumes scored early and late, on any
+            // thread, are ranked by the same weights
+            for (JobProfile job : jobs) {
+                job.getTokens();
+            }
+            matcher = new JobMatcher(CorpusStats.shared().snapshot());
+        }
+
+        List<Ranking> resultsPerJob = new ArrayList<>();
+        for (int i = 0; i < jobFiles.size(); i++) {
+            resultsPerJob.add(new Ranking(top));
+        }
+
+        // Half the threads extract text, the slowest stage, and the rest are
+        // split between parsing and scoring; each stage needs one, so fewer
+        // than three threads still start three
+        int extractWorkers = Math.max(1, threads / 2);
+        int parseWorkers = Math.max(1, threads / 4);
+        int scoreWorkers = Math.max(1, threads - extractWorkers - parseWorkers);
+
+        ResumeParser parser = new ResumeParser(cache);
+        ReportSink report = reportFile == null ? null : ReportSink.open(reportFile);
+        List<Thread> workers = new ArrayList<>();
+        try {
+            runPipeline(matcher, jobs, resultsPerJob, extractWorkers, parseWorkers, scoreWorkers, parser, report,
+                    workers);
+        } finally {
+            // On failure the other workers are still blocked on their queues
+            stopWorkers(workers);
+            if (report != null) {
+                closeAfterFailure(report);
+            }
+        }
+
+        Files.createDirectories(outputDir);
+        List<String> names = rankingNames(jobFiles);
+        for (int j = 0; j < jobFiles.size(); j++) {
+            writeRanking(jobFiles.get(j), names.get(j), resultsPerJob.get(j));
+        }
+
+        System.out.println("Batch complete: " + processed.get() + " resumes scored against "
+                + jobFiles.size() + " jobs, " + failed.get() + " failed"
+                + (duplicates == null ? "" : ", " + reused.get() + " near-duplicates reused earlier results"));
+    }
+
+    private void runPipeline(JobMatcher matcher, List<JobProfile> jobs, List<Ranking> resultsPerJob,
+                             int extractWorkers, int parseWorkers, int scoreWorkers, ResumeParser parser,
+                             ReportSink report, List<Thread> workers) throws IOException, InterruptedException {
+        BlockingQueue<Path> pathQueue = new ArrayBlockingQueue<>(extractWorkers * QUEUE_CAPACITY_PER_WORKER);
+        BlockingQueue<ParsedResume> textQueue = new ArrayBlockingQueue<>(parseWorkers * QUEUE_CAPACITY_PER_WORKER);
+        BlockingQueue<ParsedResume> parsedQueue = new ArrayBlockingQueue<>(scoreWorkers * QUEUE_CAPACITY_PER_WORKER);
+        AtomicReference<IOException> reportFailure = new AtomicReference<>();
+        // Groups by index id, and the group of every resume on its way to
+        // scoring, by whether it represents the group or duplicates it
+        List<DuplicateGroup> groups = new ArrayList<>();
+        Map<ParsedResume, DuplicateGroup> representing = new ConcurrentHashMap<>();
+        Map<ParsedResume, DuplicateGroup> duplicating = new ConcurrentHashMap<>();
+
+        CountDownLatch extractDone = new CountDownLatch(extractWorkers);
+        CountDownLatch parseDone = new CountDownLatch(parseWorkers);
+        CountDownLatch scoreDone = new CountDownLatch(scoreWorkers);
+
+        // Stage 1: text extraction
+        for (int i = 0; i < extractWorkers; i++) {
+            workers.add(startWorker("batch-extract-" + i, extractDone, () -> {
+                Path path;
+                while ((path = pathQueue.take()) != END_OF_PATHS) {
+                    ParsedResume resume;
+                    try {
+                        resume = parser.readResume(path.toString());
+                    } catch (IOException | RuntimeException e) {
+                        failed.incrementAndGet();
+                        System.err.println("Skipping " + path + ": could not extract text (" + e + ")");
+                        continue;
+                    }
+                    textQueue.put(resume);
+                }
+            }));
+        }
+
+        // Stage 2: skill, education and experience extraction (already done for
+        // cache hits, and skipped for near-duplicates of resumes already parsed)
+        for (int i = 0; i < parseWorkers; i++) {
+            workers.add(startWorker("batch-parse-" + i, parseDone, () -> {
+                ParsedResume resume;
+                while ((resume = textQueue.take()) != END_OF_STREAM) {
+                    int[] signature = null;
+                    try {
+                        if (duplicates != null) {
+                            signature = NearDuplicateIndex.signature(resume.getText());
+                            NearDuplicateIndex.Match match = duplicates.findNearest(signature);
+                            if (match != null) {
+                                synchronized (duplicates) {
+                                    duplicating.put(resume, groups.get(match.getId()));
+                                }
+                                parsedQueue.put(resume);
+                                continue;
+                            }
+                        }
+                        resume.parse(parser);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        System.err.println("Skipping " + resume.getSourceFile() + ": " + e);
+                        continue;
+                    }
+                    if (duplicates != null) {
+                        // Join a group another worker created meanwhile, or start one
+                        synchronized (duplicates) {
+                            NearDuplicateIndex.Match match = duplicates.findNearest(signature);
+                            if (match != null) {
+                                duplicating.put(resume, groups.get(match.getId()));
+                            } else {
+                                duplicates.add(signature);
+                                DuplicateGroup group = new DuplicateGroup();
+                                groups.add(group);
+                                representing.put(resume, group);
+                            }
+                        }
+                    }
+                    parsedQueue.put(resume);
+                }
+            }));
+        }
+
+        // Stage 3: scoring against every job; near-duplicates take their
+        // representative's results as soon as it has been scored, or are
+        // scored on their own if it fails
+        for (int i = 0; i < scoreWorkers; i++) {
+            workers.add(startWorker("batch-score-" + i, scoreDone, () -> {
+                ParsedResume resume;
+                while ((resume = parsedQueue.take()) != END_OF_STREAM) {
+                    DuplicateGroup group = duplicating.remove(resume);
+                    if (group != null) {
+                        JobMatcher.MatchResult[] results;
+                        boolean alone;
+                        synchronized (group) {
+                            results = group.results;
+                            alone = group.failed;
+                            if (results == null && !alone) {
+                                group.waiting.add(resume);
+                            }
+                        }
+                        if (results != null) {
+                            record(resume, results, resultsPerJob, report, reportFailure);
+                            reused.incrementAndGet();
+                        } else if (alone) {
+                            scoreAlone(resume, parser, matcher, jobs, resultsPerJob, report, reportFailure);
+                        }
+                        continue;
+                    }
+
+                    JobMatcher.MatchResult[] results = score(resume, matcher, jobs);
+                    if (results != null) {
+                        record(resume, results, resultsPerJob, report, reportFailure);
+                    }
+                    group = representing.remove(resume);
+                    if (group != null) {
+                        List<ParsedResume> waiting;
+                        synchronized (group) {
+                            group.results = results;
+                            group.failed = results == null;
+                            waiting = new ArrayList<>(group.waiting);
+                            group.waiting.clear();
+                        }
+                        for (ParsedResume duplicate : waiting) {
+                            if (results != null) {
+                                record(duplicate, results, resultsPerJob, report, reportFailure);
+                                reused.incrementAndGet();
+                            } else {
+                                scoreAlone(duplicate, parser, matcher, jobs, resultsPerJob, report, reportFailure);
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+
+        // Feed the pipeline, then shut each stage down once the one before it has drained
+        for (Path resumeFile : resumeFiles) {
+            put(pathQueue, resumeFile);
+        }
+        for (int i = 0; i < extractWorkers; i++) {
+            put(pathQueue, END_OF_PATHS);
+        }
+        await(extractDone);
+        for (int i = 0; i < parseWorkers; i++) {
+            put(textQueue, END_OF_STREAM);
+        }
+        await(parseDone);
+        for (int i = 0; i < scoreWorkers; i++) {
+            put(parsedQueue, END_OF_STREAM);
+        }
+        await(scoreDone);
+        if (report != null) {
+            report.close();
+            if (reportFailure.get() != null) {
+                throw reportFailure.get();
+            }
+            System.out.println("Report written: " + report.getFile() + " (" + report.getRecordCount() + " results)");
+        }
+    }
+
+    // A resume's results for every job, or null (counted as failed) if it
+    // could not be scored
+    private JobMatcher.MatchResult[] score(ParsedResume resume, JobMatcher matcher, List<JobProfile> jobs) {
+        JobMatcher.MatchResult[] results = new JobMatcher.MatchResult[jobs.size()];
+        try {
+            for (int j = 0; j < jobs.size(); j++) {
+                results[j] = matcher.calculateMatchScore(resume, jobs.get(j), mode);
+            }
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            System.err.println("Skipping " + resume.getSourceFile() + ": could not score (" + e + ")");
+            return null;
+        }
+        return results;
+    }
+
+    // Parse and score a near-duplicate whose representative failed
+    private void scoreAlone(ParsedResume resume, ResumeParser parser, JobMatcher matcher, List<JobProfile> jobs,
+                            List<Ranking> resultsPerJob, ReportSink report,
+                            AtomicReference<IOException> reportFailure) {
+        try {
+            resume.parse(parser);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            System.err.println("Skipping " + resume.getSourceFile() + ": " + e);
+            return;
+        }
+        JobMatcher.MatchResult[] results = score(resume, matcher, jobs);
+        if (results != null) {
+            record(resume, results, resultsPerJob, report, reportFailure);
+        }
+    }
+
+    // Add one resume's results to the rankings and the report
+    private void record(ParsedResume resume, JobMatcher.MatchResult[] results,
+                        List<Ranking> resultsPerJob, ReportSink report,
+                        AtomicReference<IOException> reportFailure) {
+        for (int j = 0; j < results.length; j++) {
+            resultsPerJob.get(j).add(new RankedEntry(resume.getSourceFile(), results[j]));
+            if (report != null && reportFailure.get() == null) {
+                try {
+                    report.write(resume.getSourceFile(), jobFiles.get(j).toString(), results[j], null);
+                } catch (IOException e) {
+                    reportFailure.compareAndSet(null, e);
+                }
+            }
+        }
+        int count = processed.incrementAndGet();
+        if (count % 100 == 0) {
+            System.out.println("Scored " + count + " resumes...");
+        }
+    }
+
+    private interface Work {
+        void run() throws InterruptedException;
+    }
+
+    // Failures of single resumes are handled inside each stage; anything
+    // escaping a worker is recorded and fails the run
+    private Thread startWorker(String name, CountDownLatch done, Work work) {
+        Thread thread = new Thread(AnalysisDaemon.routed(() -> {
+            try {
+                work.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException | Error e) {
+                workerFailure.compareAndSet(null, e);
+            } finally {
+                // Only after recording a failure, so run() cannot miss it
+                done.countDown();
+            }
+        }), name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    // Interrupt the workers still running and wait for them to exit. One in
+    // the middle of a resume finishes it first.
+    private static void stopWorkers(List<Thread> workers) {
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Already closed unless the run failed, whose error is the one to report
+    private static void closeAfterFailure(ReportSink report) {
+        try {
+            report.close();
+        } catch (IOException e) {
+            System.err.println("Could not close report " + report.getFile() + ": " + e.getMessage());
+        }
+    }
+
+    // Blocking queue and latch operations for the feeding thread, which give
+    // up once a worker has died, as its stage would never drain
+    private <T> void put(BlockingQueue<T> queue, T item) throws IOException, InterruptedException {
+        while (!queue.offer(item, WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkWorkers();
+        }
+    }
+
+    private void await(CountDownLatch done) throws IOException, InterruptedException {
+        while (!done.await(WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkWorkers();
+        }
+        checkWorkers();
+    }
+
+    private void checkWorkers() throws IOException {
+        Throwable failure = workerFailure.get();
+        if (failure != null) {
+            throw new IOException("Batch worker failed: " + failure, failure);
+        }
+    }
+
+    // ranking_<job file name>, with a counter suffix for job files of the
+    // same name from different folders
+    static List<String> rankingNames(List<Path> jobFiles) {
+        Set<String> used = new HashSet<>();
+        List<String> names = new ArrayList<>();
+        for (Path jobFile : jobFiles) {
+            String jobName = jobFile.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+            String name = "ranking_" + jobName;
+            for (int counter = 2; !used.add(name); counter++) {
+                name = "ranking_" + jobName + "_" + counter;
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    private void writeRanking(Path jobFile, String name, Ranking ranking) throws IOException {
+        List<RankedEntry> entries = ranking.entries();
+        Path rankingFile = outputDir.resolve(name + ".txt");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(rankingFile, StandardCharsets.UTF_8)) {
+            writer.write("Job Description: " + jobFile + "\n");
+            writer.write("Resumes ranked: " + ranking.getRanked()
+                    + (entries.size() < ranking.getRanked() ? " (top " + entries.size() + " shown)" : "") + "\n\n");
+            writer.write(String.format("%-6s %-8s %-8s %-8s %s%n", "Rank", "Score", "Matched", "Missing", "Resume"));
+            int rank = 1;
+            for (RankedEntry entry : entries) {
+                writer.write(String.format(Locale.ROOT, "%-6d %-8.2f %-8d %-8d %s%n", rank++, entry.getScore(),
+                        entry.getMatchedCount(), entry.getMissingCount(), entry.getResumeFile()));
+            }
+        }
+        System.out.println("Ranking written: " + rankingFile);
+    }
+
+    // Collect input files from a directory (matching the extension) or from a
+    // manifest file listing one path per line
+    public static List<Path> collectInputs(Path source, String extension) throws IOException {
+        return collectInputs(source, path -> path.getFileName().toString().toLowerCase().endsWith(extension));
+    }
+
+    // Same for resumes, in any format ResumeTextExtractors can read
+    public static List<Path> collectResumes(Path source) throws IOException {
+        return collectInputs(source, ResumeTextExtractors::isResumeFile);
+    }
+
+    private static List<Path> collectInputs(Path source, Predicate<Path> wanted) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(source)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(source)) {
+                for (Path path : stream) {
+                    if (Files.isRegularFile(path) && wanted.test(path)) {
+                        files.add(path);
+                    }
+                }
+            }
+            Collections.sort(files);
+        } else {
+            Path baseDir = source.toAbsolutePath().getParent();
+            for (String line : Files.readAllLines(source)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Path path = Paths.get(line);
+                files.add(path.isAbsolute() ? path : baseDir.resolve(path));
+            }
+        }
+        return files;
+    }
+
+    // Usage: --batch --resumes <dir|manifest> --jobs <dir|manifest> [--out <dir>] [--threads N]
+    //        [--cache <dir>] [--cache-max-bytes N] [--report <file.txt|.jsonl|.csv>[.gz]]
+    //        [--mode heuristic|cosine|fuzzy] [--dedup <jaccard threshold>] [--top N]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String resumes = null;
+        String jobs = null;
+        String out = "data/rankings";
+        int threads = Runtime.getRuntime().availableProcessors();
+        String cacheDir = null;
+        long cacheMaxBytes = 512L * 1024 * 1024;
+        String report = null;
+        ScoringMode mode = ScoringMode.HEURISTIC;
+        double dedup = 0;
+        int top = DEFAULT_TOP;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--batch":
+                    break;
+                case "--resumes":
+                    resumes = args[++i];
+                    break;
+                case "--jobs":
+                    jobs = args[++i];
+                    break;
+                case "--out":
+                    out = args[++i];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--cache":
+                    cacheDir = args[++i];
+                    break;
+                case "--cache-max-bytes":
+                    cacheMaxBytes = Long.parseLong(args[++i]);
+                    break;
+                case "--report":
+                    report = args[++i];
+                    break;
+                case "--mode":
+                    mode = ScoringMode.parse(args[++i]);
+                    break;
+                case "--dedup":
+                    dedup = Double.parseDouble(args[++i]);
+                    break;
+                case "--top":
+                    top = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        if (resumes == null || jobs == null) {
+            System.err.println("Usage: Main --batch --resumes <dir|manifest> --jobs <dir|manifest> "
+                    + "[--out <dir>] [--threads N] [--cache <dir>] [--cache-max-bytes N] "
+                    + "[--report <file.txt|.jsonl|.csv>[.gz]] [--mode heuristic|cosine|fuzzy] "
+                    + "[--dedup <jaccard threshold>] [--top N]");
+            return;
+        }
+        // A cache of this run's own, not the shared one: in the analysis
+        // daemon, the next command must not inherit it
+        ExtractionCache cache = cacheDir == null ? ExtractionCache.shared()
+                : new ExtractionCache(Paths.get(cacheDir), cacheMaxBytes);
+
+        List<Path> resumeFiles = collectResumes(Paths.get(resumes));
+        List<Path> jobFiles = collectInputs(Paths.get(jobs), ".txt");
+        System.out.println("Ranking " + resumeFiles.size() + " resumes against " + jobFiles.size()
+                + " jobs on " + threads + " threads...");
+
+        new BatchRanker(resumeFiles, jobFiles, Paths.get(out), threads,
+                report == null ? null : Paths.get(report), mode,
+                dedup > 0 ? new NearDuplicateIndex(dedup) : null, top, cache).run();
+    }
+}
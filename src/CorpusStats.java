@@ -0,0 +1,150 @@
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Document frequencies over every job description and resume that has been
+// tokenized, for inverse document frequency (IDF) weighting.
+//
+// Frequencies are kept per term id in fixed-size chunks of atomic counters,
+// so adding a document is one atomic increment per distinct term and never
+// takes a lock, and reads are plain volatile reads. The chunk directory is
+// copied on write; since chunks are shared between directory versions, no
+// increment is ever lost when it grows.
+//
+// A document is counted once however often it is tokenized: re-uploads,
+// cache re-reads and profiles compiled again after eviction are recognized by
+// the hash of their text. Scores are computed against a frozen snapshot
+// rather than the live counts, so concurrent additions cannot change the
+// weights halfway through a batch and vectors weighted against a snapshot
+// stay valid as long as it is in use (see stable).
+public class CorpusStats {
+    private static final CorpusStats SHARED = new CorpusStats();
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final AtomicReference<AtomicIntegerArray[]> chunks =
+            new AtomicReference<>(new AtomicIntegerArray[16]);
+    private final AtomicLong documents = new AtomicLong();
+    // First 64 bits of the content hash of every document counted; null in a snapshot
+    private final Set<Long> seen;
+    // The snapshot stable() hands out, retaken as the corpus grows
+    private final AtomicReference<CorpusStats> stable = new AtomicReference<>();
+
+    public CorpusStats() {
+        this.seen = ConcurrentHashMap.newKeySet();
+    }
+
+    private CorpusStats(AtomicIntegerArray[] directory, long documents) {
+        this.seen = null;
+        this.chunks.set(directory);
+        this.documents.set(documents);
+    }
+
+    public static CorpusStats shared() {
+        return SHARED;
+    }
+
+    // Count a document, given the hash of its text (see
+    // JobProfile.contentHash), unless a document with the same hash has been
+    // counted already: every distinct term in it gains one document. Terms
+    // local to the vector (see TermVector) are not counted, and keep the
+    // highest IDF. Returns whether the document was counted.
+    public boolean addDocument(String contentHash, TermVector terms) {
+        if (seen == null) {
+            throw new IllegalStateException("A corpus snapshot cannot change");
+        }
+        if (!seen.add(Long.parseUnsignedLong(contentHash.substring(0, 16), 16))) {
+            return false;
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            int term = terms.id(i);
+            if (term >= 0) {
+                chunk(term).incrementAndGet(term & CHUNK_MASK);
+            }
+        }
+        documents.incrementAndGet();
+        return true;
+    }
+
+    // A frozen copy of the counts as they are now
+    public CorpusStats snapshot() {
+        AtomicIntegerArray[] directory = chunks.get();
+        AtomicIntegerArray[] copy = new AtomicIntegerArray[directory.length];
+        for (int index = 0; index < directory.length; index++) {
+            if (directory[index] != null) {
+                int[] counts = new int[CHUNK_SIZE];
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    counts[i] = directory[index].get(i);
+                }
+                copy[index] = new AtomicIntegerArray(counts);
+            }
+        }
+        // Read after the counts, so no term is in more documents than the total
+        return new CorpusStats(copy, documents.get());
+    }
+
+    // A snapshot for scoring one document at a time, shared between callers
+    // and retaken once the corpus has grown by a thirty-second since it was
+    // taken, so IDF weights drift in steps rather than with every document
+    // and cached vectors (see JobProfile.tfIdfVector) are rebuilt as rarely
+    public CorpusStats stable() {
+        if (seen == null) {
+            return this;
+        }
+        while (true) {
+            CorpusStats current = stable.get();
+            long taken = current == null ? -1 : current.documentCount();
+            if (current != null && documents.get() < taken + Math.max(1, taken / 32)) {
+                return current;
+            }
+            CorpusStats fresh = snapshot();
+            if (stable.compareAndSet(current, fresh)) {
+                return fresh;
+            }
+            // another thread retook it first; use theirs if it is recent enough
+        }
+    }
+
+    public long documentCount() {
+        return documents.get();
+    }
+
+    // Number of documents containing the term
+    public int documentFrequency(int term) {
+        AtomicIntegerArray[] directory = chunks.get();
+        int index = term >>> CHUNK_BITS;
+        if (term < 0 || index >= directory.length || directory[index] == null) {
+            return 0;
+        }
+        return directory[index].get(term & CHUNK_MASK);
+    }
+
+    // Smoothed inverse document frequency, ln((1 + N) / (1 + df)) + 1: never
+    // zero, so a term every document shares still counts a little, and defined
+    // for terms the corpus has not seen yet
+    public double idf(int term) {
+        return Math.log((1.0 + documents.get()) / (1.0 + documentFrequency(term))) + 1.0;
+    }
+
+    private AtomicIntegerArray chunk(int term) {
+        int index = term >>> CHUNK_BITS;
+        while (true) {
+            AtomicIntegerArray[] directory = chunks.get();
+            if (index < directory.length && directory[index] != null) {
+                return directory[index];
+            }
+            AtomicIntegerArray[] grown = Arrays.copyOf(directory,
+                    Math.max(directory.length, Integer.highestOneBit(index) * 2));
+            grown[index] = new AtomicIntegerArray(CHUNK_SIZE);
+            if (chunks.compareAndSet(directory, grown)) {
+                return grown[index];
+            }
+            // another thread changed the directory first; look again
+        }
+    }
+}
@@ -0,0 +1,280 @@
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+// Word (.docx) resumes.
+//
+// The body text lives in word/document.xml inside the zip. It is inflated as
+// a stream and read with a StAX cursor, so neither the archive nor the XML is
+// ever held in memory; only the text produced is. Paragraphs and line breaks
+// become newlines, tabs and table cells become tabs, and deleted revisions,
+// field codes and formatting are skipped.
+//
+// The inflated XML counts against the same byte cap as the file, which stops
+// zip bombs. Word does not store a page count in the body, so pages are
+// counted from hard page breaks, or from where Word last laid out a page
+// break if that gives more.
+public class DocxTextExtractor implements ResumeTextExtractor {
+    // Bump when the text produced changes so stale cache entries are ignored
+    public static final String VERSION = "docx/1";
+    private static final String DOCUMENT_PART = "word/document.xml";
+    private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final XMLInputFactory XML_FACTORY = newXmlFactory();
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    // Any zip archive; one without a Word document in it is reported as malformed
+    @Override
+    public boolean accepts(byte[] head, int length) {
+        return length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4;
+    }
+
+    @Override
+    public String extract(Path file, ExtractionLimits limits) throws ExtractionException {
+        limits.checkFile(file);
+        String name = file.toString();
+        // ZipFile jumps to the entry through the central directory
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry entry = zip.getEntry(DOCUMENT_PART);
+            if (entry == null) {
+                throw notWordDocument(name);
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                return readDocument(in, name, limits);
+            }
+        } catch (IOException | RuntimeException e) {
+            throw translate(name, e);
+        }
+    }
+
+    @Override
+    public String extract(byte[] content, String name, ExtractionLimits limits) throws ExtractionException {
+        limits.checkSize(content.length, name);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(content))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (entry.getName().equals(DOCUMENT_PART)) {
+                    return readDocument(zip, name, limits);
+                }
+            }
+            throw notWordDocument(name);
+        } catch (IOException | RuntimeException e) {
+            throw translate(name, e);
+        }
+    }
+
+    private static String readDocument(InputStream in, String name, ExtractionLimits limits) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int hardBreaks = 0;
+        int renderedBreaks = 0;
+        // Inside <w:t>, and inside <w:tabs>, whose <w:tab> children are tab stops rather than tabs
+        boolean inText = false;
+        boolean inTabStops = false;
+        XMLStreamReader xml;
+        try {
+            xml = XML_FACTORY.createXMLStreamReader(new BoundedInputStream(in, limits.getMaxBytes()));
+        } catch (XMLStreamException e) {
+            throw malformed(name, e);
+        }
+        try {
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    if (inText) {
+                        text.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+                        checkLength(text, name, limits);
+                    }
+                    continue;
+                }
+                if ((event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+                        || !WORD_NAMESPACE.equals(xml.getNamespaceURI())) {
+                    continue;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("text extraction interrupted");
+                }
+                String element = xml.getLocalName();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (element) {
+                        case "t":
+                            inText = true;
+                            break;
+                        case "tabs":
+                            inTabStops = true;
+                            break;
+                        case "tab":
+                            if (!inTabStops) {
+                                text.append('\t');
+                            }
+                            break;
+                        case "br":
+                            if ("page".equals(xml.getAttributeValue(WORD_NAMESPACE, "type"))) {
+                                hardBreaks++;
+                            }
+                            text.append('\n');
+                            break;
+                        case "cr":
+                            text.append('\n');
+                            break;
+                        case "lastRenderedPageBreak":
+                            renderedBreaks++;
+                            break;
+                        default:
+                            break;
+                    }
+                    int pages = 1 + Math.max(hardBreaks, renderedBreaks);
+                    if (pages > limits.getMaxPages()) {
+                        throw new ExtractionException(ExtractionException.Reason.TOO_MANY_PAGES,
+                                name + " has more than " + limits.getMaxPages() + " pages");
+                    }
+                } else {
+                    switch (element) {
+                        case "t":
+                            inText = false;
+                            break;
+                        case "tabs":
+                            inTabStops = false;
+                            break;
+                        case "p":
+                            text.append('\n');
+                            break;
+                        case "tc":
+                            text.append('\t');
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                checkLength(text, name, limits);
+            }
+        } catch (XMLStreamException e) {
+            // The reader wraps failures of the stream underneath, such as the byte cap
+            if (e.getNestedException() instanceof IOException) {
+                throw (IOException) e.getNestedException();
+            }
+            throw malformed(name, e);
+        } finally {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                // nothing left to release
+            }
+        }
+        return text.toString();
+    }
+
+    private static void checkLength(StringBuilder text, String name, ExtractionLimits limits)
+            throws ExtractionException {
+        if (text.length() > limits.getMaxChars()) {
+            throw new ExtractionException(ExtractionException.Reason.TOO_MUCH_TEXT,
+                    name + " produces more text than allowed");
+        }
+    }
+
+    private static ExtractionException notWordDocument(String name) {
+        return new ExtractionException(ExtractionException.Reason.MALFORMED,
+                name + " is a zip archive without a Word document in it");
+    }
+
+    private static ExtractionException malformed(String name, Exception e) {
+        return new ExtractionException(ExtractionException.Reason.MALFORMED,
+                "Could not read " + name + " as a Word document: " + e.getMessage(), e);
+    }
+
+    private static ExtractionException translate(String name, Exception e) {
+        if (e instanceof ExtractionException) {
+            return (ExtractionException) e;
+        }
+        if (e instanceof ExpandedTooLargeException) {
+            return new ExtractionException(ExtractionException.Reason.FILE_TOO_LARGE,
+                    name + " expands to more than " + ((ExpandedTooLargeException) e).limit + " bytes", e);
+        }
+        if (e instanceof InterruptedIOException) {
+            return new ExtractionException(ExtractionException.Reason.INTERRUPTED,
+                    "Extraction of " + name + " was interrupted", e);
+        }
+        if (e instanceof NoSuchFileException) {
+            return new ExtractionException(ExtractionException.Reason.NOT_FOUND, "No such file: " + name, e);
+        }
+        if (e instanceof ZipException || e instanceof RuntimeException) {
+            return malformed(name, e);
+        }
+        return new ExtractionException(ExtractionException.Reason.IO_ERROR,
+                "Cannot read " + name + ": " + e.getMessage(), e);
+    }
+
+    // No DTDs or external entities: document.xml never needs them, and they
+    // would let a crafted file read local files or expand without bound
+    private static XMLInputFactory newXmlFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+
+    private static class ExpandedTooLargeException extends IOException {
+        final long limit;
+
+        ExpandedTooLargeException(long limit) {
+            super("expanded size limit exceeded");
+            this.limit = limit;
+        }
+    }
+
+    // Fails once more than limit bytes have been read through it
+    private static class BoundedInputStream extends FilterInputStream {
+        private final long limit;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int bytes) throws IOException {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new ExpandedTooLargeException(limit);
+            }
+        }
+
+        // Closing is left to the zip stream it came from
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,424 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+// Content-addressed on-disk cache of extracted resume text, so a resume that
+// is scored against many postings is only extracted once.
+//
+// Entries are keyed by the SHA-256 of the file bytes plus the extractor
+// version, and optionally carry the parsed skills, education and experience
+// (tagged with the parser version that produced them). Each entry is one small
+// deflate-compressed file.
+//
+// Writers publish entries with an atomic rename, so readers in any thread or
+// process only ever see complete files. When the directory grows past its size
+// cap, the least recently used entries are deleted under a file lock shared by
+// every process using the same directory.
+public class ExtractionCache {
+    private static final int MAGIC = 0x52435831; // "RCX1"
+    // Deflate never compresses by more than this, which bounds how much an
+    // entry can hold
+    private static final int MAX_DEFLATE_RATIO = 1032;
+    private static final String ENTRY_SUFFIX = ".rcx";
+    private static final String LOCK_FILE = ".lock";
+    // Eviction trims the cache to this fraction of the cap to avoid evicting on every write
+    private static final double EVICTION_TARGET = 0.9;
+    private static final long ABANDONED_TEMP_FILE_AGE_MILLIS = 60L * 60 * 1000;
+
+    // Serializes eviction between cache instances in this JVM; the file lock
+    // does the same between processes
+    private static final Object EVICTION_LOCK = new Object();
+
+    private static volatile ExtractionCache shared;
+    private static volatile boolean sharedInitialized;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong approximateBytes = new AtomicLong();
+
+    public ExtractionCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        approximateBytes.set(directorySize());
+    }
+
+    // The process-wide cache configured with -Dresume.cache.dir=<dir> and
+    // optionally -Dresume.cache.maxBytes=<bytes>; null when caching is disabled
+    public static ExtractionCache shared() {
+        if (!sharedInitialized) {
+            synchronized (ExtractionCache.class) {
+                if (!sharedInitialized) {
+                    String dir = System.getProperty("resume.cache.dir");
+                    if (dir != null && !dir.isEmpty()) {
+                        try {
+                            shared = new ExtractionCache(Paths.get(dir),
+                                    Long.getLong("resume.cache.maxBytes", 512L * 1024 * 1024));
+                        } catch (IOException e) {
+                            System.err.println("Extraction cache disabled: " + e.getMessage());
+                        }
+                    }
+                    sharedInitialized = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    public static synchronized void setShared(ExtractionCache cache) {
+        shared = cache;
+        sharedInitialized = true;
+    }
+
+    // A cached extraction result
+    public static class Entry {
+        private final String text;
+        private final int parserVersion;
+        private final List<String> skills;
+        private final List<String> education;
+        private final List<String> experience;
+
+        public Entry(String text, int parserVersion, List<String> skills, List<String> education,
+                     List<String> experience) {
+            this.text = text;
+            this.parserVersion = parserVersion;
+            this.skills = skills;
+            this.education = education;
+            this.experience = experience;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        // Whether the parsed components were produced by the given parser version
+        public boolean hasParsed(int currentParserVersion) {
+            return skills != null && parserVersion == currentParserVersion;
+        }
+
+        public List<String> getSkills() {
+            return skills;
+        }
+
+        public List<String> getEducation() {
+            return education;
+        }
+
+        public List<String> getExperience() {
+            return experience;
+        }
+    }
+
+    // Cache key for a file: SHA-256 over the extractor version and the file bytes
+    public static String keyFor(Path file, String extractorVersion) throws IOException {
+        MessageDigest digest = newDigest(extractorVersion);
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            while (in.read(buffer) != -1) {
+                // reading feeds the digest
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    // Cache key for a document held in memory, equal to the key of the same bytes on disk
+    public static String keyFor(byte[] content, String extractorVersion) {
+        MessageDigest digest = newDigest(extractorVersion);
+        return hex(digest.digest(content));
+    }
+
+    private static MessageDigest newDigest(String extractorVersion) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        digest.update(extractorVersion.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return digest;
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    public Entry get(String key) {
+        Path file = entryPath(key);
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            EntryReader in = new EntryReader(new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(Channels.newInputStream(channel)))), channel.size() * MAX_DEFLATE_RATIO);
+            if (in.readInt() != MAGIC) {
+                discard(file);
+                return null;
+            }
+            String text = in.readString();
+            int parserVersion = in.readInt();
+            List<String> skills = null;
+            List<String> education = null;
+            List<String> experience = null;
+            if (in.readBoolean()) {
+                skills = in.readList();
+                education = in.readList();
+                experience = in.readList();
+            }
+            touch(file);
+            return new Entry(text, parserVersion, skills, education, experience);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (EOFException | ZipException | CorruptEntryException e) {
+            discard(file);
+            return null;
+        } catch (IOException e) {
+            // Treat an unreadable entry as a miss; it will be rewritten
+            return null;
+        }
+    }
+
+    public void put(String key, Entry entry) {
+        Path file = entryPath(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), key.substring(0, 8), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(
+                    Files.newOutputStream(temp), new Deflater(Deflater.BEST_SPEED))))) {
+                out.writeInt(MAGIC);
+                writeString(out, entry.getText());
+                out.writeInt(entry.parserVersion);
+                out.writeBoolean(entry.getSkills() != null);
+                if (entry.getSkills() != null) {
+                    writeList(out, entry.getSkills());
+                    writeList(out, entry.getEducation());
+                    writeList(out, entry.getExperience());
+                }
+            }
+            long size = Files.size(temp);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            if (approximateBytes.addAndGet(size) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            // The cache is an optimization; failing to write an entry is not an error
+            System.err.println("Could not write extraction cache entry: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                discard(temp);
+            }
+        }
+    }
+
+    // Delete least recently used entries until the cache is back under its cap
+    public void evict() throws IOException {
+        synchronized (EVICTION_LOCK) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Released when the channel is closed
+                channel.lock();
+                removeAbandonedTempFiles();
+                List<Path> entries = new ArrayList<>();
+                long total = 0;
+                for (Path file : listEntries()) {
+                    try {
+                        total += Files.size(file);
+                        entries.add(file);
+                    } catch (NoSuchFileException e) {
+                        // removed by another process in the meantime
+                    }
+                }
+                if (total > maxBytes) {
+                    entries.sort(Comparator.comparing(ExtractionCache::lastUsed));
+                    long target = (long) (maxBytes * EVICTION_TARGET);
+                    for (Path file : entries) {
+                        if (total <= target) {
+                            break;
+                        }
+                        try {
+                            long size = Files.size(file);
+                            Files.deleteIfExists(file);
+                            total -= size;
+                        } catch (NoSuchFileException e) {
+                            // already gone
+                        }
+                    }
+                }
+                approximateBytes.set(total);
+            }
+        }
+    }
+
+    // Temp files left behind by writers that died before their rename
+    private void removeAbandonedTempFiles() throws IOException {
+        long cutoff = System.currentTimeMillis() - ABANDONED_TEMP_FILE_AGE_MILLIS;
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*.tmp")) {
+                    for (Path file : files) {
+                        if (lastUsed(file).toMillis() < cutoff) {
+                            discard(file);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ENTRY_SUFFIX);
+    }
+
+    private List<Path> listEntries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*" + ENTRY_SUFFIX)) {
+                    for (Path file : files) {
+                        entries.add(file);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private long directorySize() throws IOException {
+        long total = 0;
+        for (Path file : listEntries()) {
+            try {
+                total += Files.size(file);
+            } catch (NoSuchFileException e) {
+                // removed concurrently
+            }
+        }
+        return total;
+    }
+
+    private static FileTime lastUsed(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    // Cache hits refresh the modification time, which is what LRU eviction sorts on
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // evicted concurrently; harmless
+        }
+    }
+
+    private static void discard(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    // A length that does not fit in what is left of the entry
+    private static final class CorruptEntryException extends IOException {
+        CorruptEntryException(String message) {
+            super(message);
+        }
+    }
+
+    // Reads the fields of an entry, checking each length against the bytes
+    // the entry can still hold before allocating for it
+    private static final class EntryReader {
+        private final DataInputStream in;
+        private long remaining;
+
+        EntryReader(DataInputStream in, long maxBytes) {
+            this.in = in;
+            this.remaining = maxBytes;
+        }
+
+        int readInt() throws IOException {
+            remaining -= 4;
+            return in.readInt();
+        }
+
+        boolean readBoolean() throws IOException {
+            remaining--;
+            return in.readBoolean();
+        }
+
+        String readString() throws IOException {
+            byte[] bytes = new byte[readLength(1)];
+            in.readFully(bytes);
+            remaining -= bytes.length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        List<String> readList() throws IOException {
+            // Every element takes at least its length
+            int size = readLength(4);
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private int readLength(int minBytesEach) throws IOException {
+            int length = readInt();
+            if (length < 0 || (long) length * minBytesEach > remaining) {
+                throw new CorruptEntryException("Bad length " + length);
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import java.io.IOException;
+
+// Typed failure from resume text extraction, so callers can tell a missing
+// file from an oversized or malformed one without parsing messages
+public class ExtractionException extends IOException {
+
+    public enum Reason {
+        NOT_FOUND,
+        UNSUPPORTED_FORMAT,
+        FILE_TOO_LARGE,
+        TOO_MANY_PAGES,
+        TOO_MUCH_TEXT,
+        ENCRYPTED,
+        MALFORMED,
+        INTERRUPTED,
+        IO_ERROR
+    }
+
+    private final Reason reason;
+
+    public ExtractionException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public ExtractionException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
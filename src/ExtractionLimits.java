@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+// Caps applied to every document we extract text from, so one oversized or
+// hostile file cannot exhaust the heap or tie up a worker indefinitely.
+//
+// Defaults can be overridden with -Dresume.extract.maxBytes, maxPages,
+// maxChars and pagesPerTask.
+public class ExtractionLimits {
+    private static final ExtractionLimits DEFAULTS = new ExtractionLimits(
+            Long.getLong("resume.extract.maxBytes", 20L * 1024 * 1024),
+            Integer.getInteger("resume.extract.maxPages", 50),
+            Integer.getInteger("resume.extract.maxChars", 2 * 1024 * 1024),
+            Integer.getInteger("resume.extract.pagesPerTask", 8));
+
+    private final long maxBytes;
+    private final int maxPages;
+    private final int maxChars;
+    private final int pagesPerTask;
+
+    public ExtractionLimits(long maxBytes, int maxPages, int maxChars, int pagesPerTask) {
+        this.maxBytes = maxBytes;
+        this.maxPages = maxPages;
+        this.maxChars = maxChars;
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+    }
+
+    public static ExtractionLimits defaults() {
+        return DEFAULTS;
+    }
+
+    // Largest input file accepted, in bytes
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    // Largest page count accepted
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    // Most characters of text returned for one document
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    // Documents longer than this are stripped in parallel, this many pages per task
+    public int getPagesPerTask() {
+        return pagesPerTask;
+    }
+
+    // Reject missing or oversized files before any parsing happens; returns the size
+    public long checkFile(Path file) throws ExtractionException {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (NoSuchFileException e) {
+            throw new ExtractionException(ExtractionException.Reason.NOT_FOUND, "No such file: " + file, e);
+        } catch (IOException e) {
+            throw new ExtractionException(ExtractionException.Reason.IO_ERROR, "Cannot read " + file, e);
+        }
+        checkSize(size, file.toString());
+        return size;
+    }
+
+    public void checkSize(long size, String name) throws ExtractionException {
+        if (size > maxBytes) {
+            throw new ExtractionException(ExtractionException.Reason.FILE_TOO_LARGE,
+                    name + " is " + size + " bytes (limit " + maxBytes + ")");
+        }
+    }
+}
@@ -0,0 +1,691 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Append-only, memory-mapped store of parsed resume features, for archives
+// too large to hold as strings on the heap.
+//
+// Each resume is a row across a set of column files in one directory:
+//   entries.col   where its features start, and how many distinct skills,
+//                 education and experience entries it has (20 bytes)
+//   features.col  (term, count) int pairs: skills, then education, then
+//                 experience, each in store term order
+//   hash.col      SHA-256 of the source file, the extraction cache key (32 bytes)
+//   sections.col  start and end of each ResumeSections.Type, -1 if absent (64 bytes)
+//   source.col    where its source file name starts in strings.dat (8 bytes)
+// plus terms.dat and strings.dat, which hold every term and source name once
+// as length-prefixed UTF-8.
+//
+// Term ids in the files are the store's own, in the order terms were first
+// stored, and stored terms are not added to the shared TermDictionary (skills
+// aside, which the taxonomy bounds). A query works out what a store term is
+// worth for the job the first time a row has it, decoding the term from the
+// mapping, and keeps that in an array by store term id for the rest of the
+// query. The heap holds where each term starts and, for adding and finding
+// resumes, hash tables from term bytes to term id and from file hash to row:
+// a few ints per term, nothing per feature.
+//
+// Rows are buffered and appended column by column, entries.col last, so a row
+// only exists once every column has it. Each flush forces the other columns to
+// disk before entries.col is written, and entries.col after, so this holds
+// across an operating system crash or power loss too. Opening a store cut
+// short by a crash trims the other columns back to the last complete row. A column is mapped
+// as one buffer, which caps each column file at 2 GB; features.col reaches
+// that at roughly 250 million (term, count) pairs.
+public class FeatureStore implements Closeable {
+    private static final int ENTRY_BYTES = 20;
+    private static final int HASH_BYTES = 32;
+    private static final int SECTION_BYTES = ResumeSections.Type.values().length * 8;
+    private static final int SOURCE_BYTES = 8;
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private static final int SKILL = 0;
+    private static final int EDUCATION = 1;
+    private static final int EXPERIENCE = 2;
+
+    private final Path directory;
+    private final Column terms;
+    private final Column strings;
+    private final Column features;
+    private final Column hashes;
+    private final Column sections;
+    private final Column sources;
+    private final Column entries;
+
+    private final TermDictionary dictionary = TermDictionary.shared();
+    // Where each store term's record starts in terms.dat
+    private int[] termOffsets = new int[256];
+    private int termCount;
+
+    // Open-addressing tables from the hash of a term's UTF-8 bytes to its
+    // store id + 1 (kept next to the hash), and from the first 8 bytes of a
+    // file hash to row + 1. They are only needed to add or find resumes, so
+    // they are built then rather than when the store is opened.
+    private int[] termSlotIds = new int[1024];
+    private int[] termSlotHashes = new int[1024];
+    private long[] hashKeys = new long[1024];
+    private int[] hashRows = new int[1024];
+    private boolean indexed;
+
+    // Rows readers can see, and rows including those still buffered
+    private volatile int rows;
+    private int pendingRows;
+
+    // A column file: appends are buffered on the heap and written on flush;
+    // reads go through a read-only mapping that is renewed as the file grows
+    private static final class Column implements Closeable {
+        final Path file;
+        final FileChannel channel;
+        long size;
+        ByteBuffer pending = ByteBuffer.allocate(4096);
+        volatile MappedByteBuffer map;
+        // Written to since it was last forced to disk
+        boolean unforced;
+
+        Column(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        ByteBuffer reserve(int bytes) {
+            if (pending.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            return pending;
+        }
+
+        // Appended but not yet flushed bytes count too
+        long end() {
+            return size + pending.position();
+        }
+
+        void flush() throws IOException {
+            if (end() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is full (2 GB per column)");
+            }
+            pending.flip();
+            unforced |= pending.hasRemaining();
+            while (pending.hasRemaining()) {
+                size += channel.write(pending, size);
+            }
+            pending.clear();
+        }
+
+        // Write what is buffered and wait until it is on disk
+        void flushAndForce() throws IOException {
+            flush();
+            if (unforced) {
+                channel.force(false);
+                unforced = false;
+            }
+        }
+
+        void truncate(long length) throws IOException {
+            if (size > length) {
+                channel.truncate(length);
+                size = length;
+                map = null;
+            }
+        }
+
+        // The mapped file, covering at least the first bytes bytes
+        ByteBuffer view(long bytes) throws IOException {
+            MappedByteBuffer current = map;
+            if (current == null || current.capacity() < bytes) {
+                synchronized (this) {
+                    current = map;
+                    if (current == null || current.capacity() < bytes) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                        map = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private FeatureStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.terms = new Column(directory.resolve("terms.dat"));
+        this.strings = new Column(directory.resolve("strings.dat"));
+        this.features = new Column(directory.resolve("features.col"));
+        this.hashes = new Column(directory.resolve("hash.col"));
+        this.sections = new Column(directory.resolve("sections.col"));
+        this.sources = new Column(directory.resolve("source.col"));
+        this.entries = new Column(directory.resolve("entries.col"));
+    }
+
+    // Open the store in a directory, creating it if needed. Nothing is
+    // decoded: terms are read from the mapping when a query first needs
+    // them, and everything else stays in the mapped files.
+    public static FeatureStore open(Path directory) throws IOException {
+        FeatureStore store = new FeatureStore(directory);
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void recover() throws IOException {
+        int complete = (int) (entries.size / ENTRY_BYTES);
+        complete = (int) Math.min(complete, Math.min(hashes.size / HASH_BYTES,
+                Math.min(sections.size / SECTION_BYTES, sources.size / SOURCE_BYTES)));
+        entries.truncate((long) complete * ENTRY_BYTES);
+        hashes.truncate((long) complete * HASH_BYTES);
+        sections.truncate((long) complete * SECTION_BYTES);
+        sources.truncate((long) complete * SOURCE_BYTES);
+        if (complete == 0) {
+            features.truncate(0);
+            strings.truncate(0);
+        } else {
+            ByteBuffer entryView = entries.view(entries.size);
+            long last = (long) (complete - 1) * ENTRY_BYTES;
+            int distinct = entryView.getInt((int) last + 8) + entryView.getInt((int) last + 12)
+                    + entryView.getInt((int) last + 16);
+            features.truncate(entryView.getLong((int) last) + 8L * distinct);
+            long source = sources.view(sources.size).getLong((complete - 1) * SOURCE_BYTES);
+            strings.truncate(source + 4 + strings.view(strings.size).getInt((int) source));
+        }
+
+        // Terms: every complete record; a torn one at the end is dropped
+        ByteBuffer termView = terms.view(terms.size);
+        int position = 0;
+        while (position + 4 <= terms.size) {
+            int length = termView.getInt(position);
+            if (position + 4L + length > terms.size) {
+                break;
+            }
+            addTerm(position);
+            position += 4 + length;
+        }
+        terms.truncate(position);
+        rows = complete;
+        pendingRows = complete;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Number of resumes stored
+    public int size() {
+        return rows;
+    }
+
+    // Row of the resume whose file has this hash (an ExtractionCache key), or
+    // -1 if it has not been stored
+    public synchronized int find(String sourceHash) throws IOException {
+        index();
+        byte[] hash = hashBytes(sourceHash);
+        long key = ByteBuffer.wrap(hash).getLong();
+        int mask = hashKeys.length - 1;
+        for (int slot = slot(key, mask); hashRows[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashKeys[slot] == key) {
+                int row = hashRows[slot] - 1;
+                if (row >= rows) {
+                    flush(); // still buffered
+                }
+                if (Arrays.equals(hash, getSourceHashBytes(row))) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Append one parsed resume and return its row; it becomes readable after
+    // the next flush (at the latest once about 1 MB of rows is buffered)
+    public synchronized int add(String sourceFile, String sourceHash, ResumeTerms resume,
+                                ResumeSections resumeSections) throws IOException {
+        byte[] hash = hashBytes(sourceHash);
+        index();
+        int row = pendingRows++;
+
+        ByteBuffer entry = entries.reserve(ENTRY_BYTES);
+        entry.putLong(features.end());
+        entry.putInt(resume.getSkills().size());
+        entry.putInt(resume.getEducation().size());
+        entry.putInt(resume.getExperience().size());
+        putFeatures(resume.getSkills());
+        putFeatures(resume.getEducation());
+        putFeatures(resume.getExperience());
+
+        hashes.reserve(HASH_BYTES).put(hash);
+        ByteBuffer sectionRow = sections.reserve(SECTION_BYTES);
+        for (ResumeSections.Type type : ResumeSections.Type.values()) {
+            ResumeSections.Section section = resumeSections == null ? null : resumeSections.get(type);
+            sectionRow.putInt(section == null ? -1 : section.getStart());
+            sectionRow.putInt(section == null ? -1 : section.getEnd());
+        }
+        sources.reserve(SOURCE_BYTES).putLong(strings.end());
+        putString(strings, sourceFile);
+        putHash(ByteBuffer.wrap(hash).getLong(), row);
+
+        if (features.pending.position() >= FLUSH_BYTES) {
+            flush();
+        }
+        return row;
+    }
+
+    // Features are written sorted by store term id, so rows are identical no
+    // matter which process (with which dictionary ids) wrote them
+    private void putFeatures(TermVector vector) throws IOException {
+        long[] pairs = new long[vector.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = ((long) storeId(vector.term(i, dictionary)) << 32) | vector.count(i);
+        }
+        Arrays.sort(pairs);
+        ByteBuffer out = features.reserve(8 * pairs.length);
+        for (long pair : pairs) {
+            out.putInt((int) (pair >>> 32));
+            out.putInt((int) pair);
+        }
+    }
+
+    // Store id of a term, appending it to terms.dat if it is new
+    private int storeId(String term) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(term.getBytes(StandardCharsets.UTF_8));
+        int hash = hash(bytes);
+        int mask = termSlotIds.length - 1;
+        for (int slot = slot(hash, mask); termSlotIds[slot] != 0; slot = (slot + 1) & mask) {
+            if (termSlotHashes[slot] == hash && termBytes(termSlotIds[slot] - 1).equals(bytes)) {
+                return termSlotIds[slot] - 1;
+            }
+        }
+        int id = addTerm((int) terms.end());
+        terms.reserve(4 + bytes.remaining()).putInt(bytes.remaining()).put(bytes.duplicate());
+        putTerm(hash, id);
+        return id;
+    }
+
+    private int addTerm(int offset) {
+        int id = termCount++;
+        if (id == termOffsets.length) {
+            termOffsets = Arrays.copyOf(termOffsets, id * 2);
+        }
+        termOffsets[id] = offset;
+        return id;
+    }
+
+    private void putTerm(int hash, int id) {
+        if (2 * (id + 1) > termSlotIds.length) {
+            int[] oldIds = termSlotIds;
+            int[] oldHashes = termSlotHashes;
+            termSlotIds = new int[oldIds.length * 2];
+            termSlotHashes = new int[oldIds.length * 2];
+            for (int slot = 0; slot < oldIds.length; slot++) {
+                if (oldIds[slot] != 0) {
+                    insertTerm(oldHashes[slot], oldIds[slot]);
+                }
+            }
+        }
+        insertTerm(hash, id + 1);
+    }
+
+    private void insertTerm(int hash, int idPlusOne) {
+        int mask = termSlotIds.length - 1;
+        int slot = slot(hash, mask);
+        while (termSlotIds[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        termSlotIds[slot] = idPlusOne;
+        termSlotHashes[slot] = hash;
+    }
+
+    private static int hash(ByteBuffer bytes) {
+        int hash = 1;
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            hash = 31 * hash + bytes.get(i);
+        }
+        return hash;
+    }
+
+    // The UTF-8 bytes of a store term, from the mapping or, for a term added
+    // since the last flush, from the column's buffer
+    private ByteBuffer termBytes(int id) throws IOException {
+        int offset = termOffsets[id];
+        ByteBuffer source;
+        int position;
+        if (offset >= terms.size) {
+            source = terms.pending;
+            position = (int) (offset - terms.size);
+        } else {
+            source = terms.view(offset + 4L);
+            source = terms.view(offset + 4L + source.getInt(offset));
+            position = offset;
+        }
+        ByteBuffer bytes = source.duplicate();
+        bytes.limit(position + 4 + source.getInt(position));
+        bytes.position(position + 4);
+        return bytes;
+    }
+
+    // A stored term, read from the mapping; only for the terms of readable
+    // rows, which have been flushed
+    private String term(int id) throws IOException {
+        int offset = termOffsets[id];
+        int length = terms.view(offset + 4L).getInt(offset);
+        return decode(terms.view(offset + 4L + length), offset + 4, length);
+    }
+
+    // Build what adding and finding need: the reverse term map and the hash table
+    private void index() throws IOException {
+        if (indexed) {
+            return;
+        }
+        for (int id = 0; id < termCount; id++) {
+            putTerm(hash(termBytes(id)), id);
+        }
+        ByteBuffer hashView = hashes.view(hashes.size);
+        for (int row = 0; row < rows; row++) {
+            putHash(hashView.getLong(row * HASH_BYTES), row);
+        }
+        indexed = true;
+    }
+
+    // Write everything buffered to disk, entries last, and make it readable
+    public synchronized void flush() throws IOException {
+        terms.flushAndForce();
+        strings.flushAndForce();
+        features.flushAndForce();
+        hashes.flushAndForce();
+        sections.flushAndForce();
+        sources.flushAndForce();
+        entries.flushAndForce();
+        rows = pendingRows;
+    }
+
+    // Match score of a stored resume, as JobMatcher.calculateMatchScore
+    // computes it, read straight from the mapped columns
+    public double score(int row, JobProfile job) throws IOException {
+        return score(row, new Contributions(job, 0));
+    }
+
+    private double score(int row, Contributions contributions) throws IOException {
+        ByteBuffer entryView = entries.view((long) (row + 1) * ENTRY_BYTES);
+        int base = row * ENTRY_BYTES;
+        int position = (int) entryView.getLong(base);
+        int skillCount = entryView.getInt(base + 8);
+        int educationCount = entryView.getInt(base + 12);
+        int experienceCount = entryView.getInt(base + 16);
+        ByteBuffer featureView = features.view(position + 8L * (skillCount + educationCount + experienceCount));
+
+        double matchedWeight = 0;
+        for (int i = 0; i < skillCount; i++, position += 8) {
+            int count = featureView.getInt(position + 4);
+            matchedWeight += count * contributions.get(SKILL, featureView.getInt(position));
+        }
+        int educationTotal = 0;
+        for (int i = 0; i < educationCount; i++, position += 8) {
+            int count = featureView.getInt(position + 4);
+            educationTotal += count;
+            matchedWeight += count * contributions.get(EDUCATION, featureView.getInt(position));
+        }
+        int experienceTotal = 0;
+        for (int i = 0; i < experienceCount; i++, position += 8) {
+            int count = featureView.getInt(position + 4);
+            experienceTotal += count;
+            matchedWeight += count * contributions.get(EXPERIENCE, featureView.getInt(position));
+        }
+        return contributions.job.scoreFor(matchedWeight, educationTotal, experienceTotal);
+    }
+
+    // What store terms earn for one job as skills, education or experience
+    // entries. The first `terms` ids are worked out once, when a row first
+    // has them (NaN until then); any others on every use.
+    private final class Contributions {
+        private final JobProfile job;
+        private final double[][] values = new double[3][];
+
+        Contributions(JobProfile job, int terms) {
+            this.job = job;
+            for (int field = 0; field < 3; field++) {
+                values[field] = new double[terms];
+                Arrays.fill(values[field], Double.NaN);
+            }
+        }
+
+        double get(int field, int id) throws IOException {
+            double[] known = values[field];
+            if (id < known.length && !Double.isNaN(known[id])) {
+                return known[id];
+            }
+            double value = compute(field, term(id));
+            if (id < known.length) {
+                known[id] = value;
+            }
+            return value;
+        }
+
+        private double compute(int field, String term) {
+            switch (field) {
+                case SKILL:
+                    // A taxonomy term, which the dictionary keeps anyway
+                    return job.skillContribution(dictionary.intern(term));
+                case EDUCATION:
+                    return job.educationContribution(term);
+                default:
+                    return job.experienceContribution(term);
+            }
+        }
+    }
+
+    // Top K stored resumes for a job, best first, by scoring every row
+    public List<SkillIndex.Hit> topK(JobProfile job, int k) throws IOException {
+        int count = rows;
+        // Read after rows, so it covers every term those rows have
+        Contributions contributions = new Contributions(job, termCount);
+        PriorityQueue<double[]> best = new PriorityQueue<>(Comparator.comparingDouble((double[] hit) -> hit[0])
+                .thenComparing(hit -> -hit[1]));
+        for (int row = 0; row < count; row++) {
+            double score = score(row, contributions);
+            if (best.size() < k) {
+                best.add(new double[] {score, row});
+            } else if (k > 0 && score > best.peek()[0]) {
+                best.poll();
+                best.add(new double[] {score, row});
+            }
+        }
+        List<SkillIndex.Hit> hits = new ArrayList<>(best.size());
+        for (double[] hit : best) {
+            hits.add(new SkillIndex.Hit(getSourceFile((int) hit[1]), hit[0]));
+        }
+        hits.sort(Comparator.comparingDouble(SkillIndex.Hit::getScore).reversed()
+                .thenComparing(SkillIndex.Hit::getResumeId));
+        return hits;
+    }
+
+    // A stored resume's features as terms, for reporting matched and missing
+    // keywords; unlike score() this copies them onto the heap
+    public ResumeTerms getTerms(int row) throws IOException {
+        ByteBuffer entryView = entries.view((long) (row + 1) * ENTRY_BYTES);
+        int base = row * ENTRY_BYTES;
+        int position = (int) entryView.getLong(base);
+        List<List<String>> fields = new ArrayList<>();
+        for (int field = 0; field < 3; field++) {
+            int distinct = entryView.getInt(base + 8 + 4 * field);
+            ByteBuffer featureView = features.view(position + 8L * distinct);
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < distinct; i++, position += 8) {
+                String term = term(featureView.getInt(position));
+                for (int n = featureView.getInt(position + 4); n > 0; n--) {
+                    values.add(term);
+                }
+            }
+            fields.add(values);
+        }
+        return ResumeTerms.of(fields.get(0), fields.get(1), fields.get(2));
+    }
+
+    public String getSourceFile(int row) throws IOException {
+        int position = (int) sources.view((long) (row + 1) * SOURCE_BYTES).getLong(row * SOURCE_BYTES);
+        ByteBuffer view = strings.view(position + 4L);
+        int length = view.getInt(position);
+        return decode(strings.view(position + 4L + length), position + 4, length);
+    }
+
+    public String getSourceHash(int row) throws IOException {
+        StringBuilder hex = new StringBuilder(HASH_BYTES * 2);
+        for (byte b : getSourceHashBytes(row)) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private byte[] getSourceHashBytes(int row) throws IOException {
+        byte[] hash = new byte[HASH_BYTES];
+        ByteBuffer view = hashes.view((long) (row + 1) * HASH_BYTES).duplicate();
+        view.position(row * HASH_BYTES);
+        view.get(hash);
+        return hash;
+    }
+
+    // Start and end offset of a section in the resume's text, or null if the
+    // resume has no such section
+    public int[] getSection(int row, ResumeSections.Type type) throws IOException {
+        int position = row * SECTION_BYTES + type.ordinal() * 8;
+        ByteBuffer view = sections.view((long) (row + 1) * SECTION_BYTES);
+        int start = view.getInt(position);
+        return start < 0 ? null : new int[] {start, view.getInt(position + 4)};
+    }
+
+    private void putHash(long key, int row) {
+        if (2 * (row + 1) > hashKeys.length) {
+            long[] oldKeys = hashKeys;
+            int[] oldRows = hashRows;
+            hashKeys = new long[oldKeys.length * 2];
+            hashRows = new int[oldKeys.length * 2];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldRows[slot] != 0) {
+                    insertHash(oldKeys[slot], oldRows[slot]);
+                }
+            }
+        }
+        insertHash(key, row + 1);
+    }
+
+    private void insertHash(long key, int rowPlusOne) {
+        int mask = hashKeys.length - 1;
+        int slot = slot(key, mask);
+        while (hashRows[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        hashKeys[slot] = key;
+        hashRows[slot] = rowPlusOne;
+    }
+
+    private static int slot(long key, int mask) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private static byte[] hashBytes(String hex) {
+        if (hex.length() != HASH_BYTES * 2) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hex);
+        }
+        byte[] hash = new byte[HASH_BYTES];
+        for (int i = 0; i < HASH_BYTES; i++) {
+            hash[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return hash;
+    }
+
+    private static void putString(Column column, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        column.reserve(4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    private static String decode(ByteBuffer view, int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer slice = view.duplicate();
+        slice.position(position);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            for (Column column : new Column[] {terms, strings, features, hashes, sections, sources, entries}) {
+                if (column != null) {
+                    column.close();
+                }
+            }
+        }
+    }
+
+    // Usage: --store add <resume dir|manifest> <store dir>
+    //        --store query <store dir> <job description file> [k]
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 4 && args[1].equals("add")) {
+            ResumeParser parser = new ResumeParser();
+            int added = 0;
+            int skipped = 0;
+            try (FeatureStore store = open(Paths.get(args[3]))) {
+                for (Path resumeFile : BatchRanker.collectResumes(Paths.get(args[2]))) {
+                    String hash = parser.cacheKeyFor(resumeFile);
+                    if (store.find(hash) >= 0) {
+                        skipped++;
+                        continue;
+                    }
+                    ParsedResume resume;
+                    try {
+                        resume = parser.readResume(resumeFile.toString()).parse(parser);
+                    } catch (IOException e) {
+                        System.err.println("Skipping " + resumeFile + ": could not extract text");
+                        continue;
+                    }
+                    store.add(resume.getSourceFile(), hash, resume.getTerms(), parser.segment(resume.getText()));
+                    added++;
+                }
+                store.flush();
+                System.out.println("Added " + added + " resumes (" + skipped + " already stored) to " + args[3]
+                        + ", " + store.size() + " in total");
+            }
+        } else if (args.length >= 4 && args[1].equals("query")) {
+            long start = System.nanoTime();
+            try (FeatureStore store = open(Paths.get(args[2]))) {
+                System.out.println(String.format("Opened %d resumes in %.1f ms", store.size(),
+                        (System.nanoTime() - start) / 1e6));
+                String jobDescription = new String(Files.readAllBytes(Paths.get(args[3])));
+                int k = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+                JobProfile job = new JobMatcher().getJobProfile(jobDescription);
+                int rank = 1;
+                for (SkillIndex.Hit hit : store.topK(job, k)) {
+                    System.out.println(String.format("%3d. %6.2f%%  %s", rank++, hit.getScore(), hit.getResumeId()));
+                }
+            }
+        } else {
+            System.err.println("Usage: Main --store add <resume dir|manifest> <store dir>");
+            System.err.println("       Main --store query <store dir> <job description file> [k]");
+        }
+    }
+}
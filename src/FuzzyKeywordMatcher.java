@@ -0,0 +1,227 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A job's keywords compiled for fuzzy matching (ScoringMode.FUZZY): a keyword
+// is in a resume when each of its words is one of the resume's tokens, or
+// within a few edits of one, so "Postgres" finds PostgreSQL and "NodeJS"
+// finds Node.js, while "JavaScript" no longer counts as Java.
+//
+// Every keyword word becomes a LevenshteinAutomaton, searched once through
+// the FuzzyTermIndex of all tokens in the term dictionary. The tokens each
+// word is close to are kept by term id, so scoring a resume is a lookup per
+// distinct token, however long the resume and however many keywords the job
+// has. Tokens interned after the search, and tokens a full dictionary kept
+// local to the resume's vector, are compared with the words directly; once
+// the dictionary has doubled, the search is redone.
+public class FuzzyKeywordMatcher {
+    // Never search again for fewer new terms than this
+    private static final int MIN_REFRESH_TERMS = 4096;
+
+    private final FuzzyTermIndex index;
+    private final TermDictionary dictionary;
+    // Distinct lowercase words of all keywords, their automatons (null for
+    // words too long for one, which only match exactly) and, per keyword,
+    // the indexes of its words
+    private final String[] words;
+    private final LevenshteinAutomaton[] automata;
+    private final int[][] keywordWords;
+    private volatile Memo memo;
+
+    // Words each term is close to, for the terms one round of searches covered
+    private static final class Memo {
+        final int coveredTerms;
+        // Term id -> (word index << 2) | distance, one per close word
+        final Map<Integer, int[]> hits;
+        final long estimatedBytes;
+
+        Memo(int coveredTerms, Map<Integer, int[]> hits) {
+            this.coveredTerms = coveredTerms;
+            this.hits = hits;
+            long bytes = 0;
+            for (int[] termHits : hits.values()) {
+                // Map entry, boxed key and the array
+                bytes += 80 + 4L * termHits.length;
+            }
+            this.estimatedBytes = bytes;
+        }
+    }
+
+    // Which keywords a resume has, and through which tokens
+    public final class Matches {
+        // Per word: the smallest distance to a resume token and that token;
+        // distance -1 when no token is close enough
+        private final int[] distance;
+        private final String[] token;
+
+        Matches(int[] distance, String[] token) {
+            this.distance = distance;
+            this.token = token;
+        }
+
+        public boolean isMatched(int keyword) {
+            if (keywordWords[keyword].length == 0) {
+                return false;
+            }
+            for (int word : keywordWords[keyword]) {
+                if (distance[word] < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // The keyword as listed among matched keywords: followed by the
+        // tokens it was matched through when they differ from its words
+        public String describe(int keyword, String name) {
+            List<String> variants = new ArrayList<>();
+            for (int word : keywordWords[keyword]) {
+                if (distance[word] > 0) {
+                    variants.add(token[word]);
+                }
+            }
+            return variants.isEmpty() ? name : name + " (as " + String.join(" ", variants) + ")";
+        }
+    }
+
+    public FuzzyKeywordMatcher(String[] keywords, FuzzyTermIndex index) {
+        this.index = index;
+        this.dictionary = index.getDictionary();
+        Map<String, Integer> wordIndexes = new HashMap<>();
+        List<String> wordList = new ArrayList<>();
+        this.keywordWords = new int[keywords.length][];
+        for (int k = 0; k < keywords.length; k++) {
+            // Split the same way resume tokens are made
+            TermVector tokens = TermVector.ofTokens(keywords[k], dictionary);
+            keywordWords[k] = new int[tokens.size()];
+            for (int i = 0; i < tokens.size(); i++) {
+                String word = dictionary.lowerCaseTerm(tokens.id(i));
+                Integer wordIndex = wordIndexes.get(word);
+                if (wordIndex == null) {
+                    wordIndex = wordList.size();
+                    wordIndexes.put(word, wordIndex);
+                    wordList.add(word);
+                }
+                keywordWords[k][i] = wordIndex;
+            }
+        }
+        this.words = wordList.toArray(new String[0]);
+        this.automata = new LevenshteinAutomaton[words.length];
+        for (int w = 0; w < words.length; w++) {
+            if (words[w].length() <= LevenshteinAutomaton.MAX_LENGTH) {
+                automata[w] = new LevenshteinAutomaton(words[w], maxEdits(words[w].length()));
+            }
+        }
+    }
+
+    // Rough heap footprint of the words, their automata and the memo
+    public long estimatedBytes() {
+        long bytes = 64;
+        for (int w = 0; w < words.length; w++) {
+            bytes += 2L * words[w].length() + 48;
+            if (automata[w] != null) {
+                bytes += automata[w].estimatedBytes();
+            }
+        }
+        for (int[] wordIndexes : keywordWords) {
+            bytes += 16 + 4L * wordIndexes.length;
+        }
+        Memo current = memo;
+        return current == null ? bytes : bytes + current.estimatedBytes;
+    }
+
+    // Edits allowed for a word of this length. Short words must match
+    // exactly, as one edit turns most of them into other words.
+    public static int maxEdits(int length) {
+        return length <= 4 ? 0 : length <= 8 ? 1 : 2;
+    }
+
+    public Matches match(TermVector tokens) {
+        Memo current = memo;
+        if (current == null
+                || dictionary.size() - current.coveredTerms > Math.max(current.coveredTerms, MIN_REFRESH_TERMS)) {
+            current = refresh();
+        }
+        int[] distance = new int[words.length];
+        String[] token = new String[words.length];
+        Arrays.fill(distance, -1);
+        for (int i = 0; i < tokens.size(); i++) {
+            int id = tokens.id(i);
+            int[] hits = id >= 0 && id < current.coveredTerms ? current.hits.get(id)
+                    : compare(tokens.lowerCaseTerm(i, dictionary));
+            if (hits == null) {
+                continue;
+            }
+            for (int hit : hits) {
+                int word = hit >>> 2;
+                int d = hit & 3;
+                if (distance[word] < 0 || d < distance[word]) {
+                    distance[word] = d;
+                    token[word] = tokens.term(i, dictionary);
+                }
+            }
+        }
+        return new Matches(distance, token);
+    }
+
+    // Search every word through the index
+    private synchronized Memo refresh() {
+        Memo current = memo;
+        if (current != null
+                && dictionary.size() - current.coveredTerms <= Math.max(current.coveredTerms, MIN_REFRESH_TERMS)) {
+            return current; // another thread just did
+        }
+        // Every term interned before the searches start is covered by them
+        int covered = dictionary.size();
+        Map<Integer, int[]> hits = new HashMap<>();
+        for (int w = 0; w < words.length; w++) {
+            int word = w;
+            if (automata[w] != null) {
+                index.search(automata[w], (term, distance) -> addHit(hits, term, (word << 2) | distance));
+            } else {
+                int term = dictionary.id(words[w]);
+                if (term >= 0) {
+                    addHit(hits, term, w << 2);
+                }
+            }
+        }
+        memo = new Memo(covered, hits);
+        return memo;
+    }
+
+    private static void addHit(Map<Integer, int[]> hits, int term, int hit) {
+        int[] existing = hits.get(term);
+        if (existing == null) {
+            hits.put(term, new int[] {hit});
+        } else {
+            int[] grown = Arrays.copyOf(existing, existing.length + 1);
+            grown[existing.length] = hit;
+            hits.put(term, grown);
+        }
+    }
+
+    // Words a token the searches did not cover is close to, or null
+    private int[] compare(String token) {
+        int[] hits = null;
+        int count = 0;
+        for (int w = 0; w < words.length; w++) {
+            int distance;
+            if (automata[w] == null) {
+                distance = words[w].equals(token) ? 0 : -1;
+            } else if (Math.abs(words[w].length() - token.length()) > automata[w].getMaxEdits()) {
+                continue;
+            } else {
+                distance = automata[w].distance(token);
+            }
+            if (distance >= 0) {
+                if (hits == null) {
+                    hits = new int[words.length];
+                }
+                hits[count++] = (w << 2) | distance;
+            }
+        }
+        return hits == null ? null : Arrays.copyOf(hits, count);
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+// A trie of the word tokens in a TermDictionary, for finding every token
+// within a small edit distance of a word without comparing it to each one.
+//
+// A LevenshteinAutomaton for the word is run down the trie depth first. Each
+// step is shared by all tokens with that prefix, and a branch is dropped as
+// soon as the automaton dies, so a search only visits the prefixes that are
+// still close to the word: its cost depends on how many tokens resemble the
+// word, not on how many there are.
+//
+// The trie is path-compressed: a chain of single-child nodes is one node
+// labelled with the whole run of characters, a slice of a shared character
+// pool, so there are at most two nodes per token however long tokens are.
+//
+// Tokens are the lowercase, space-free terms (see TermVector.ofTokens). The
+// trie catches up with terms interned since the last search on each search.
+public class FuzzyTermIndex {
+    private static final FuzzyTermIndex SHARED = new FuzzyTermIndex(TermDictionary.shared());
+
+    // Receives each term found by search
+    public interface Hit {
+        void accept(int term, int distance);
+    }
+
+    private final TermDictionary dictionary;
+    // Terms of the dictionary looked at so far
+    private int indexedTerms;
+
+    // Nodes as parallel arrays; node 0 is the root, with an empty label. The
+    // children of a node are a linked list through nextSibling, and no two
+    // of them have labels starting with the same character.
+    private int[] labelStart = new int[1024];
+    private int[] labelLength = new int[1024];
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];
+    private int[] termAt = new int[1024];
+    private int nodeCount;
+    private char[] pool = new char[4096];
+    private int poolSize;
+    private int maxDepth;
+
+    public FuzzyTermIndex(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+        addNode(0, 0);
+    }
+
+    public static FuzzyTermIndex shared() {
+        return SHARED;
+    }
+
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // Every token within the automaton's edit distance, with its distance,
+    // out of the terms interned before the call
+    public synchronized void search(LevenshteinAutomaton automaton, Hit hit) {
+        catchUp();
+        int size = automaton.stateSize();
+        // The state after the first d characters of the current path is at
+        // states[d * size]
+        long[] states = new long[(maxDepth + 1) * size];
+        automaton.start(states, 0);
+        // The nodes on the current path below the root, and how many
+        // characters come before each of them
+        int[] path = new int[maxDepth + 1];
+        int[] pathDepth = new int[maxDepth + 1];
+        int level = 0;
+        int depth = 0;
+        int node = firstChild[0];
+        while (true) {
+            if (node >= 0) {
+                int end = depth;
+                int from = labelStart[node];
+                int to = from + labelLength[node];
+                while (from < to && automaton.step(states, end * size, (end + 1) * size, pool[from])) {
+                    from++;
+                    end++;
+                }
+                if (from == to) {
+                    if (termAt[node] >= 0) {
+                        int distance = automaton.distance(states, end * size);
+                        if (distance >= 0) {
+                            hit.accept(termAt[node], distance);
+                        }
+                    }
+                    path[level] = node;
+                    pathDepth[level] = depth;
+                    level++;
+                    depth = end;
+                    node = firstChild[node];
+                    continue;
+                }
+                node = nextSibling[node];
+            } else if (level > 0) {
+                level--;
+                node = nextSibling[path[level]];
+                depth = pathDepth[level];
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void catchUp() {
+        int size = dictionary.size();
+        for (int term = indexedTerms; term < size; term++) {
+            String lowerCase = dictionary.lowerCaseTerm(term);
+            if (lowerCase.equals(dictionary.term(term)) && isToken(lowerCase)) {
+                insert(lowerCase, term);
+            }
+        }
+        indexedTerms = size;
+    }
+
+    private static boolean isToken(String term) {
+        if (term.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isWhitespace(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(String token, int term) {
+        int node = 0;
+        int i = 0;
+        while (i < token.length()) {
+            char c = token.charAt(i);
+            int child = firstChild[node];
+            while (child >= 0 && pool[labelStart[child]] != c) {
+                child = nextSibling[child];
+            }
+            if (child < 0) {
+                // Nothing here starts with c: the rest of the token is a leaf
+                child = addNode(appendToPool(token, i), token.length() - i);
+                nextSibling[child] = firstChild[node];
+                firstChild[node] = child;
+                node = child;
+                break;
+            }
+            int start = labelStart[child];
+            int length = labelLength[child];
+            int matched = 1;
+            while (matched < length && i + matched < token.length()
+                    && pool[start + matched] == token.charAt(i + matched)) {
+                matched++;
+            }
+            if (matched < length) {
+                split(child, matched);
+            }
+            node = child;
+            i += matched;
+        }
+        termAt[node] = term;
+        maxDepth = Math.max(maxDepth, token.length());
+    }
+
+    // Keep the first length characters of a node's label; the rest moves to
+    // a new only child, which takes over the node's children and term
+    private void split(int node, int length) {
+        int tail = addNode(labelStart[node] + length, labelLength[node] - length);
+        firstChild[tail] = firstChild[node];
+        termAt[tail] = termAt[node];
+        firstChild[node] = tail;
+        termAt[node] = -1;
+        labelLength[node] = length;
+    }
+
+    private int appendToPool(String token, int from) {
+        int length = token.length() - from;
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+        token.getChars(from, token.length(), pool, poolSize);
+        int start = poolSize;
+        poolSize += length;
+        return start;
+    }
+
+    private int addNode(int start, int length) {
+        if (nodeCount == firstChild.length) {
+            int capacity = nodeCount * 2;
+            labelStart = Arrays.copyOf(labelStart, capacity);
+            labelLength = Arrays.copyOf(labelLength, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            termAt = Arrays.copyOf(termAt, capacity);
+        }
+        int node = nodeCount++;
+        labelStart[node] = start;
+        labelLength[node] = length;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        termAt[node] = -1;
+        return node;
+    }
+}
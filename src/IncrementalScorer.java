@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Keeps a resume's match score against one job up to date while its text is
+// edited, for live scoring as the user types.
+//
+// Skills never match across a line break, so the text is held as lines, each
+// with the distinct skills found in it, plus a count of how many lines mention
+// every skill. An edit only rescans the lines it touches; a skill whose count
+// goes from zero to one (or back) adds (or removes) its contribution to the
+// matched weight. The education and experience sections are re-segmented on
+// every edit, which is a linear scan, but their entries are only re-extracted
+// when the section text actually changed.
+//
+// Every weight is a small multiple of 1/64 (keyword weights and skill graph
+// relations are multiples of 1/8), so adding and subtracting contributions is
+// exact and the score is always the one a full JobMatcher.calculateMatchScore
+// run over the current text would give.
+public class IncrementalScorer {
+
+    private static class Line {
+        final int length; // excluding the line break
+        final int[] skills; // distinct skill term ids, sorted
+
+        Line(int length, int[] skills) {
+            this.length = length;
+            this.skills = skills;
+        }
+    }
+
+    private final ResumeParser parser;
+    private final JobProfile job;
+    // Fixed for the scorer's lifetime, so edits are always scored alike
+    private final Taxonomy taxonomy;
+    private final SkillMatcher skillMatcher;
+    private final TermDictionary dictionary = TermDictionary.shared();
+    // Term id of every skill in the matcher's dictionary, by matcher index
+    private final int[] skillTerms;
+    // Number of lines mentioning each skill, by term id
+    private final int[] skillLines;
+
+    private final StringBuilder text = new StringBuilder();
+    private final List<Line> lines = new ArrayList<>();
+    private int distinctSkills;
+    private double matchedWeight;
+
+    // Education and experience entries, null when there is none, and the
+    // section text each was extracted from (null when the whole text had to be
+    // searched, which then has to happen again after every edit)
+    private String education;
+    private String experience;
+    private String educationSection;
+    private String experienceSection;
+
+    public IncrementalScorer(ResumeParser parser, JobProfile job, String initialText) {
+        this.parser = parser;
+        this.job = job;
+        this.taxonomy = Taxonomy.current();
+        this.skillMatcher = taxonomy.getSkillMatcher();
+
+        skillTerms = new int[skillMatcher.size()];
+        int maxTerm = 0;
+        for (int k = 0; k < skillTerms.length; k++) {
+            skillTerms[k] = dictionary.intern(skillMatcher.term(k));
+            maxTerm = Math.max(maxTerm, skillTerms[k]);
+        }
+        skillLines = new int[maxTerm + 1];
+
+        text.append(initialText);
+        addLines(0, initialText);
+        updateSections();
+    }
+
+    // Replace removed characters at offset with inserted, the way a text
+    // component reports a change, and update the score
+    public void edit(int offset, int removed, String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed)
+                    + ") outside text of length " + text.length());
+        }
+
+        // Lines first..last hold the edited range, starting at regionStart
+        int first = 0;
+        int regionStart = 0;
+        while (offset > regionStart + lines.get(first).length) {
+            regionStart += lines.get(first).length + 1;
+            first++;
+        }
+        int last = first;
+        int regionEnd = regionStart + lines.get(first).length;
+        while (offset + removed > regionEnd) {
+            last++;
+            regionEnd += lines.get(last).length + 1;
+        }
+
+        List<Line> replaced = lines.subList(first, last + 1);
+        for (Line line : replaced) {
+            for (int term : line.skills) {
+                if (--skillLines[term] == 0) {
+                    distinctSkills--;
+                    matchedWeight -= job.skillContribution(term);
+                }
+            }
+        }
+        replaced.clear();
+
+        text.replace(offset, offset + removed, inserted);
+        addLines(first, text.substring(regionStart, regionEnd - removed + inserted.length()));
+        updateSections();
+    }
+
+    public void insert(int offset, String inserted) {
+        edit(offset, 0, inserted);
+    }
+
+    public void remove(int offset, int length) {
+        edit(offset, length, "");
+    }
+
+    // Scan the lines of region and insert them at index
+    private void addLines(int index, String region) {
+        List<Line> added = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int end = region.indexOf('\n', start);
+            String line = region.substring(start, end < 0 ? region.length() : end);
+            added.add(new Line(line.length(), findSkills(line)));
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        for (Line line : added) {
+            for (int term : line.skills) {
+                if (skillLines[term]++ == 0) {
+                    distinctSkills++;
+                    matchedWeight += job.skillContribution(term);
+                }
+            }
+        }
+        lines.addAll(index, added);
+    }
+
+    private int[] findSkills(String line) {
+        int[] indexes = skillMatcher.findSkillIndexes(line);
+        if (indexes.length == 0) {
+            return indexes;
+        }
+        int[] terms = new int[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            terms[i] = skillTerms[indexes[i]];
+        }
+        Arrays.sort(terms);
+        int distinct = 1;
+        for (int i = 1; i < terms.length; i++) {
+            if (terms[i] != terms[distinct - 1]) {
+                terms[distinct++] = terms[i];
+            }
+        }
+        return distinct == terms.length ? terms : Arrays.copyOf(terms, distinct);
+    }
+
+    private void updateSections() {
+        String current = text.toString();
+        ResumeSections sections = parser.segment(current);
+
+        String section = sections.sectionText(ResumeSections.Type.EDUCATION);
+        if (educationSection == null || !educationSection.equals(section)) {
+            String entry = section == null ? null : parser.educationFromSection(section, taxonomy);
+            educationSection = entry == null ? null : section;
+            if (entry == null) {
+                entry = parser.educationAnywhere(current, taxonomy);
+            }
+            if (!Objects.equals(entry, education)) {
+                matchedWeight += educationWeight(entry) - educationWeight(education);
+                education = entry;
+            }
+        }
+
+        section = sections.sectionText(ResumeSections.Type.EXPERIENCE);
+        if (experienceSection == null || !experienceSection.equals(section)) {
+            String entry = section == null ? null : parser.experienceFromSection(section, taxonomy);
+            experienceSection = entry == null ? null : section;
+            if (entry == null) {
+                entry = parser.experienceAnywhere(current, taxonomy);
+            }
+            if (!Objects.equals(entry, experience)) {
+                matchedWeight += experienceWeight(entry) - experienceWeight(experience);
+                experience = entry;
+            }
+        }
+    }
+
+    private double educationWeight(String entry) {
+        return entry == null ? 0 : job.educationContribution(entry);
+    }
+
+    private double experienceWeight(String entry) {
+        return entry == null ? 0 : job.experienceContribution(entry);
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    public double score() {
+        return job.scoreFor(matchedWeight, education == null ? 0 : 1, experience == null ? 0 : 1);
+    }
+
+    // Skills currently in the text, in term id order
+    public List<String> getSkills() {
+        List<String> skills = new ArrayList<>(distinctSkills);
+        for (int term = 0; term < skillLines.length; term++) {
+            if (skillLines[term] > 0) {
+                skills.add(dictionary.term(term));
+            }
+        }
+        return skills;
+    }
+
+    public List<String> getEducation() {
+        return education == null ? Collections.<String>emptyList() : Collections.singletonList(education);
+    }
+
+    public List<String> getExperience() {
+        return experience == null ? Collections.<String>emptyList() : Collections.singletonList(experience);
+    }
+
+    // Score with matched and missing keywords, as calculateMatchScore reports them
+    public JobMatcher.MatchResult result() {
+        return job.match(ResumeTerms.of(getSkills(), getEducation(), getExperience()));
+    }
+
+    public JobProfile getJob() {
+        return job;
+    }
+}
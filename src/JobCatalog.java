@@ -0,0 +1,671 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// In-memory catalog of job postings for recommending the best jobs for one
+// resume: the reverse of SkillIndex, which finds the best resumes for a job.
+//
+// Each posting is kept as its JobProfile, with the keyword weights computed
+// once when it is added. Next to the profiles the catalog keeps three posting
+// indexes, so a query only looks at jobs a resume entry can earn something in:
+//   - per dictionary skill, the jobs that credit it and by how much, worked
+//     out when a job is added (the skill dictionary is small and fixed)
+//   - per trigram of the lowercased job texts, the jobs containing it, for
+//     education and experience entries the posting mentions
+//   - per lowercased keyword, the jobs weighting it, for experience entries
+//     that contain one of a job's keywords
+// Scores are summed per job in the order JobProfile.score sums them, so they
+// are exactly the ones calculateMatchScore gives.
+//
+// Removing a job only marks it dead; its postings are dropped the next time
+// a query walks the list holding them. Once dead ids outnumber live ones the
+// catalog renumbers the live jobs densely and drops every dead posting, so
+// the per-id arrays and posting lists of a catalog whose jobs keep changing
+// stay in proportion to the jobs it holds.
+public class JobCatalog {
+    private final JobMatcher matcher = new JobMatcher();
+    private final TermDictionary dictionary = TermDictionary.shared();
+    private final SkillGraph skillGraph = SkillGraph.shared();
+
+    // Job names by id, with null for removed jobs, and the ids of live names
+    private final List<String> names = new ArrayList<>();
+    private final List<JobProfile> profiles = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    // The skill dictionary: one automaton over its lowercased terms, the
+    // skills containing any given lowercased text, and for every skill the
+    // skills that earn credit through it in the skill graph
+    private final KeywordAutomaton skillAutomaton;
+    private final int[] skillTerms;
+    private final Set<Integer> dictionarySkills = new HashSet<>();
+    private final Map<String, int[]> skillsContaining = new HashMap<>();
+    private final Map<Integer, int[]> relatedFrom = new HashMap<>();
+
+    private final Map<Integer, Postings> skillPostings = new HashMap<>();
+    // Jobs with a keyword their lowercased text does not contain
+    private final Set<Integer> irregularJobs = new HashSet<>();
+    private final Map<Long, Postings> trigramPostings = new HashMap<>();
+    private final Map<String, Postings> keywordPostings = new HashMap<>();
+    // Number of live keywords of each length, to bound substring lookups
+    private final Map<Integer, Integer> keywordLengths = new HashMap<>();
+
+    // Highest keyword weight of every job, by id
+    private double[] maxWeights = new double[16];
+    private long removals;
+
+    // Per-query scratch space, indexed by job id
+    private double[] matched = new double[16];
+    private int[] firstKeyword = filled(new int[16], 0);
+    private int[] touched = new int[16];
+    private boolean[] isTouched = new boolean[16];
+
+    public JobCatalog() {
+        List<String> terms = ResumeParser.skillMatcher().terms();
+        List<String> lowerCaseTerms = new ArrayList<>();
+        this.skillTerms = new int[terms.size()];
+        Map<String, List<Integer>> containing = new HashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            skillTerms[i] = dictionary.intern(terms.get(i));
+            dictionarySkills.add(skillTerms[i]);
+            String lower = dictionary.lowerCaseTerm(skillTerms[i]);
+            lowerCaseTerms.add(lower);
+            for (int start = 0; start < lower.length(); start++) {
+                for (int end = start + 1; end <= lower.length(); end++) {
+                    List<Integer> skills = containing.computeIfAbsent(lower.substring(start, end),
+                            k -> new ArrayList<>());
+                    if (skills.isEmpty() || skills.get(skills.size() - 1) != skillTerms[i]) {
+                        skills.add(skillTerms[i]);
+                    }
+                }
+            }
+        }
+        this.skillAutomaton = new KeywordAutomaton(lowerCaseTerms, false, false);
+        for (Map.Entry<String, List<Integer>> entry : containing.entrySet()) {
+            skillsContaining.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        Map<Integer, List<Integer>> reverse = new HashMap<>();
+        for (int term : skillTerms) {
+            int node = skillGraph.node(term);
+            if (node >= 0) {
+                for (int edge = skillGraph.firstEdge(node); edge < skillGraph.firstEdge(node + 1); edge++) {
+                    reverse.computeIfAbsent(skillGraph.relatedTerm(edge), k -> new ArrayList<>()).add(term);
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : reverse.entrySet()) {
+            relatedFrom.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    // One job in a recommendation
+    public static class Hit {
+        private final String jobId;
+        private final double score;
+
+        public Hit(String jobId, double score) {
+            this.jobId = jobId;
+            this.score = score;
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    // Growable, job-ordered posting list, optionally with one value per job:
+    // a skill's credit, or a keyword's index in the job
+    private static class Postings {
+        int[] jobs = new int[4];
+        double[] values;
+        int size;
+        // Value of removals when the list was last compacted
+        long compactedAt;
+
+        void add(int job) {
+            if (size == jobs.length) {
+                jobs = Arrays.copyOf(jobs, size * 2);
+            }
+            jobs[size++] = job;
+        }
+
+        void add(int job, double value) {
+            if (values == null) {
+                values = new double[jobs.length];
+            } else if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            add(job);
+        }
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    public synchronized boolean contains(String jobId) {
+        return ids.containsKey(jobId);
+    }
+
+    // Add a job description under an id, replacing any job with that id
+    public void add(String jobId, String description) {
+        add(jobId, matcher.compileProfile(description));
+    }
+
+    public synchronized void add(String jobId, JobProfile job) {
+        remove(jobId);
+        int id = names.size();
+        names.add(jobId);
+        profiles.add(job);
+        ids.put(jobId, id);
+        if (id == matched.length) {
+            maxWeights = Arrays.copyOf(maxWeights, id * 2);
+            matched = Arrays.copyOf(matched, id * 2);
+            firstKeyword = filled(Arrays.copyOf(firstKeyword, id * 2), id);
+            touched = Arrays.copyOf(touched, id * 2);
+            isTouched = Arrays.copyOf(isTouched, id * 2);
+        }
+
+        String text = job.getLowerCaseText();
+        long previous = -1;
+        for (long trigram : sortedTrigrams(text)) {
+            if (trigram != previous) {
+                trigramPostings.computeIfAbsent(trigram, t -> new Postings()).add(id);
+                previous = trigram;
+            }
+        }
+        maxWeights[id] = 0;
+        for (int k = 0; k < job.keywordCount(); k++) {
+            maxWeights[id] = Math.max(maxWeights[id], job.weight(k));
+            String keyword = job.keyword(k).toLowerCase();
+            if (!text.contains(keyword)) {
+                irregularJobs.add(id);
+            }
+            keywordPostings.computeIfAbsent(keyword, key -> new Postings()).add(id, k);
+            keywordLengths.merge(keyword.length(), 1, Integer::sum);
+        }
+        for (int term : creditedSkills(job)) {
+            double credit = job.computeSkillContribution(term);
+            if (credit != 0) {
+                skillPostings.computeIfAbsent(term, t -> new Postings()).add(id, credit);
+            }
+        }
+    }
+
+    // Remove a job; returns whether there was one with that id
+    public synchronized boolean remove(String jobId) {
+        Integer id = ids.remove(jobId);
+        if (id == null) {
+            return false;
+        }
+        JobProfile job = profiles.get(id);
+        for (int k = 0; k < job.keywordCount(); k++) {
+            keywordLengths.merge(job.keyword(k).toLowerCase().length(), -1,
+                    (a, b) -> a + b == 0 ? null : a + b);
+        }
+        names.set(id, null);
+        profiles.set(id, null);
+        irregularJobs.remove(id);
+        removals++;
+        if (names.size() - ids.size() > Math.max(ids.size(), 16)) {
+            renumber();
+        }
+        return true;
+    }
+
+    // Give the live jobs the ids 0 to size() - 1, in their current order so
+    // posting lists stay job-ordered, and drop the dead ones from every list
+    private void renumber() {
+        int[] renumbered = new int[names.size()];
+        List<String> liveNames = new ArrayList<>();
+        List<JobProfile> liveProfiles = new ArrayList<>();
+        for (int id = 0; id < names.size(); id++) {
+            if (profiles.get(id) == null) {
+                renumbered[id] = -1;
+                continue;
+            }
+            renumbered[id] = liveNames.size();
+            maxWeights[liveNames.size()] = maxWeights[id];
+            ids.put(names.get(id), liveNames.size());
+            liveNames.add(names.get(id));
+            liveProfiles.add(profiles.get(id));
+        }
+        names.clear();
+        names.addAll(liveNames);
+        profiles.clear();
+        profiles.addAll(liveProfiles);
+        Set<Integer> irregular = new HashSet<>();
+        for (int id : irregularJobs) {
+            irregular.add(renumbered[id]);
+        }
+        irregularJobs.clear();
+        irregularJobs.addAll(irregular);
+        renumber(skillPostings, renumbered);
+        renumber(trigramPostings, renumbered);
+        renumber(keywordPostings, renumbered);
+
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, names.size())) * 2);
+        maxWeights = Arrays.copyOf(maxWeights, capacity);
+        matched = new double[capacity];
+        firstKeyword = filled(new int[capacity], 0);
+        touched = new int[capacity];
+        isTouched = new boolean[capacity];
+    }
+
+    private void renumber(Map<?, Postings> lists, int[] renumbered) {
+        for (Iterator<Postings> it = lists.values().iterator(); it.hasNext(); ) {
+            Postings list = it.next();
+            int kept = 0;
+            for (int p = 0; p < list.size; p++) {
+                int job = renumbered[list.jobs[p]];
+                if (job >= 0) {
+                    list.jobs[kept] = job;
+                    if (list.values != null) {
+                        list.values[kept] = list.values[p];
+                    }
+                    kept++;
+                }
+            }
+            if (kept == 0) {
+                it.remove();
+            } else {
+                list.size = kept;
+                list.compactedAt = removals;
+            }
+        }
+    }
+
+    // Set the slots from start on to -1
+    private static int[] filled(int[] values, int start) {
+        Arrays.fill(values, start, values.length, -1);
+        return values;
+    }
+
+    // Sorted trigrams of a text, with repeats
+    private static long[] sortedTrigrams(String text) {
+        long[] trigrams = new long[Math.max(0, text.length() - 2)];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = trigram(text, i);
+        }
+        Arrays.sort(trigrams);
+        return trigrams;
+    }
+
+    private static long trigram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    // Every dictionary skill that can earn something against the job: it
+    // appears in the description, it contains or is contained in a keyword,
+    // or a skill it is related to in the skill graph is one of those
+    private int[] creditedSkills(JobProfile job) {
+        if (job.keywordCount() == 0) {
+            return new int[0];
+        }
+        Set<Integer> direct = new HashSet<>();
+        KeywordAutomaton.MatchListener collect = (keyword, start, end) -> direct.add(skillTerms[keyword]);
+        skillAutomaton.scan(job.getLowerCaseText(), collect);
+        for (int k = 0; k < job.keywordCount(); k++) {
+            String keyword = job.keyword(k).toLowerCase();
+            skillAutomaton.scan(keyword, collect);
+            int[] containing = skillsContaining.get(keyword);
+            if (containing != null) {
+                for (int term : containing) {
+                    direct.add(term);
+                }
+            }
+        }
+        Set<Integer> credited = new HashSet<>(direct);
+        for (int term : direct) {
+            int[] related = relatedFrom.get(term);
+            if (related != null) {
+                for (int other : related) {
+                    credited.add(other);
+                }
+            }
+        }
+        return credited.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    // Best n jobs for a resume, best first, scored exactly like
+    // calculateMatchScore. Jobs the resume earns nothing in are left out.
+    public List<Hit> topN(List<String> skills, List<String> education, List<String> experience, int n) {
+        return topN(ResumeTerms.of(skills, education, experience), n);
+    }
+
+    public synchronized List<Hit> topN(ResumeTerms resume, int n) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        int touchedCount = 0;
+        TermVector skills = resume.getSkills();
+        TermVector education = resume.getEducation();
+        TermVector experience = resume.getExperience();
+        int educationCount = education.totalCount();
+        int experienceCount = experience.totalCount();
+        try {
+            // Add up each job's matched weight term by term, in JobProfile.score order
+            for (int i = 0; i < skills.size(); i++) {
+                int count = skills.count(i);
+                Postings list = skillPostings.get(skills.id(i));
+                if (list != null) {
+                    compact(list);
+                    for (int p = 0; p < list.size; p++) {
+                        touchedCount = touch(list.jobs[p], touchedCount);
+                        matched[list.jobs[p]] += count * list.values[p];
+                    }
+                } else if (!dictionarySkills.contains(skills.id(i))) {
+                    // Not a dictionary skill, so not indexed; ask the jobs that may credit it
+                    for (int job : jobsCreditingUnknownSkill(skills.id(i))) {
+                        double credit = profiles.get(job).computeSkillContribution(skills.id(i));
+                        if (credit != 0) {
+                            touchedCount = touch(job, touchedCount);
+                            matched[job] += count * credit;
+                        }
+                    }
+                }
+            }
+
+            // Education and experience entries earn little compared to skills,
+            // so jobs that could not reach the top n even if every entry
+            // earned its most are not checked for mentioning them
+            double cutoff = nthBest(touchedCount, n, educationCount, experienceCount);
+            for (int i = 0; i < education.size(); i++) {
+                int count = education.count(i);
+                String entry = education.lowerCaseTerm(i, dictionary);
+                for (int job : jobsMentioning(entry, cutoff, educationCount, experienceCount)) {
+                    touchedCount = touch(job, touchedCount);
+                    matched[job] += count * 0.5; // Lower weight for education match
+                }
+            }
+            for (int i = 0; i < experience.size(); i++) {
+                int count = experience.count(i);
+                String entry = experience.lowerCaseTerm(i, dictionary);
+                for (int job : jobsMentioning(entry, cutoff, educationCount, experienceCount)) {
+                    touchedCount = touch(job, touchedCount);
+                    matched[job] += count * 0.75; // Medium weight for experience match
+                }
+                // Half the weight of the job's first keyword found in the entry
+                for (int job : firstKeywordsIn(entry)) {
+                    touchedCount = touch(job, touchedCount);
+                    matched[job] += count * 0.5 * profiles.get(job).weight(firstKeyword[job]);
+                    firstKeyword[job] = -1;
+                }
+            }
+
+            // Final scores, then the jobs above the n-th best one and as many
+            // of those tied with it as fit, by id
+            for (int t = 0; t < touchedCount; t++) {
+                int job = touched[t];
+                matched[job] = profiles.get(job).scoreFor(matched[job], educationCount, experienceCount);
+            }
+            double nth = nthLargest(touchedCount, n);
+            List<Hit> hits = new ArrayList<>();
+            PriorityQueue<String> tied = new PriorityQueue<>(Comparator.reverseOrder());
+            for (int t = 0; t < touchedCount; t++) {
+                int job = touched[t];
+                if (matched[job] > nth) {
+                    hits.add(new Hit(names.get(job), matched[job]));
+                } else if (matched[job] == nth && nth > 0) {
+                    tied.add(names.get(job));
+                    if (tied.size() > n) {
+                        tied.poll();
+                    }
+                }
+            }
+            while (tied.size() > n - hits.size()) {
+                tied.poll();
+            }
+            for (String name : tied) {
+                hits.add(new Hit(name, nth));
+            }
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparing(Hit::getJobId));
+            return hits;
+        } finally {
+            for (int t = 0; t < touchedCount; t++) {
+                matched[touched[t]] = 0;
+                isTouched[touched[t]] = false;
+            }
+        }
+    }
+
+    // The n-th best score any touched job already has for sure, 0 if fewer
+    // than n jobs were touched
+    private double nthBest(int touchedCount, int n, int educationCount, int experienceCount) {
+        if (touchedCount < n) {
+            return 0;
+        }
+        double[] heap = new double[n];
+        int size = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int job = touched[t];
+            size = offer(heap, size, profiles.get(job).scoreFor(matched[job], educationCount, experienceCount));
+        }
+        return heap[0];
+    }
+
+    // The n-th largest final score in matched over the touched jobs, 0 if
+    // fewer than n jobs were touched
+    private double nthLargest(int touchedCount, int n) {
+        if (touchedCount < n) {
+            return 0;
+        }
+        double[] heap = new double[n];
+        int size = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            size = offer(heap, size, matched[touched[t]]);
+        }
+        return heap[0];
+    }
+
+    // Keep the largest values in a min-heap of fixed capacity; returns its new size
+    private static int offer(double[] heap, int size, double value) {
+        int i;
+        if (size < heap.length) {
+            i = size++;
+            while (i > 0 && heap[(i - 1) / 2] > value) {
+                heap[i] = heap[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+        } else if (value > heap[0]) {
+            i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= value) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+        } else {
+            return size;
+        }
+        heap[i] = value;
+        return size;
+    }
+
+    // Whether a job could still score at least cutoff if every education
+    // and experience entry earned its most
+    private boolean canReach(int job, double cutoff, int educationCount, int experienceCount) {
+        JobProfile profile = profiles.get(job);
+        double most = matched[job] + educationCount * 0.5
+                + experienceCount * (0.75 + 0.5 * maxWeights[job]);
+        // A little slack for rounding, which only costs an extra check
+        return profile.scoreFor(most, educationCount, experienceCount) + 1e-9 >= cutoff;
+    }
+
+    private int touch(int job, int touchedCount) {
+        if (!isTouched[job]) {
+            isTouched[job] = true;
+            touched[touchedCount++] = job;
+        }
+        return touchedCount;
+    }
+
+    // Drop the postings of removed jobs, if any were removed since the list
+    // was last compacted
+    private void compact(Postings list) {
+        if (list.compactedAt == removals) {
+            return;
+        }
+        list.compactedAt = removals;
+        int kept = 0;
+        for (int p = 0; p < list.size; p++) {
+            if (profiles.get(list.jobs[p]) != null) {
+                list.jobs[kept] = list.jobs[p];
+                if (list.values != null) {
+                    list.values[kept] = list.values[p];
+                }
+                kept++;
+            }
+        }
+        list.size = kept;
+    }
+
+    // Jobs that may credit a skill outside the dictionary: those mentioning
+    // it (a job's keywords are part of its text, so this covers keywords
+    // containing the skill, except in the irregular jobs) or with a keyword
+    // inside it, and the same for the skills it is related to
+    private Set<Integer> jobsCreditingUnknownSkill(int term) {
+        Set<Integer> jobs = new HashSet<>(irregularJobs);
+        addMentionsAndKeywords(jobs, term);
+        int node = skillGraph.node(term);
+        if (node >= 0) {
+            for (int edge = skillGraph.firstEdge(node); edge < skillGraph.firstEdge(node + 1); edge++) {
+                int related = skillGraph.relatedTerm(edge);
+                Postings list = skillPostings.get(related);
+                if (list != null) {
+                    compact(list);
+                    for (int p = 0; p < list.size; p++) {
+                        jobs.add(list.jobs[p]);
+                    }
+                } else if (!dictionarySkills.contains(related)) {
+                    addMentionsAndKeywords(jobs, related);
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private void addMentionsAndKeywords(Set<Integer> jobs, int term) {
+        String lowerCaseTerm = dictionary.lowerCaseTerm(term);
+        jobs.addAll(jobsMentioning(lowerCaseTerm, 0, 0, 0));
+        for (int job : firstKeywordsIn(lowerCaseTerm)) {
+            jobs.add(job);
+            firstKeyword[job] = -1;
+        }
+    }
+
+    // Live jobs that could reach cutoff and whose lowercased description
+    // contains the lowercased entry
+    private List<Integer> jobsMentioning(String entry, double cutoff, int educationCount, int experienceCount) {
+        List<Integer> jobs = new ArrayList<>();
+        if (entry.length() < 3) {
+            // Too short for the trigram index; these entries are rare
+            for (int job = 0; job < profiles.size(); job++) {
+                if (profiles.get(job) != null && canReach(job, cutoff, educationCount, experienceCount)
+                        && profiles.get(job).getLowerCaseText().contains(entry)) {
+                    jobs.add(job);
+                }
+            }
+            return jobs;
+        }
+
+        // Verify the jobs of the rarest trigram
+        Postings rarest = null;
+        for (int i = 0; i + 3 <= entry.length(); i++) {
+            Postings list = trigramPostings.get(trigram(entry, i));
+            if (list == null) {
+                return jobs;
+            }
+            if (rarest == null || list.size < rarest.size) {
+                rarest = list;
+            }
+        }
+        compact(rarest);
+        for (int p = 0; p < rarest.size; p++) {
+            int job = rarest.jobs[p];
+            if (canReach(job, cutoff, educationCount, experienceCount)
+                    && profiles.get(job).getLowerCaseText().contains(entry)) {
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    // Jobs with a keyword inside the lowercased entry; leaves the lowest such
+    // keyword index of each in firstKeyword, which the caller resets to -1
+    private int[] firstKeywordsIn(String entry) {
+        int[] jobs = new int[8];
+        int count = 0;
+        for (int length : keywordLengths.keySet()) {
+            for (int start = 0; start + length <= entry.length(); start++) {
+                Postings list = keywordPostings.get(entry.substring(start, start + length));
+                if (list == null) {
+                    continue;
+                }
+                compact(list);
+                for (int p = 0; p < list.size; p++) {
+                    int job = list.jobs[p];
+                    int keyword = (int) list.values[p];
+                    if (firstKeyword[job] < 0) {
+                        if (count == jobs.length) {
+                            jobs = Arrays.copyOf(jobs, count * 2);
+                        }
+                        jobs[count++] = job;
+                        firstKeyword[job] = keyword;
+                    } else {
+                        firstKeyword[job] = Math.min(firstKeyword[job], keyword);
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(jobs, count);
+    }
+
+    // Usage: --recommend <resume> <job dir|manifest> [n]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: Main --recommend <resume> <job dir|manifest> [n]");
+            return;
+        }
+        int n = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        JobCatalog catalog = new JobCatalog();
+        for (Path jobFile : BatchRanker.collectInputs(Paths.get(args[2]), ".txt")) {
+            catalog.add(jobFile.toString(), new String(Files.readAllBytes(jobFile)));
+        }
+
+        ResumeParser parser = new ResumeParser();
+        ParsedResume resume = parser.readResume(args[1]).parse(parser);
+        long start = System.nanoTime();
+        List<Hit> hits = catalog.topN(resume.getTerms(), n);
+        long micros = (System.nanoTime() - start) / 1000;
+        int rank = 1;
+        for (Hit hit : hits) {
+            System.out.println(String.format("%3d. %6.2f%%  %s", rank++, hit.getScore(), hit.getJobId()));
+        }
+        System.out.println("Ranked " + catalog.size() + " jobs in " + (micros / 1000.0) + " ms");
+    }
+}
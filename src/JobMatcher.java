@@ -9,6 +9,22 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class JobMatcher {
+    private static final Pattern REQUIREMENT_PATTERN =
+            Pattern.compile("(?i)(required|requirement|must have|essential|necessary|qualification)s?:?([^.;]*)[.;]");
+
+    // Corpus cosine scores are weighted by, or null for the shared corpus's
+    // stable snapshot
+    private final CorpusStats corpus;
+
+    public JobMatcher() {
+        this(null);
+    }
+
+    // A matcher whose cosine scores all use the same IDF weights, such as a
+    // snapshot taken before a batch is scored
+    public JobMatcher(CorpusStats corpus) {
+        this.corpus = corpus;
+    }
     
     // Extract keywords from job description
     public List<String> extractJobKeywords(String jobDescription) {
@@ -19,8 +35,7 @@ public class JobMatcher {
         keywords.addAll(parser.extractSkills(jobDescription));
         
         // Additional job-specific requirements
-        Pattern requirementPattern = Pattern.compile("(?i)(required|requirement|must have|essential|necessary|qualification)s?:?([^.;]*)[.;]");
-        Matcher matcher = requirementPattern.matcher(jobDescription);
+        Matcher matcher = REQUIREMENT_PATTERN.matcher(jobDescription);
         while (matcher.find() && matcher.group(2) != null) {
             String requirement = matcher.group(2).trim();
             if (!requirement.isEmpty()) {
@@ -31,124 +46,110 @@ public class JobMatcher {
         return keywords;
     }
     
-    public MatchResult calculateMatchScore(List<String> resumeSkills, List<String> resumeEducation, 
-                                     List<String> resumeExperience, String jobDescription) {
+    // Analyze a job description once: extract its keywords and weight them.
+    // Profiles are cached by content, so repeated calls for the same posting are cheap.
+    public JobProfile getJobProfile(String jobDescription) {
+        return JobProfileCache.shared().get(jobDescription, this::compileProfile);
+    }
+
+    public JobProfile compileProfile(String jobDescription) {
         List<String> jobKeywords = extractJobKeywords(jobDescription);
         
         // Calculate job match score with TF-IDF inspired weighting
         Map<String, Double> keywordWeights = calculateKeywordWeights(jobDescription, jobKeywords);
-        
-        double totalWeight = keywordWeights.values().stream().mapToDouble(Double::doubleValue).sum();
-        // Add extra weight for education and experience components
-        double maxPossibleWeight = totalWeight + 
-                              (resumeEducation.size() * 0.5) + 
-                              (resumeExperience.size() * 0.75);
-        
-        double matchedWeight = 0.0;
-        List<String> matchedKeywords = new ArrayList<>();
-        
-        // Improve matching for partial matches and handle case sensitivity
-        // Check skills matches (highest weight)
-        for (String skill : resumeSkills) {
-            for (Map.Entry<String, Double> entry : keywordWeights.entrySet()) {
-                if (entry.getKey().equalsIgnoreCase(skill) || 
-                    containsIgnoreCase(entry.getKey(), skill) ||
-                    containsIgnoreCase(skill, entry.getKey()) ||
-                    jobDescription.toLowerCase().contains(skill.toLowerCase())) {
-                    matchedWeight += entry.getValue();
-                    matchedKeywords.add(skill);
-                    break;
-                }
-            }
-        }
-        
-        // Check education and experience matches (lower weight)
-        for (String edu : resumeEducation) {
-            if (containsIgnoreCase(jobDescription, edu)) {
-                matchedWeight += 0.5; // Lower weight for education match
-                matchedKeywords.add(edu);
-            }
+        return new JobProfile(jobDescription, jobKeywords, keywordWeights);
+    }
+    
+    public MatchResult calculateMatchScore(List<String> resumeSkills, List<String> resumeEducation, 
+                                     List<String> resumeExperience, String jobDescription) {
+        return calculateMatchScore(resumeSkills, resumeEducation, resumeExperience, getJobProfile(jobDescription));
+    }
+    
+    public MatchResult calculateMatchScore(List<String> resumeSkills, List<String> resumeEducation, 
+                                     List<String> resumeExperience, JobProfile job) {
+        return calculateMatchScore(ResumeTerms.of(resumeSkills, resumeEducation, resumeExperience), job);
+    }
+
+    // Score a resume already in term form; see JobProfile.match
+    public MatchResult calculateMatchScore(ResumeTerms resume, JobProfile job) {
+        long terms = resume.getSkills().totalCount() + resume.getEducation().totalCount()
+                + resume.getExperience().totalCount();
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.CALCULATE_MATCH_SCORE, terms)) {
+            MatchResult result = job.match(resume);
+            span.succeeded();
+            return result;
         }
-        
-        for (String exp : resumeExperience) {
-            if (containsIgnoreCase(jobDescription, exp)) {
-                matchedWeight += 0.75; // Medium weight for experience match
-                matchedKeywords.add(exp);
-            }
-            
-            // Check for relevant skills in experience
-            for (Map.Entry<String, Double> entry : keywordWeights.entrySet()) {
-                if (containsIgnoreCase(exp, entry.getKey())) {
-                    matchedWeight += 0.5 * entry.getValue(); // Half weight when found in experience
-                    matchedKeywords.add(entry.getKey() + " (in experience)");
-                    break;
-                }
+    }
+    
+    // Score a parsed resume in the given mode. Cosine scores keep the matched
+    // and missing keywords of the keyword heuristic to explain them; fuzzy
+    // scores report the keywords they found (see JobProfile.fuzzyMatch).
+    public MatchResult calculateMatchScore(ParsedResume resume, JobProfile job, ScoringMode mode) {
+        if (mode == ScoringMode.FUZZY) {
+            TermVector tokens = resume.getTokens();
+            try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.CALCULATE_MATCH_SCORE,
+                    tokens.totalCount())) {
+                MatchResult result = job.fuzzyMatch(resume.getTerms(), tokens);
+                span.succeeded();
+                return result;
             }
         }
-        
-        // Calculate match score as percentage of maximum possible weight
-        // Cap at 100 to ensure score is between 0-100
-        double matchScore = (maxPossibleWeight > 0) ? Math.min(100, (matchedWeight / maxPossibleWeight) * 100) : 0;
-        
-        // Find missing important keywords
-        List<String> missingKeywords = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : keywordWeights.entrySet()) {
-            if (entry.getValue() > 0.5) { // Only consider important keywords (higher weight)
-                boolean found = false;
-                for (String skill : resumeSkills) {
-                    if (entry.getKey().equalsIgnoreCase(skill) || 
-                        containsIgnoreCase(skill, entry.getKey()) ||
-                        containsIgnoreCase(entry.getKey(), skill)) {
-                        found = true;
-                        break;
-                    }
-                }
-                
-                // Also check if skill appears in experience
-                if (!found) {
-                    for (String exp : resumeExperience) {
-                        if (containsIgnoreCase(exp, entry.getKey())) {
-                            found = true;
-                            break;
-                        }
-                    }
-                }
-                
-                if (!found) {
-                    missingKeywords.add(entry.getKey());
-                }
-            }
+        MatchResult result = calculateMatchScore(resume.getTerms(), job);
+        if (mode == ScoringMode.COSINE) {
+            result = new MatchResult(cosineScore(resume, job), result.getMatchedKeywords(),
+                    result.getMissingKeywords());
         }
-        
-        return new MatchResult(matchScore, matchedKeywords, missingKeywords);
+        return result;
     }
 
-    // Helper method to check if one string contains another, ignoring case
-    private boolean containsIgnoreCase(String source, String target) {
-        if (source == null || target == null) return false;
-        return source.toLowerCase().contains(target.toLowerCase());
+    // Cosine similarity of the resume's and the job's TF-IDF vectors, 0-100
+    public double cosineScore(ParsedResume resume, JobProfile job) {
+        // Both documents join the corpus before the snapshot is chosen
+        job.getTokens();
+        TermVector resumeTokens = resume.getTokens();
+        CorpusStats weights = corpus != null ? corpus : CorpusStats.shared().stable();
+        return SparseVector.tfIdf(resumeTokens, weights).cosine(job.tfIdfVector(weights)) * 100;
     }
     
-    private Map<String, Double> calculateKeywordWeights(String jobDescription, List<String> keywords) {
+    public Map<String, Double> calculateKeywordWeights(String jobDescription, List<String> keywords) {
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.CALCULATE_KEYWORD_WEIGHTS,
+                jobDescription.length())) {
+            Map<String, Double> weights = computeKeywordWeights(jobDescription, keywords);
+            span.succeeded();
+            return weights;
+        }
+    }
+
+    private Map<String, Double> computeKeywordWeights(String jobDescription, List<String> keywords) {
         Map<String, Double> weights = new HashMap<>();
+        String lowerCaseJobDescription = jobDescription.toLowerCase();
         
-        // Simplified TF-IDF approach
+        // Count whole-word occurrences of every keyword in one pass; like a
+        // regex find() loop, occurrences of the same keyword never overlap
+        List<String> lowerCaseKeywords = new ArrayList<>(keywords.size());
         for (String keyword : keywords) {
-            // Calculate term frequency
-            String lowerCaseKeyword = keyword.toLowerCase();
-            String lowerCaseJobDescription = jobDescription.toLowerCase();
-            
-            // Check for exact match
-            Pattern pattern = Pattern.compile("\\b" + Pattern.quote(lowerCaseKeyword) + "\\b");
-            Matcher matcher = pattern.matcher(lowerCaseJobDescription);
-            
-            int count = 0;
-            while (matcher.find()) {
-                count++;
+            lowerCaseKeywords.add(keyword.toLowerCase());
+        }
+        int[] counts = new int[keywords.size()];
+        int[] lastEnd = new int[keywords.size()];
+        new KeywordAutomaton(lowerCaseKeywords, false, true).scan(lowerCaseJobDescription, (keyword, start, end) -> {
+            if (start >= lastEnd[keyword]) {
+                counts[keyword]++;
+                lastEnd[keyword] = end;
             }
+        });
+        
+        // Title or first paragraph
+        int firstParagraphEnd = lowerCaseJobDescription.indexOf("\n\n");
+        if (firstParagraphEnd == -1) firstParagraphEnd = lowerCaseJobDescription.length();
+        String firstParagraph = lowerCaseJobDescription.substring(0, firstParagraphEnd);
+        
+        // Simplified TF-IDF approach
+        for (int k = 0; k < keywords.size(); k++) {
+            String lowerCaseKeyword = lowerCaseKeywords.get(k);
             
             // Calculate weight based on frequency and position in document
-            double weight = count * 0.5;
+            double weight = counts[k] * 0.5;
             
             // Increase weight if keyword appears in requirements/qualifications section
             if (lowerCaseJobDescription.contains("required " + lowerCaseKeyword) ||
@@ -158,15 +159,11 @@ public class JobMatcher {
             }
             
             // Increase weight if it appears in title or first paragraph
-            int firstParagraphEnd = lowerCaseJobDescription.indexOf("\n\n");
-            if (firstParagraphEnd == -1) firstParagraphEnd = lowerCaseJobDescription.length();
-            String firstParagraph = lowerCaseJobDescription.substring(0, firstParagraphEnd);
-            
             if (firstParagraph.contains(lowerCaseKeyword)) {
                 weight *= 1.5;
             }
             
-            weights.put(keyword, weight);
+            weights.put(keywords.get(k), weight);
         }
         
         return weights;
@@ -203,9 +200,10 @@ public class JobMatcher {
         
         ResumeParser parser = new ResumeParser();
         List<String> resumeSkills = parser.extractSkills(resumeText);
-        List<String> resumeEducation = parser.extractEducation(resumeText);
-        List<String> resumeExperience = parser.extractExperience(resumeText);
+        ResumeSections sections = parser.segment(resumeText);
+        List<String> resumeEducation = parser.extractEducation(sections);
+        List<String> resumeExperience = parser.extractExperience(sections);
         
-        return calculateMatchScore(resumeSkills, resumeEducation, resumeExperience, jobDescription);
+        return calculateMatchScore(resumeSkills, resumeEducation, resumeExperience, getJobProfile(jobDescription));
     }
 }
@@ -0,0 +1,643 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Everything JobMatcher needs to know about one job description, computed once.
+//
+// Building a profile runs keyword extraction and weighting; scoring a resume
+// against it afterwards only does lookups against the precomputed arrays. A
+// profile never changes after construction, so it can be shared across threads
+// and cached (see JobProfileCache).
+//
+// Resumes in term form (ResumeTerms) are scored from per-term facts that are
+// worked out the first time a term is seen and memoized by term id, so
+// scoring a resume with known terms is a few table reads per term and
+// allocates nothing. The memo holds at most MAX_MEMOIZED_TERMS terms, so a
+// profile cached in a long-running process stops growing; past that (mostly
+// with one-off education and experience lines) facts are worked out anew.
+//
+// A skill the job does not ask for can still earn part of the weight of one
+// it does through the skill graph (see SkillGraph); which related skill and
+// how much is part of the memoized facts, so this costs nothing per resume.
+public class JobProfile {
+    private static final long[] NO_KEYWORDS = new long[0];
+    private static final int MAX_MEMOIZED_TERMS = 1 << 14;
+
+    private final String contentHash;
+    private final String text;
+    private final String lowerCaseText;
+    private final List<String> keywords;
+    private final Map<String, Double> keywordWeights;
+    private final double totalWeight;
+
+    // The weighted keywords in keywordWeights iteration order, which decides
+    // which keyword a skill is credited against
+    private final String[] weightedKeywords;
+    private final String[] lowerCaseWeightedKeywords;
+    private final double[] weights;
+
+    // Finds every weighted keyword inside a piece of lowercased text
+    private final KeywordAutomaton keywordMatcher;
+
+    // Keywords important enough to be reported as missing, by keyword index
+    private final int[] importantKeywords;
+
+    // Footprint of everything built in the constructor, and of one memoized
+    // TermFacts, for estimatedBytes
+    private final long baseBytes;
+    private final long factsBytes;
+
+    // What each term id is worth against this job, filled in on first use
+    private final TermDictionary dictionary = TermDictionary.shared();
+    private final SkillGraph skillGraph = SkillGraph.shared();
+    private volatile FactsTable termFacts = new FactsTable(64);
+
+    // Word tokens of the description for cosine scoring, and their TF-IDF
+    // vector against the corpus it was last weighted by; both built on first use
+    private volatile TermVector tokens;
+    private volatile WeightedTokens weightedTokens;
+
+    // The weighted keywords compiled for fuzzy scoring, built on first use
+    private volatile FuzzyKeywordMatcher fuzzyMatcher;
+
+    private static final class WeightedTokens {
+        final CorpusStats corpus;
+        final long documents;
+        final SparseVector vector;
+
+        WeightedTokens(CorpusStats corpus, long documents, SparseVector vector) {
+            this.corpus = corpus;
+            this.documents = documents;
+            this.vector = vector;
+        }
+    }
+
+    // Everything scoring needs to know about one term
+    private static final class TermFacts {
+        // Keyword credited when the term is a skill, or -1
+        final int skillKeyword;
+        // When it is not, the keyword a related skill earns partial credit
+        // for (or -1), and that skill's term id
+        final int relatedKeyword;
+        final int relatedSkill;
+        // Weight the term earns as a skill
+        final double skillCredit;
+        // Whether the job description contains the term
+        final boolean mentioned;
+        // First keyword inside the term when it is an experience entry, or -1
+        final int experienceKeyword;
+        // Bits over importantKeywords that the term accounts for as a skill
+        // and as an experience entry
+        final long[] coveredAsSkill;
+        final long[] coveredAsExperience;
+
+        TermFacts(int skillKeyword, int relatedKeyword, int relatedSkill, double skillCredit, boolean mentioned,
+                  int experienceKeyword, long[] coveredAsSkill, long[] coveredAsExperience) {
+            this.skillKeyword = skillKeyword;
+            this.relatedKeyword = relatedKeyword;
+            this.relatedSkill = relatedSkill;
+            this.skillCredit = skillCredit;
+            this.mentioned = mentioned;
+            this.experienceKeyword = experienceKeyword;
+            this.coveredAsSkill = coveredAsSkill;
+            this.coveredAsExperience = coveredAsExperience;
+        }
+    }
+
+    // Open-addressing map from term id to facts, read without locking. An
+    // entry's facts are stored before its key, so a reader that sees the key
+    // but not yet the facts just works them out again. Replaced wholesale
+    // when it grows.
+    private static final class FactsTable {
+        // Term id + 1, 0 for an empty slot
+        final int[] keys;
+        final TermFacts[] values;
+        int size;
+
+        FactsTable(int capacity) {
+            keys = new int[capacity];
+            values = new TermFacts[capacity];
+        }
+
+        TermFacts get(int term) {
+            int mask = keys.length - 1;
+            for (int slot = slot(term, mask); ; slot = (slot + 1) & mask) {
+                int key = keys[slot];
+                if (key == term + 1) {
+                    return values[slot];
+                }
+                if (key == 0) {
+                    return null;
+                }
+            }
+        }
+
+        void put(int term, TermFacts facts) {
+            int mask = keys.length - 1;
+            int slot = slot(term, mask);
+            while (keys[slot] != 0) {
+                if (keys[slot] == term + 1) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            values[slot] = facts;
+            keys[slot] = term + 1;
+            size++;
+        }
+
+        private static int slot(int term, int mask) {
+            return ((term + 1) * 0x9E3779B9 >>> 16) & mask;
+        }
+    }
+
+    public JobProfile(String text, List<String> keywords, Map<String, Double> keywordWeights) {
+        this.contentHash = contentHash(text);
+        this.text = text;
+        this.lowerCaseText = text.toLowerCase();
+        this.keywords = Collections.unmodifiableList(keywords);
+        this.keywordWeights = Collections.unmodifiableMap(keywordWeights);
+
+        int size = keywordWeights.size();
+        this.weightedKeywords = new String[size];
+        this.lowerCaseWeightedKeywords = new String[size];
+        this.weights = new double[size];
+        int i = 0;
+        double total = 0;
+        for (Map.Entry<String, Double> entry : keywordWeights.entrySet()) {
+            weightedKeywords[i] = entry.getKey();
+            lowerCaseWeightedKeywords[i] = entry.getKey().toLowerCase();
+            weights[i] = entry.getValue();
+            total += entry.getValue();
+            i++;
+        }
+        this.totalWeight = total;
+        this.keywordMatcher = new KeywordAutomaton(Arrays.asList(lowerCaseWeightedKeywords), false, false);
+
+        int important = 0;
+        int[] importantIndexes = new int[size];
+        for (int k = 0; k < size; k++) {
+            if (weights[k] > 0.5) { // Only consider important keywords (higher weight)
+                importantIndexes[important++] = k;
+            }
+        }
+        this.importantKeywords = Arrays.copyOf(importantIndexes, important);
+
+        long bytes = 2L * (text.length() + lowerCaseText.length()) + keywordMatcher.estimatedBytes()
+                + 4L * importantKeywords.length + 256;
+        for (String keyword : keywords) {
+            bytes += 2L * keyword.length() + 48;
+        }
+        for (String keyword : weightedKeywords) {
+            // The weighted keyword, its lowercase copy and its map entry
+            bytes += 4L * keyword.length() + 160;
+        }
+        this.baseBytes = bytes;
+        this.factsBytes = 64 + 2 * (16 + 8L * ((importantKeywords.length + 63) >>> 6));
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // The description's word tokens. Building them the first time adds the
+    // description to the shared corpus statistics, unless a profile of the
+    // same text was counted there before.
+    public TermVector getTokens() {
+        TermVector result = tokens;
+        if (result == null) {
+            synchronized (this) {
+                result = tokens;
+                if (result == null) {
+                    result = TermVector.ofTokens(text, dictionary);
+                    CorpusStats.shared().addDocument(contentHash, result);
+                    tokens = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // The description's TF-IDF vector against the given corpus, rebuilt only
+    // when the corpus or its size has changed since the last call
+    public SparseVector tfIdfVector(CorpusStats corpus) {
+        TermVector terms = getTokens();
+        long documents = corpus.documentCount();
+        WeightedTokens cached = weightedTokens;
+        if (cached == null || cached.corpus != corpus || cached.documents != documents) {
+            cached = new WeightedTokens(corpus, documents, SparseVector.tfIdf(terms, corpus));
+            weightedTokens = cached;
+        }
+        return cached.vector;
+    }
+
+    public String getLowerCaseText() {
+        return lowerCaseText;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public Map<String, Double> getKeywordWeights() {
+        return keywordWeights;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public int keywordCount() {
+        return weights.length;
+    }
+
+    public String keyword(int index) {
+        return weightedKeywords[index];
+    }
+
+    public double weight(int index) {
+        return weights[index];
+    }
+
+    // Index of the keyword a resume skill is credited against: the first one
+    // that equals or overlaps the skill, or simply the first keyword when the
+    // skill is mentioned anywhere in the job description. -1 if none.
+    public int findSkillKeyword(String skill) {
+        return findSkillKeywordLowerCase(skill.toLowerCase());
+    }
+
+    private int findSkillKeywordLowerCase(String lowerCaseSkill) {
+        if (weights.length == 0) {
+            return -1;
+        }
+        if (lowerCaseText.contains(lowerCaseSkill)) {
+            return 0;
+        }
+        for (int i = 0; i < lowerCaseWeightedKeywords.length; i++) {
+            String keyword = lowerCaseWeightedKeywords[i];
+            if (keyword.contains(lowerCaseSkill) || lowerCaseSkill.contains(keyword)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Index of the first keyword mentioned in an experience entry, or -1
+    public int findExperienceKeyword(String experience) {
+        return findExperienceKeywordLowerCase(experience.toLowerCase());
+    }
+
+    private int findExperienceKeywordLowerCase(String lowerCaseExperience) {
+        int[] first = {Integer.MAX_VALUE};
+        keywordMatcher.scan(lowerCaseExperience, (keyword, start, end) -> {
+            if (keyword < first[0]) {
+                first[0] = keyword;
+            }
+        });
+        return first[0] == Integer.MAX_VALUE ? -1 : first[0];
+    }
+
+    // Whether the job description mentions the given text, ignoring case
+    public boolean mentions(String fragment) {
+        return lowerCaseText.contains(fragment.toLowerCase());
+    }
+
+    // Match score of a resume against this job, exactly as
+    // JobMatcher.calculateMatchScore computes it, without allocating
+    public double score(ResumeTerms resume) {
+        TermVector skills = resume.getSkills();
+        TermVector education = resume.getEducation();
+        TermVector experience = resume.getExperience();
+
+        double matchedWeight = 0.0;
+        for (int i = 0; i < skills.size(); i++) {
+            matchedWeight += skills.count(i) * facts(skills, i).skillCredit;
+        }
+        for (int i = 0; i < education.size(); i++) {
+            if (facts(education, i).mentioned) {
+                matchedWeight += education.count(i) * 0.5; // Lower weight for education match
+            }
+        }
+        for (int i = 0; i < experience.size(); i++) {
+            TermFacts facts = facts(experience, i);
+            if (facts.mentioned) {
+                matchedWeight += experience.count(i) * 0.75; // Medium weight for experience match
+            }
+            if (facts.experienceKeyword >= 0) {
+                // Half weight when found in experience
+                matchedWeight += experience.count(i) * 0.5 * weights[facts.experienceKeyword];
+            }
+        }
+
+        return scoreFor(matchedWeight, education.totalCount(), experience.totalCount());
+    }
+
+    // Weight a resume skill with this term id earns, 0 if none
+    public double skillContribution(int term) {
+        return facts(term).skillCredit;
+    }
+
+    // The same, worked out on every call instead of memoized. For profiles
+    // that are each asked about only a few terms, like the many postings of
+    // a JobCatalog, where a memo table per profile would cost more than it saves.
+    public double computeSkillContribution(int term) {
+        int skillKeyword = findSkillKeywordLowerCase(dictionary.lowerCaseTerm(term));
+        if (skillKeyword >= 0) {
+            return weights[skillKeyword];
+        }
+        int edge = bestRelatedEdge(term);
+        return edge < 0 ? 0
+                : skillGraph.relatedWeight(edge) * weights[findSkillKeywordLowerCase(
+                        dictionary.lowerCaseTerm(skillGraph.relatedTerm(edge)))];
+    }
+
+    // Weight an education entry earns; takes the text so that entries being
+    // edited live do not have to be interned
+    public double educationContribution(String entry) {
+        return mentions(entry) ? 0.5 : 0;
+    }
+
+    // Weight an experience entry earns
+    public double experienceContribution(String entry) {
+        String lowerCaseEntry = entry.toLowerCase();
+        double weight = lowerCaseText.contains(lowerCaseEntry) ? 0.75 : 0;
+        int keyword = findExperienceKeywordLowerCase(lowerCaseEntry);
+        if (keyword >= 0) {
+            weight += 0.5 * weights[keyword];
+        }
+        return weight;
+    }
+
+    // The same two by term id, memoized like skillContribution
+    public double educationContribution(int term) {
+        return facts(term).mentioned ? 0.5 : 0;
+    }
+
+    public double experienceContribution(int term) {
+        TermFacts facts = facts(term);
+        double weight = facts.mentioned ? 0.75 : 0;
+        if (facts.experienceKeyword >= 0) {
+            weight += 0.5 * weights[facts.experienceKeyword];
+        }
+        return weight;
+    }
+
+    // Match score for a matched weight and a resume's education and experience
+    // entry counts, the last step of score()
+    public double scoreFor(double matchedWeight, int educationCount, int experienceCount) {
+        // Add extra weight for education and experience components
+        double maxPossibleWeight = totalWeight + (educationCount * 0.5) + (experienceCount * 0.75);
+        // Cap at 100 to ensure score is between 0-100
+        return (maxPossibleWeight > 0) ? Math.min(100, (matchedWeight / maxPossibleWeight) * 100) : 0;
+    }
+
+    // Full match result: the score plus matched and missing keywords. Matched
+    // entries are listed skills first, then education, then experience, each
+    // in term id order; a repeated entry is listed once per occurrence.
+    public JobMatcher.MatchResult match(ResumeTerms resume) {
+        TermVector skills = resume.getSkills();
+        TermVector education = resume.getEducation();
+        TermVector experience = resume.getExperience();
+        List<String> matchedKeywords = new ArrayList<>();
+        long[] covered = new long[(importantKeywords.length + 63) >>> 6];
+
+        for (int i = 0; i < skills.size(); i++) {
+            TermFacts facts = facts(skills, i);
+            if (facts.skillKeyword >= 0) {
+                addRepeated(matchedKeywords, skills.term(i, dictionary), skills.count(i));
+            } else if (facts.relatedKeyword >= 0) {
+                addRepeated(matchedKeywords, dictionary.term(facts.relatedSkill) + " (via "
+                        + skills.term(i, dictionary) + ")", skills.count(i));
+            }
+            // A related skill only earns partial credit, so the keyword it
+            // stands in for is still reported missing
+            or(covered, facts.coveredAsSkill);
+        }
+        for (int i = 0; i < education.size(); i++) {
+            if (facts(education, i).mentioned) {
+                addRepeated(matchedKeywords, education.term(i, dictionary), education.count(i));
+            }
+        }
+        for (int i = 0; i < experience.size(); i++) {
+            TermFacts facts = facts(experience, i);
+            for (int n = 0; n < experience.count(i); n++) {
+                if (facts.mentioned) {
+                    matchedKeywords.add(experience.term(i, dictionary));
+                }
+                if (facts.experienceKeyword >= 0) {
+                    matchedKeywords.add(weightedKeywords[facts.experienceKeyword] + " (in experience)");
+                }
+            }
+            or(covered, facts.coveredAsExperience);
+        }
+
+        List<String> missingKeywords = new ArrayList<>();
+        for (int i = 0; i < importantKeywords.length; i++) {
+            if ((covered[i >>> 6] & (1L << i)) == 0) {
+                missingKeywords.add(weightedKeywords[importantKeywords[i]]);
+            }
+        }
+        return new JobMatcher.MatchResult(score(resume), matchedKeywords, missingKeywords);
+    }
+
+    // Match result in ScoringMode.FUZZY. A keyword counts when each of its
+    // words is among the resume's tokens, exactly or within a few edits (see
+    // FuzzyKeywordMatcher), rather than when a resume skill overlaps it.
+    // Education and experience entries count as in match().
+    public JobMatcher.MatchResult fuzzyMatch(ResumeTerms resume, TermVector tokens) {
+        FuzzyKeywordMatcher.Matches found = getFuzzyMatcher().match(tokens);
+        TermVector education = resume.getEducation();
+        TermVector experience = resume.getExperience();
+        List<String> matchedKeywords = new ArrayList<>();
+
+        double matchedWeight = 0.0;
+        for (int k = 0; k < weights.length; k++) {
+            if (found.isMatched(k)) {
+                matchedWeight += weights[k];
+                matchedKeywords.add(found.describe(k, weightedKeywords[k]));
+            }
+        }
+        for (int i = 0; i < education.size(); i++) {
+            if (facts(education, i).mentioned) {
+                matchedWeight += education.count(i) * 0.5;
+                addRepeated(matchedKeywords, education.term(i, dictionary), education.count(i));
+            }
+        }
+        for (int i = 0; i < experience.size(); i++) {
+            if (facts(experience, i).mentioned) {
+                matchedWeight += experience.count(i) * 0.75;
+                addRepeated(matchedKeywords, experience.term(i, dictionary), experience.count(i));
+            }
+        }
+
+        List<String> missingKeywords = new ArrayList<>();
+        for (int keyword : importantKeywords) {
+            if (!found.isMatched(keyword)) {
+                missingKeywords.add(weightedKeywords[keyword]);
+            }
+        }
+        return new JobMatcher.MatchResult(scoreFor(matchedWeight, education.totalCount(), experience.totalCount()),
+                matchedKeywords, missingKeywords);
+    }
+
+    private FuzzyKeywordMatcher getFuzzyMatcher() {
+        FuzzyKeywordMatcher result = fuzzyMatcher;
+        if (result == null) {
+            synchronized (this) {
+                result = fuzzyMatcher;
+                if (result == null) {
+                    result = new FuzzyKeywordMatcher(weightedKeywords, FuzzyTermIndex.shared());
+                    fuzzyMatcher = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addRepeated(List<String> list, String value, int count) {
+        for (int n = 0; n < count; n++) {
+            list.add(value);
+        }
+    }
+
+    private static void or(long[] target, long[] bits) {
+        for (int w = 0; w < bits.length; w++) {
+            target[w] |= bits[w];
+        }
+    }
+
+    private TermFacts facts(int term) {
+        TermFacts facts = termFacts.get(term);
+        if (facts == null) {
+            facts = computeFacts(term, dictionary.lowerCaseTerm(term));
+            remember(term, facts);
+        }
+        return facts;
+    }
+
+    // Facts of the term at an index of a resume vector; terms local to the
+    // vector have no lasting id and are not memoized
+    private TermFacts facts(TermVector terms, int index) {
+        int term = terms.id(index);
+        return term >= 0 ? facts(term) : computeFacts(term, terms.lowerCaseTerm(index, dictionary));
+    }
+
+    private synchronized void remember(int term, TermFacts facts) {
+        FactsTable table = termFacts;
+        if (table.size >= MAX_MEMOIZED_TERMS) {
+            return;
+        }
+        if (2 * (table.size + 1) > table.keys.length) {
+            FactsTable grown = new FactsTable(table.keys.length * 2);
+            for (int slot = 0; slot < table.keys.length; slot++) {
+                if (table.keys[slot] != 0) {
+                    grown.put(table.keys[slot] - 1, table.values[slot]);
+                }
+            }
+            grown.put(term, facts);
+            termFacts = grown;
+        } else {
+            table.put(term, facts);
+        }
+    }
+
+    private TermFacts computeFacts(int term, String lowerCaseTerm) {
+        long[] coveredAsSkill = NO_KEYWORDS;
+        long[] coveredAsExperience = NO_KEYWORDS;
+        for (int i = 0; i < importantKeywords.length; i++) {
+            String keyword = lowerCaseWeightedKeywords[importantKeywords[i]];
+            boolean inTerm = lowerCaseTerm.contains(keyword);
+            if (inTerm || keyword.contains(lowerCaseTerm)) {
+                coveredAsSkill = setBit(coveredAsSkill, i);
+            }
+            if (inTerm) {
+                coveredAsExperience = setBit(coveredAsExperience, i);
+            }
+        }
+        int skillKeyword = findSkillKeywordLowerCase(lowerCaseTerm);
+        double skillCredit = skillKeyword >= 0 ? weights[skillKeyword] : 0;
+        int relatedKeyword = -1;
+        int relatedSkill = -1;
+        int edge = skillKeyword >= 0 ? -1 : bestRelatedEdge(term);
+        if (edge >= 0) {
+            relatedSkill = skillGraph.relatedTerm(edge);
+            relatedKeyword = findSkillKeywordLowerCase(dictionary.lowerCaseTerm(relatedSkill));
+            skillCredit = skillGraph.relatedWeight(edge) * weights[relatedKeyword];
+        }
+        return new TermFacts(skillKeyword, relatedKeyword, relatedSkill, skillCredit,
+                lowerCaseText.contains(lowerCaseTerm), findExperienceKeywordLowerCase(lowerCaseTerm),
+                coveredAsSkill, coveredAsExperience);
+    }
+
+    // Skill graph edge to the related skill worth the most against this job,
+    // strongest relation first on a tie; -1 if no related skill earns anything
+    private int bestRelatedEdge(int term) {
+        int node = skillGraph.node(term);
+        if (node < 0) {
+            return -1;
+        }
+        int best = -1;
+        double bestCredit = 0;
+        for (int edge = skillGraph.firstEdge(node); edge < skillGraph.firstEdge(node + 1); edge++) {
+            int keyword = findSkillKeywordLowerCase(dictionary.lowerCaseTerm(skillGraph.relatedTerm(edge)));
+            if (keyword >= 0 && skillGraph.relatedWeight(edge) * weights[keyword] > bestCredit) {
+                bestCredit = skillGraph.relatedWeight(edge) * weights[keyword];
+                best = edge;
+            }
+        }
+        return best;
+    }
+
+    private long[] setBit(long[] bits, int bit) {
+        if (bits == NO_KEYWORDS) {
+            bits = new long[(importantKeywords.length + 63) >>> 6];
+        }
+        bits[bit >>> 6] |= 1L << bit;
+        return bits;
+    }
+
+    // Rough heap footprint, used for size-based cache eviction. Besides what
+    // the constructor built, it counts everything memoized so far (term facts,
+    // the tokens and their TF-IDF vector, the fuzzy matcher), so it grows as
+    // the profile is used.
+    public long estimatedBytes() {
+        FactsTable table = termFacts;
+        long bytes = baseBytes + 12L * table.keys.length + table.size * factsBytes;
+        TermVector terms = tokens;
+        if (terms != null) {
+            bytes += terms.estimatedBytes();
+        }
+        WeightedTokens weighted = weightedTokens;
+        if (weighted != null) {
+            bytes += 12L * weighted.vector.size() + 64;
+        }
+        FuzzyKeywordMatcher matcher = fuzzyMatcher;
+        if (matcher != null) {
+            bytes += matcher.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    public static String contentHash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// LRU cache of compiled JobProfiles keyed by the SHA-256 of the job text and
+// the taxonomy it was compiled with.
+//
+// Eviction is by estimated memory footprint rather than entry count, so a few
+// very long postings cannot crowd out the heap. The default budget can be set
+// with -Dresume.jobProfileCache.maxBytes=<bytes>. A profile grows as it
+// memoizes what it works out while scoring, so its footprint is measured
+// again every time it is looked up.
+public class JobProfileCache {
+    private static final long DEFAULT_MAX_BYTES =
+            Long.getLong("resume.jobProfileCache.maxBytes", 64L * 1024 * 1024);
+
+    private static final JobProfileCache SHARED = new JobProfileCache(DEFAULT_MAX_BYTES);
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> profiles = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+
+    // A cached profile and the footprint last counted for it in currentBytes
+    private static final class Entry {
+        final JobProfile profile;
+        long bytes;
+
+        Entry(JobProfile profile) {
+            this.profile = profile;
+        }
+    }
+
+    public JobProfileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // The cache shared by every JobMatcher in this process
+    public static JobProfileCache shared() {
+        return SHARED;
+    }
+
+    // Return the cached profile for this job text, compiling it on a miss.
+    // Compilation happens outside the lock so one slow job does not block lookups.
+    public JobProfile get(String jobDescription, Function<String, JobProfile> compiler) {
+        // Profiles list the skills the taxonomy found, so a reload starts afresh
+        String key = Taxonomy.current().getHash() + "/" + JobProfile.contentHash(jobDescription);
+        synchronized (this) {
+            Entry entry = profiles.get(key);
+            if (entry != null) {
+                hits++;
+                measure(entry);
+                return entry.profile;
+            }
+            misses++;
+        }
+
+        JobProfile compiled = compiler.apply(jobDescription);
+        synchronized (this) {
+            Entry existing = profiles.get(key);
+            if (existing != null) {
+                return existing.profile;
+            }
+            Entry entry = new Entry(compiled);
+            profiles.put(key, entry);
+            measure(entry);
+        }
+        return compiled;
+    }
+
+    // Count the entry's current footprint and evict others if that is over budget
+    private void measure(Entry entry) {
+        long bytes = entry.profile.estimatedBytes();
+        currentBytes += bytes - entry.bytes;
+        entry.bytes = bytes;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = profiles.entrySet().iterator();
+        // Always keep the most recent entry, even if it is over budget on its own
+        while (currentBytes > maxBytes && profiles.size() > 1 && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        profiles.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int size() {
+        return profiles.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.Arrays;
+import java.util.List;
+
+// Minimal streaming JSON writer for the scoring service's responses.
+// Commas are inserted automatically; nesting is the caller's responsibility.
+public class Json {
+    private final StringBuilder out = new StringBuilder();
+    // Whether the next value at each nesting depth is the first one there
+    private boolean[] first = {true, false, false, false, false, false, false, false};
+    private int depth;
+
+    public Json beginObject() {
+        return open('{');
+    }
+
+    public Json endObject() {
+        return close('}');
+    }
+
+    public Json beginArray() {
+        return open('[');
+    }
+
+    public Json endArray() {
+        return close(']');
+    }
+
+    public Json name(String name) {
+        separate();
+        quote(out, name);
+        out.append(':');
+        // The value that follows belongs to this name and needs no comma
+        first[depth] = true;
+        return this;
+    }
+
+    public Json value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(out, value);
+        }
+        return this;
+    }
+
+    public Json value(double value) {
+        separate();
+        out.append(Double.isFinite(value) ? Double.toString(value) : "null");
+        return this;
+    }
+
+    public Json value(long value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    public Json value(boolean value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    public Json value(List<String> values) {
+        beginArray();
+        for (String value : values) {
+            value(value);
+        }
+        return endArray();
+    }
+
+    public Json field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    public Json field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    public Json field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    public Json field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    public Json field(String name, List<String> values) {
+        return name(name).value(values);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private Json open(char bracket) {
+        separate();
+        out.append(bracket);
+        depth++;
+        if (depth == first.length) {
+            first = Arrays.copyOf(first, depth * 2);
+        }
+        first[depth] = true;
+        return this;
+    }
+
+    private Json close(char bracket) {
+        out.append(bracket);
+        depth--;
+        return this;
+    }
+
+    private void separate() {
+        if (!first[depth]) {
+            out.append(',');
+        }
+        first[depth] = false;
+    }
+
+    public static void quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,303 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+// Aho-Corasick automaton that finds every occurrence of a fixed set of
+// keywords in a single left-to-right pass over the text.
+//
+// The automaton is built once and is immutable afterwards, so one instance can
+// be shared by any number of threads. Scanning costs O(text length + matches)
+// no matter how many keywords were compiled in.
+//
+// Transitions live in one open-addressing hash table keyed by (state, char)
+// instead of a dense state x alphabet table, so memory grows with the number of
+// trie edges rather than the size of the alphabet.
+//
+// A built automaton can be written to a Snapshot and read back as it is,
+// which for tens of thousands of keywords is much faster than building it.
+public class KeywordAutomaton {
+
+    // Receives each match as it is found; end is exclusive
+    public interface MatchListener {
+        void onMatch(int keyword, int start, int end);
+    }
+
+    private static final long EMPTY = -1L;
+
+    private final String[] keywords;
+    private final boolean ignoreCase;
+    private final boolean wordBoundaries;
+
+    // Trie edges: key = (state << 16) | char, value = child state
+    private long[] edgeKeys;
+    private int[] edgeValues;
+
+    private int[] failure;
+    // Keyword ending exactly at this state (-1 if none)
+    private int[] keywordAt;
+    // Nearest state on the failure chain that ends a keyword (0 if none)
+    private int[] outputLink;
+    // Next keyword with the same (normalized) text, for duplicate keywords
+    private final int[] sameKeyword;
+    private final int[] keywordLength;
+    private int stateCount;
+
+    public KeywordAutomaton(List<String> keywords, boolean ignoreCase, boolean wordBoundaries) {
+        this.keywords = keywords.toArray(new String[0]);
+        this.ignoreCase = ignoreCase;
+        this.wordBoundaries = wordBoundaries;
+        this.sameKeyword = new int[this.keywords.length];
+        this.keywordLength = new int[this.keywords.length];
+        Arrays.fill(sameKeyword, -1);
+        build();
+    }
+
+    private KeywordAutomaton(String[] keywords, boolean ignoreCase, boolean wordBoundaries, int stateCount,
+                             long[] edgeKeys, int[] edgeValues, int[] failure, int[] keywordAt, int[] outputLink,
+                             int[] sameKeyword) {
+        this.keywords = keywords;
+        this.ignoreCase = ignoreCase;
+        this.wordBoundaries = wordBoundaries;
+        this.stateCount = stateCount;
+        this.edgeKeys = edgeKeys;
+        this.edgeValues = edgeValues;
+        this.failure = failure;
+        this.keywordAt = keywordAt;
+        this.outputLink = outputLink;
+        this.sameKeyword = sameKeyword;
+        this.keywordLength = new int[keywords.length];
+        for (int k = 0; k < keywords.length; k++) {
+            keywordLength[k] = keywords[k].length();
+        }
+    }
+
+    // Save the built automaton; read() restores it without rebuilding
+    public void write(Snapshot.Writer out) throws IOException {
+        out.writeBoolean(ignoreCase);
+        out.writeBoolean(wordBoundaries);
+        out.writeStrings(Arrays.asList(keywords));
+        out.writeInt(stateCount);
+        out.writeLongs(edgeKeys);
+        out.writeInts(edgeValues);
+        out.writeInts(failure);
+        out.writeInts(keywordAt);
+        out.writeInts(outputLink);
+        out.writeInts(sameKeyword);
+    }
+
+    public static KeywordAutomaton read(ByteBuffer in) {
+        boolean ignoreCase = in.get() != 0;
+        boolean wordBoundaries = in.get() != 0;
+        String[] keywords = Snapshot.readStrings(in).toArray(new String[0]);
+        int stateCount = in.getInt();
+        long[] edgeKeys = Snapshot.readLongs(in);
+        int[] edgeValues = Snapshot.readInts(in);
+        int[] failure = Snapshot.readInts(in);
+        int[] keywordAt = Snapshot.readInts(in);
+        int[] outputLink = Snapshot.readInts(in);
+        int[] sameKeyword = Snapshot.readInts(in);
+        if (Integer.bitCount(edgeKeys.length) != 1 || edgeValues.length != edgeKeys.length
+                || failure.length != stateCount || keywordAt.length != stateCount
+                || outputLink.length != stateCount || sameKeyword.length != keywords.length) {
+            throw new IllegalArgumentException("Damaged snapshot: inconsistent automaton");
+        }
+        return new KeywordAutomaton(keywords, ignoreCase, wordBoundaries, stateCount, edgeKeys, edgeValues,
+                failure, keywordAt, outputLink, sameKeyword);
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    // Rough heap footprint of the keywords and the automaton's tables
+    public long estimatedBytes() {
+        long bytes = 12L * edgeKeys.length + 12L * stateCount + 8L * keywords.length + 128;
+        for (String keyword : keywords) {
+            bytes += 2L * keyword.length() + 48;
+        }
+        return bytes;
+    }
+
+    public String keyword(int index) {
+        return keywords[index];
+    }
+
+    // Report every match in the text, in order of end position
+    public void scan(CharSequence text, MatchListener listener) {
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = normalize(text.charAt(i));
+            int next;
+            while ((next = child(state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = next < 0 ? 0 : next;
+
+            int output = keywordAt[state] >= 0 ? state : outputLink[state];
+            while (output != 0) {
+                for (int k = keywordAt[output]; k >= 0; k = sameKeyword[k]) {
+                    int end = i + 1;
+                    int start = end - keywordLength[k];
+                    if (!wordBoundaries || (isBoundary(text, start) && isBoundary(text, end))) {
+                        listener.onMatch(k, start, end);
+                    }
+                }
+                output = outputLink[output];
+            }
+        }
+    }
+
+    // Same definition of a word boundary as \b in java.util.regex
+    private static boolean isBoundary(CharSequence text, int index) {
+        boolean before = index > 0 && isWordChar(text.charAt(index - 1));
+        boolean after = index < text.length() && isWordChar(text.charAt(index));
+        return before != after;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private char normalize(char c) {
+        return ignoreCase ? Character.toLowerCase(c) : c;
+    }
+
+    private void build() {
+        int maxStates = 1;
+        for (String keyword : keywords) {
+            maxStates += keyword.length();
+        }
+        int tableSize = Integer.highestOneBit(Math.max(16, maxStates * 2 - 1)) << 1;
+        edgeKeys = new long[tableSize];
+        edgeValues = new int[tableSize];
+        Arrays.fill(edgeKeys, EMPTY);
+        keywordAt = new int[maxStates];
+        Arrays.fill(keywordAt, -1);
+        stateCount = 1;
+
+        // Build the trie; empty keywords cannot be matched and are skipped
+        int[] lastKeywordAt = new int[maxStates];
+        for (int k = 0; k < keywords.length; k++) {
+            String keyword = keywords[k];
+            keywordLength[k] = keyword.length();
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = normalize(keyword.charAt(i));
+                int next = child(state, c);
+                if (next < 0) {
+                    next = stateCount++;
+                    putEdge(state, c, next);
+                }
+                state = next;
+            }
+            if (keywordAt[state] < 0) {
+                keywordAt[state] = k;
+            } else {
+                sameKeyword[lastKeywordAt[state]] = k;
+            }
+            lastKeywordAt[state] = k;
+        }
+
+        keywordAt = Arrays.copyOf(keywordAt, stateCount);
+        shrinkEdgeTable();
+        failure = new int[stateCount];
+        outputLink = new int[stateCount];
+
+        // Breadth-first pass to fill in failure and output links
+        int[] edgeStart = new int[stateCount + 1];
+        for (long key : edgeKeys) {
+            if (key != EMPTY) {
+                edgeStart[(int) (key >>> 16) + 1]++;
+            }
+        }
+        for (int s = 0; s < stateCount; s++) {
+            edgeStart[s + 1] += edgeStart[s];
+        }
+        int[] edgeTargets = new int[edgeStart[stateCount]];
+        char[] edgeChars = new char[edgeStart[stateCount]];
+        int[] fill = Arrays.copyOf(edgeStart, stateCount);
+        for (int i = 0; i < edgeKeys.length; i++) {
+            if (edgeKeys[i] != EMPTY) {
+                int slot = fill[(int) (edgeKeys[i] >>> 16)]++;
+                edgeTargets[slot] = edgeValues[i];
+                edgeChars[slot] = (char) (edgeKeys[i] & 0xFFFF);
+            }
+        }
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+            queue.add(edgeTargets[e]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = edgeTargets[e];
+                char c = edgeChars[e];
+                int fail = failure[state];
+                int next;
+                while ((next = child(fail, c)) < 0 && fail != 0) {
+                    fail = failure[fail];
+                }
+                failure[child] = next < 0 ? 0 : next;
+                int target = failure[child];
+                outputLink[child] = keywordAt[target] >= 0 ? target : outputLink[target];
+                queue.add(child);
+            }
+        }
+    }
+
+    // The table was sized for the total keyword length; keywords sharing
+    // prefixes leave fewer edges than that, so rehash into the size they need
+    private void shrinkEdgeTable() {
+        int tableSize = Integer.highestOneBit(Math.max(16, stateCount * 2 - 1)) << 1;
+        if (tableSize >= edgeKeys.length) {
+            return;
+        }
+        long[] oldKeys = edgeKeys;
+        int[] oldValues = edgeValues;
+        edgeKeys = new long[tableSize];
+        edgeValues = new int[tableSize];
+        Arrays.fill(edgeKeys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                putEdge((int) (oldKeys[i] >>> 16), (char) (oldKeys[i] & 0xFFFF), oldValues[i]);
+            }
+        }
+    }
+
+    private int child(int state, char c) {
+        long key = ((long) state << 16) | c;
+        int mask = edgeKeys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long existing = edgeKeys[slot];
+            if (existing == key) {
+                return edgeValues[slot];
+            }
+            if (existing == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private void putEdge(int state, char c, int child) {
+        long key = ((long) state << 16) | c;
+        int mask = edgeKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (edgeKeys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        edgeKeys[slot] = key;
+        edgeValues[slot] = child;
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+// Accepts the strings within a fixed Levenshtein distance of one word, one
+// character at a time, so it can be run down a trie of terms and abandon a
+// branch as soon as no term below it can be close enough.
+//
+// The automaton is simulated bit-parallel: row i of the state is a bit set
+// over the word's prefixes, bit j set when the characters read so far are
+// within i edits of the first j characters of the word. A step is a few
+// shifts and ors per row, and words of up to MAX_LENGTH characters fit a long.
+public class LevenshteinAutomaton {
+    public static final int MAX_LENGTH = 63;
+
+    private final String word;
+    private final int maxEdits;
+    private final long mask;
+    private final long accept;
+    // Bits of the word positions holding each character: by character for
+    // ASCII, by sorted character for the rest
+    private final long[] asciiPositions = new long[128];
+    private final char[] chars;
+    private final long[] positions;
+
+    public LevenshteinAutomaton(String word, int maxEdits) {
+        if (word.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Word longer than " + MAX_LENGTH + " characters: " + word);
+        }
+        this.word = word;
+        this.maxEdits = maxEdits;
+        int length = word.length();
+        this.mask = length == MAX_LENGTH ? -1L : (1L << (length + 1)) - 1;
+        this.accept = 1L << length;
+
+        char[] sorted = word.toCharArray();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        this.chars = Arrays.copyOf(sorted, distinct);
+        this.positions = new long[distinct];
+        for (int j = 0; j < length; j++) {
+            char c = word.charAt(j);
+            positions[Arrays.binarySearch(chars, c)] |= 1L << (j + 1);
+            if (c < 128) {
+                asciiPositions[c] |= 1L << (j + 1);
+            }
+        }
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public int getMaxEdits() {
+        return maxEdits;
+    }
+
+    // Rough heap footprint: mostly the table of ASCII character positions
+    public long estimatedBytes() {
+        return 8L * asciiPositions.length + 10L * chars.length + 2L * word.length() + 128;
+    }
+
+    // Longs one state takes
+    public int stateSize() {
+        return maxEdits + 1;
+    }
+
+    // Write the state before any character has been read at state[at...]
+    public void start(long[] state, int at) {
+        for (int i = 0; i <= maxEdits; i++) {
+            // The first i characters of the word can be deleted
+            state[at + i] = ((1L << (i + 1)) - 1) & mask;
+        }
+    }
+
+    // Read one character in the state at state[from...] and write the
+    // result to state[to...]. False when no continuation can be accepted.
+    public boolean step(long[] state, int from, int to, char c) {
+        long matches;
+        if (c < 128) {
+            matches = asciiPositions[c];
+        } else {
+            int index = Arrays.binarySearch(chars, c);
+            matches = index >= 0 ? positions[index] : 0;
+        }
+        long previousOld = state[from];
+        long previousNew = (previousOld << 1) & matches;
+        state[to] = previousNew;
+        for (int i = 1; i <= maxEdits; i++) {
+            long old = state[from + i];
+            // match | insertion | substitution | deletion
+            long next = ((old << 1) & matches) | previousOld | (previousOld << 1) | (previousNew << 1);
+            next &= mask;
+            state[to + i] = next;
+            previousOld = old;
+            previousNew = next;
+        }
+        return previousNew != 0;
+    }
+
+    // Edit distance between the word and what the state has read, or -1
+    // when that is more than maxEdits
+    public int distance(long[] state, int at) {
+        for (int i = 0; i <= maxEdits; i++) {
+            if ((state[at + i] & accept) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Edit distance between the word and a whole term, or -1 when more than
+    // maxEdits
+    public int distance(CharSequence term) {
+        int size = stateSize();
+        long[] state = new long[2 * size];
+        start(state, 0);
+        int current = 0;
+        for (int i = 0; i < term.length(); i++) {
+            if (!step(state, current, size - current, term.charAt(i))) {
+                return -1;
+            }
+            current = size - current;
+        }
+        return distance(state, current);
+    }
+}
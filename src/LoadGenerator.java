@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Load-generating client for ScoringServer. Registers a job description, then
+// at each concurrency level keeps that many uploads of one resume in flight
+// until the request count is reached, and reports throughput and latency
+// percentiles.
+public class LoadGenerator {
+    private static final Pattern JOB_ID = Pattern.compile("\"jobId\":\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final URI scoreUri;
+    private final byte[] resume;
+
+    public LoadGenerator(URI scoreUri, byte[] resume) {
+        this.scoreUri = scoreUri;
+        this.resume = resume;
+    }
+
+    // Latencies of one run, in nanoseconds, and how many requests failed
+    public static class RunResult {
+        private final int concurrency;
+        private final long[] latencies;
+        private final int errors;
+        private final long elapsedNanos;
+
+        RunResult(int concurrency, long[] latencies, int errors, long elapsedNanos) {
+            this.concurrency = concurrency;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // Latency at the given percentile (0-100) in milliseconds
+        public double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+        }
+
+        public double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+    }
+
+    public RunResult run(int concurrency, int requests) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        HttpRequest request = HttpRequest.newBuilder(scoreUri)
+                .header("Content-Type", "application/pdf")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(resume))
+                .build();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory("load"));
+        List<Future<?>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            workers.add(clients.submit(() -> {
+                while (next.getAndIncrement() < requests) {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                        continue;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies[completed.getAndIncrement()] = System.nanoTime() - sent;
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                errors.incrementAndGet();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        long[] successful = Arrays.copyOf(latencies, completed.get());
+        Arrays.sort(successful);
+        return new RunResult(concurrency, successful, errors.get(), elapsed);
+    }
+
+    // Register a posting with the server and return its id
+    public static String registerJob(HttpClient client, URI jobsUri, String jobDescription)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(jobsUri)
+                .POST(HttpRequest.BodyPublishers.ofString(jobDescription)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = JOB_ID.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IOException("Could not register job: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    // Usage: --loadtest <server url> <resume pdf> <job description file> [concurrency,...] [requests per level]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println("Usage: Main --loadtest <server url> <resume pdf> <job description file> "
+                    + "[concurrency levels, e.g. 1,8,32] [requests per level]");
+            return;
+        }
+        String server = args[1].endsWith("/") ? args[1].substring(0, args[1].length() - 1) : args[1];
+        byte[] resume = Files.readAllBytes(Paths.get(args[2]));
+        String jobDescription = new String(Files.readAllBytes(Paths.get(args[3])));
+        String[] levels = (args.length > 4 ? args[4] : "1,8,32").split(",");
+        int requests = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+
+        String jobId = registerJob(HttpClient.newHttpClient(), URI.create(server + "/jobs"), jobDescription);
+        LoadGenerator generator = new LoadGenerator(URI.create(server + "/score?jobId=" + jobId), resume);
+
+        // Warm up the server's JIT and caches before measuring
+        generator.run(Integer.parseInt(levels[0].trim()), Math.max(10, requests / 10));
+
+        System.out.println(String.format("%11s %10s %9s %9s %9s %7s", "concurrency", "req/s", "p50 ms", "p99 ms",
+                "max ms", "errors"));
+        for (String level : levels) {
+            RunResult result = generator.run(Integer.parseInt(level.trim()), requests);
+            System.out.println(String.format("%11d %10.1f %9.2f %9.2f %9.2f %7d", result.getConcurrency(),
+                    result.throughput(), result.percentileMillis(50), result.percentileMillis(99),
+                    result.percentileMillis(100), result.getErrors()));
+        }
+    }
+}
@@ -1,21 +1,95 @@
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 public class Main {
-    public static void main(String[] args) throws IOException {
-        // Default file paths - can be made configurable via command-line arguments
-        String resumeFile = "data/sample_resume.pdf";
-        String jobDescriptionFile = "data/job_description.txt";
-        
+    static final String DEFAULT_RESUME = "data/sample_resume.pdf";
+    static final String DEFAULT_JOB_DESCRIPTION = "data/job_description.txt";
+
+    // The parser, matcher and optimizer behind a single analysis. The
+    // analysis daemon keeps one resident and warm; a plain run builds its own.
+    static class Analyzer {
+        final ResumeParser parser = new ResumeParser();
+        final JobMatcher matcher = new JobMatcher();
+        final ATSOptimizer optimizer = new ATSOptimizer();
+        final ReportGenerator reportGenerator = new ReportGenerator();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Resident daemon, and the thin client that hands it a command line
+        if (args.length > 0 && args[0].equals("--daemon")) {
+            AnalysisDaemon.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--client")) {
+            String[] command = Arrays.copyOfRange(args, 1, args.length);
+            int status = AnalysisDaemon.forward(command);
+            if (status < 0) {
+                run(command, null); // no daemon to run it, do it here
+            } else if (status != 0) {
+                System.exit(status);
+            }
+            return;
+        }
+        run(args, null);
+    }
+
+    // Run one command line; analyzer is the daemon's resident one, or null
+    static void run(String[] args, Analyzer analyzer) throws IOException, InterruptedException {
+        // Stage metrics can be read over JMX whichever mode runs
+        StageMetrics.registerMBeans();
+        // Bulk mode: rank many resumes against many job descriptions
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRanker.main(args);
+            return;
+        }
+        // Watch mode: score resumes and jobs as they are dropped into folders
+        if (args.length > 0 && args[0].equals("--watch")) {
+            WatchDaemon.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--index")) {
+            SkillIndex.main(args);
+            return;
+        }
+        // Best jobs for one resume out of a catalog of postings
+        if (args.length > 0 && args[0].equals("--recommend")) {
+            JobCatalog.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--store")) {
+            FeatureStore.main(args);
+            return;
+        }
+        // Long-running HTTP scoring service, and a client to load test it
+        if (args.length > 0 && args[0].equals("--serve")) {
+            ScoringServer.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--loadtest")) {
+            LoadGenerator.main(args);
+            return;
+        }
+
+        // Single analysis: optional resume and job description paths
+        String resumeFile = args.length > 0 ? args[0] : DEFAULT_RESUME;
+        String jobDescriptionFile = args.length > 1 ? args[1] : DEFAULT_JOB_DESCRIPTION;
+        analyze(resumeFile, jobDescriptionFile, analyzer != null ? analyzer : new Analyzer());
+    }
+
+    private static void analyze(String resumeFile, String jobDescriptionFile, Analyzer analyzer) throws IOException {
         System.out.println("Starting resume analysis...");
         System.out.println("Resume: " + resumeFile);
         System.out.println("Job Description: " + jobDescriptionFile);
         
         // Parse resume
-        ResumeParser parser = new ResumeParser();
-        String resumeText = parser.extractText(resumeFile);
-        
-        if (resumeText.equals("Error extracting text")) {
-            System.err.println("Error: Could not extract text from resume. Please check the file path and format.");
+        ResumeParser parser = analyzer.parser;
+        String resumeText;
+        try {
+            resumeText = parser.extractText(resumeFile);
+        } catch (ExtractionException e) {
+            System.err.println("Error: Could not extract text from resume (" + e.getReason() + "): " + e.getMessage());
             return;
         }
         
@@ -27,8 +101,7 @@ public class Main {
         
         // Match with job description
         System.out.println("\nComparing with job description...");
-        JobMatcher matcher = new JobMatcher();
-        JobMatcher.MatchResult matchResult = matcher.compareWithJob(resumeText, jobDescriptionFile);
+        JobMatcher.MatchResult matchResult = analyzer.matcher.compareWithJob(resumeText, jobDescriptionFile);
         
         System.out.println("Match score: " + String.format("%.2f", matchResult.getScore()) + "%");
         System.out.println("Matched keywords: " + matchResult.getMatchedKeywords());
@@ -36,13 +109,12 @@ public class Main {
         
         // Generate suggestions
         System.out.println("\nGenerating optimization suggestions...");
-        ATSOptimizer optimizer = new ATSOptimizer();
-        String jobDescription = new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(jobDescriptionFile)));
-        String suggestions = optimizer.suggestEnhancements(resumeText, jobDescription, matchResult.getMissingKeywords());
+        String jobDescription = new String(Files.readAllBytes(Paths.get(jobDescriptionFile)));
+        String suggestions = analyzer.optimizer.suggestEnhancements(resumeText, jobDescription,
+                matchResult.getMissingKeywords());
         
         // Generate report
         System.out.println("\nGenerating comprehensive report...");
-        ReportGenerator reportGen = new ReportGenerator();
-        reportGen.generateReport(resumeFile, matchResult, suggestions);
+        analyzer.reportGenerator.generateReport(resumeFile, matchResult, suggestions);
     }
 }
@@ -0,0 +1,260 @@
+import java.util.Arrays;
+
+// Finds resumes whose extracted text is nearly the same as one seen before,
+// so a resume submitted again with small edits can reuse earlier results.
+//
+// Text is cut into shingles of SHINGLE_WORDS consecutive words, and a
+// MinHash signature of NUM_HASHES values estimates the Jaccard similarity of
+// two shingle sets as the share of positions where the signatures agree.
+// Locality-sensitive hashing (LSH) finds the candidates: the signature is cut
+// into bands, and two resumes land in the same bucket of a band when all of
+// the band's values agree, which is likely above the threshold and unlikely
+// below it. A query hashes its bands and only compares signatures with the
+// resumes sharing a bucket, so it stays fast however many resumes are stored.
+//
+// Only the lowest 8 bits of each value are kept for that comparison (b-bit
+// MinHash), which keeps a resume down to NUM_HASHES bytes plus its bucket
+// links; the estimate is corrected for the chance of 8-bit values colliding.
+public class NearDuplicateIndex {
+    public static final int NUM_HASHES = 128;
+    private static final int SHINGLE_WORDS = 5;
+    // Share of resumes at exactly the threshold that LSH must find
+    private static final double MIN_RECALL = 0.98;
+    // Bucket entries looked at per band, newest first; bounds the cost of a
+    // query when a bucket is crowded
+    private static final int MAX_CANDIDATES_PER_BAND = 256;
+
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            SEEDS[i] = mix(seed);
+        }
+    }
+
+    // A resume found to be a near-duplicate
+    public static class Match {
+        private final int id;
+        private final double similarity;
+
+        Match(int id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        // Id add() returned for the stored resume
+        public int getId() {
+            return id;
+        }
+
+        // Estimated Jaccard similarity of the two resumes' shingles
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    private final double threshold;
+    private final int bands;
+    private final int rows;
+
+    private int size;
+    // Low byte of every signature value, NUM_HASHES per resume
+    private byte[] signatures = new byte[NUM_HASHES * 1024];
+    // Per band, an open-addressing table from band hash to the newest resume
+    // in that bucket; next links each resume to the previous one per band
+    private final int[][] bucketKeys;
+    private final int[][] bucketHeads;
+    private final int[] bucketCounts;
+    private int[] next;
+
+    public NearDuplicateIndex(double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("threshold must be in (0, 1]");
+        }
+        this.threshold = threshold;
+        // The most rows per band (fewest false candidates) that still find
+        // resumes at the threshold with MIN_RECALL
+        int bestRows = 1;
+        for (int r = 2; r <= NUM_HASHES; r++) {
+            int b = NUM_HASHES / r;
+            double recall = 1 - Math.pow(1 - Math.pow(threshold, r), b);
+            if (recall >= MIN_RECALL) {
+                bestRows = r;
+            }
+        }
+        this.rows = bestRows;
+        this.bands = NUM_HASHES / bestRows;
+        this.bucketKeys = new int[bands][16];
+        this.bucketHeads = new int[bands][16];
+        this.bucketCounts = new int[bands];
+        this.next = new int[bands * 1024];
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // MinHash signature of a text's word shingles. Words are runs of letters
+    // and digits compared ignoring case, so reflowed lines, punctuation and
+    // capitalization do not change it.
+    public static int[] signature(CharSequence text) {
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, -1);
+        long[] window = new long[SHINGLE_WORDS];
+        int words = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            long word = 0xCBF29CE484222325L; // FNV-1a
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                word = (word ^ Character.toLowerCase(text.charAt(i))) * 0x100000001B3L;
+                i++;
+            }
+            window[words % SHINGLE_WORDS] = word;
+            words++;
+            if (words >= SHINGLE_WORDS) {
+                addShingle(signature, window, words);
+            }
+        }
+        if (words > 0 && words < SHINGLE_WORDS) {
+            // Too short for one full shingle; the words seen form the only one
+            addShingle(signature, window, words);
+        }
+        return signature;
+    }
+
+    // Hash the last min(words, SHINGLE_WORDS) words, oldest first, into the signature
+    private static void addShingle(int[] signature, long[] window, int words) {
+        int count = Math.min(words, SHINGLE_WORDS);
+        long shingle = 0;
+        for (int w = words - count; w < words; w++) {
+            shingle = shingle * 31 + window[w % SHINGLE_WORDS];
+        }
+        shingle = mix(shingle);
+        for (int h = 0; h < NUM_HASHES; h++) {
+            // Unsigned minimum of the top 32 bits of each seeded hash
+            int value = (int) (mix(shingle ^ SEEDS[h]) >>> 32);
+            if (Integer.compareUnsigned(value, signature[h]) < 0) {
+                signature[h] = value;
+            }
+        }
+    }
+
+    // Most similar stored resume at or above the threshold, or null
+    public synchronized Match findNearest(int[] signature) {
+        Match best = null;
+        for (int band = 0; band < bands; band++) {
+            int slot = find(band, bandHash(signature, band));
+            int candidate = bucketKeys[band][slot] == 0 ? -1 : bucketHeads[band][slot];
+            for (int seen = 0; candidate >= 0 && seen < MAX_CANDIDATES_PER_BAND; seen++) {
+                if (best == null || candidate != best.id) {
+                    double similarity = similarity(signature, candidate);
+                    if (similarity >= threshold && (best == null || similarity > best.similarity
+                            || (similarity == best.similarity && candidate < best.id))) {
+                        best = new Match(candidate, similarity);
+                    }
+                }
+                candidate = next[candidate * bands + band];
+            }
+        }
+        return best;
+    }
+
+    // Store a resume's signature; returns its id, counting up from 0
+    public synchronized int add(int[] signature) {
+        int id = size;
+        if ((id + 1) * NUM_HASHES > signatures.length) {
+            signatures = Arrays.copyOf(signatures, signatures.length * 2);
+            next = Arrays.copyOf(next, next.length * 2);
+        }
+        for (int h = 0; h < NUM_HASHES; h++) {
+            signatures[id * NUM_HASHES + h] = (byte) signature[h];
+        }
+        for (int band = 0; band < bands; band++) {
+            if ((bucketCounts[band] + 1) * 2 > bucketKeys[band].length) {
+                growBuckets(band);
+            }
+            int key = bandHash(signature, band);
+            int slot = find(band, key);
+            if (bucketKeys[band][slot] == 0) {
+                bucketKeys[band][slot] = key;
+                bucketCounts[band]++;
+                next[id * bands + band] = -1;
+            } else {
+                next[id * bands + band] = bucketHeads[band][slot];
+            }
+            bucketHeads[band][slot] = id;
+        }
+        size++;
+        return id;
+    }
+
+    // Estimated Jaccard similarity with a stored resume. Two different
+    // 8-bit values still agree one time in 256, which is taken out again.
+    private double similarity(int[] signature, int id) {
+        int base = id * NUM_HASHES;
+        int agree = 0;
+        for (int h = 0; h < NUM_HASHES; h++) {
+            if (signatures[base + h] == (byte) signature[h]) {
+                agree++;
+            }
+        }
+        double collision = 1.0 / 256;
+        return Math.max(0, ((double) agree / NUM_HASHES - collision) / (1 - collision));
+    }
+
+    // Hash of one band's full 32-bit values; never 0, which marks a free slot
+    private int bandHash(int[] signature, int band) {
+        long hash = band;
+        for (int h = band * rows; h < (band + 1) * rows; h++) {
+            hash = mix(hash ^ (signature[h] & 0xFFFFFFFFL));
+        }
+        int key = (int) (hash ^ (hash >>> 32));
+        return key == 0 ? 1 : key;
+    }
+
+    // Slot holding the key, or the free slot where it would go
+    private int find(int band, int key) {
+        int[] keys = bucketKeys[band];
+        int mask = keys.length - 1;
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growBuckets(int band) {
+        int[] oldKeys = bucketKeys[band];
+        int[] oldHeads = bucketHeads[band];
+        bucketKeys[band] = new int[oldKeys.length * 2];
+        bucketHeads[band] = new int[oldKeys.length * 2];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                int moved = find(band, oldKeys[slot]);
+                bucketKeys[band][moved] = oldKeys[slot];
+                bucketHeads[band][moved] = oldHeads[slot];
+            }
+        }
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
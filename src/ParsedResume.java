@@ -0,0 +1,96 @@
+import java.util.List;
+
+// Holds a resume as it moves through the analysis pipeline: the source file,
+// its extracted text and the components the parser found in it
+public class ParsedResume {
+    private final String sourceFile;
+    private final String text;
+    private List<String> skills;
+    private List<String> education;
+    private List<String> experience;
+    private String cacheKey;
+    private ResumeTerms terms;
+    private TermVector tokens;
+
+    public ParsedResume(String sourceFile, String text) {
+        this.sourceFile = sourceFile;
+        this.text = text;
+    }
+
+    public ParsedResume(String sourceFile, String text, List<String> skills,
+                        List<String> education, List<String> experience) {
+        this(sourceFile, text);
+        this.skills = skills;
+        this.education = education;
+        this.experience = experience;
+    }
+
+    // Run the parser's extractors over the text if that has not happened yet
+    public ParsedResume parse(ResumeParser parser) {
+        if (skills == null) {
+            // One taxonomy for all three, even if it is reloaded meanwhile
+            Taxonomy taxonomy = Taxonomy.current();
+            ResumeSections sections = parser.segment(text);
+            skills = parser.extractSkills(text, taxonomy);
+            education = parser.extractEducation(sections, taxonomy);
+            experience = parser.extractExperience(sections, taxonomy);
+            parser.cacheParsed(this, taxonomy);
+        }
+        return this;
+    }
+
+    // Remember which extraction cache entry this resume came from
+    public ParsedResume withCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+        return this;
+    }
+
+    public boolean isParsed() {
+        return skills != null;
+    }
+
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<String> getSkills() {
+        return skills;
+    }
+
+    public List<String> getEducation() {
+        return education;
+    }
+
+    public List<String> getExperience() {
+        return experience;
+    }
+
+    // The parsed components in term form, built on first use
+    public ResumeTerms getTerms() {
+        if (terms == null) {
+            terms = ResumeTerms.of(skills, education, experience);
+        }
+        return terms;
+    }
+
+    // The text's word tokens, built on first use. Building them adds the
+    // resume to the shared corpus statistics, unless the same text is counted
+    // there already. Tokens kept out of a full
+    // dictionary are looked up again when it has gained terms since.
+    public TermVector getTokens() {
+        if (tokens == null) {
+            tokens = TermVector.ofResumeTokens(text, TermDictionary.shared());
+            CorpusStats.shared().addDocument(JobProfile.contentHash(text), tokens);
+        }
+        tokens = tokens.resolve(TermDictionary.shared());
+        return tokens;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+// Memory-bounded PDF text extraction.
+//
+// Files are read through a memory mapping and PDFBox buffers decoded
+// streams in scratch files instead of the heap, so parsing a large document
+// does not grow the heap with it. File size, page count and output length are
+// all capped (see ExtractionLimits), and every failure is reported as a typed
+// ExtractionException.
+//
+// Documents with more pages than one task handles are split into page ranges
+// that are stripped in parallel, each on its own document instance (PDDocument
+// is not thread-safe), and stitched back together in page order.
+public class PdfTextExtractor implements ResumeTextExtractor {
+    // Bump when the text produced changes so stale cache entries are ignored
+    public static final String VERSION = "pdfbox-3.0.4/2";
+    // PDFBox finds the header anywhere in the first kilobyte
+    private static final byte[] HEADER = {'%', 'P', 'D', 'F', '-'};
+
+    private static final ExecutorService PAGE_POOL = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory("pdf-pages"));
+
+    private final ExtractionLimits limits;
+
+    public PdfTextExtractor() {
+        this(ExtractionLimits.defaults());
+    }
+
+    public PdfTextExtractor(ExtractionLimits limits) {
+        this.limits = limits;
+    }
+
+    public ExtractionLimits getLimits() {
+        return limits;
+    }
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean accepts(byte[] head, int length) {
+        for (int start = 0; start + HEADER.length <= length; start++) {
+            int i = 0;
+            while (i < HEADER.length && head[start + i] == HEADER[i]) {
+                i++;
+            }
+            if (i == HEADER.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Opens a fresh reader over the same bytes each time it is called
+    private interface Source {
+        RandomAccessRead open() throws IOException;
+    }
+
+    public String extract(Path file) throws ExtractionException {
+        return extract(file, limits);
+    }
+
+    // Extract from a PDF already in memory, such as an upload; name only labels errors
+    public String extract(byte[] pdf, String name) throws ExtractionException {
+        return extract(pdf, name, limits);
+    }
+
+    @Override
+    public String extract(Path file, ExtractionLimits limits) throws ExtractionException {
+        limits.checkFile(file);
+        return extract(() -> new RandomAccessReadMemoryMappedFile(file), file.toString(), limits);
+    }
+
+    @Override
+    public String extract(byte[] pdf, String name, ExtractionLimits limits) throws ExtractionException {
+        limits.checkSize(pdf.length, name);
+        return extract(() -> new RandomAccessReadBuffer(pdf), name, limits);
+    }
+
+    private static String extract(Source source, String name, ExtractionLimits limits)
+            throws ExtractionException {
+        int pages;
+        try (PDDocument document = open(source)) {
+            pages = document.getNumberOfPages();
+            if (pages > limits.getMaxPages()) {
+                throw new ExtractionException(ExtractionException.Reason.TOO_MANY_PAGES,
+                        name + " has " + pages + " pages (limit " + limits.getMaxPages() + ")");
+            }
+            if (pages <= limits.getPagesPerTask()) {
+                return strip(document, 1, pages, new AtomicLong(limits.getMaxChars()));
+            }
+        } catch (IOException | RuntimeException e) {
+            throw translate(name, e);
+        }
+        return stripInParallel(source, name, pages, limits);
+    }
+
+    private static PDDocument open(Source source) throws IOException {
+        return Loader.loadPDF(source.open(), "", null, null, IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    private static String stripInParallel(Source source, String name, int pages, ExtractionLimits limits)
+            throws ExtractionException {
+        AtomicLong remainingChars = new AtomicLong(limits.getMaxChars());
+        List<Future<String>> ranges = new ArrayList<>();
+        for (int first = 1; first <= pages; first += limits.getPagesPerTask()) {
+            int start = first;
+            int end = Math.min(pages, first + limits.getPagesPerTask() - 1);
+            ranges.add(PAGE_POOL.submit(() -> {
+                try (PDDocument document = open(source)) {
+                    return strip(document, start, end, remainingChars);
+                }
+            }));
+        }
+
+        StringBuilder text = new StringBuilder();
+        try {
+            for (Future<String> range : ranges) {
+                text.append(range.get());
+            }
+            return text.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExtractionException(ExtractionException.Reason.INTERRUPTED,
+                    "Extraction of " + name + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw translate(name, e.getCause());
+        } finally {
+            for (Future<String> range : ranges) {
+                range.cancel(true);
+            }
+        }
+    }
+
+    private static String strip(PDDocument document, int startPage, int endPage, AtomicLong remainingChars)
+            throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        BoundedWriter writer = new BoundedWriter(remainingChars);
+        stripper.writeText(document, writer);
+        return writer.toString();
+    }
+
+    private static ExtractionException translate(String file, Throwable e) {
+        if (e instanceof ExtractionException) {
+            return (ExtractionException) e;
+        }
+        if (e instanceof TextLimitExceededException) {
+            return new ExtractionException(ExtractionException.Reason.TOO_MUCH_TEXT,
+                    file + " produces more text than allowed", e);
+        }
+        if (e instanceof InterruptedIOException) {
+            return new ExtractionException(ExtractionException.Reason.INTERRUPTED,
+                    "Extraction of " + file + " was interrupted", e);
+        }
+        if (e instanceof InvalidPasswordException) {
+            return new ExtractionException(ExtractionException.Reason.ENCRYPTED, file + " is password protected", e);
+        }
+        if (e instanceof NoSuchFileException) {
+            return new ExtractionException(ExtractionException.Reason.NOT_FOUND, "No such file: " + file, e);
+        }
+        return new ExtractionException(ExtractionException.Reason.MALFORMED,
+                "Could not read " + file + " as a PDF: " + e.getMessage(), e);
+    }
+
+    private static class TextLimitExceededException extends IOException {
+        TextLimitExceededException() {
+            super("text limit exceeded");
+        }
+    }
+
+    // Collects stripped text against a character budget shared by every page
+    // range of a document, and gives PDFBox a cancellation point on each write
+    private static class BoundedWriter extends Writer {
+        private final StringBuilder text = new StringBuilder();
+        private final AtomicLong remainingChars;
+
+        BoundedWriter(AtomicLong remainingChars) {
+            this.remainingChars = remainingChars;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("text extraction interrupted");
+            }
+            if (remainingChars.addAndGet(-length) < 0) {
+                throw new TextLimitExceededException();
+            }
+            text.append(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+// Finds phrases in text the way the case-insensitive regex alternation
+// "(?i)(A|B|C)" does, in one pass of a KeywordAutomaton instead of trying
+// every alternative at every position: the earliest match wins, and of the
+// phrases matching at the same position the one listed first. Like (?i)
+// without UNICODE_CASE, only ASCII letters are compared ignoring case.
+//
+// Matches are packed into longs as (start << 32) | phrase, so sorting them
+// gives the order in which the regex would have tried them.
+public class PhraseMatcher {
+    private final KeywordAutomaton automaton;
+
+    public PhraseMatcher(List<String> phrases) {
+        this(new KeywordAutomaton(phrases, true, false));
+    }
+
+    private PhraseMatcher(KeywordAutomaton automaton) {
+        this.automaton = automaton;
+    }
+
+    // Save the compiled matcher; read() restores it without rebuilding
+    public void write(Snapshot.Writer out) throws IOException {
+        automaton.write(out);
+    }
+
+    public static PhraseMatcher read(ByteBuffer in) {
+        return new PhraseMatcher(KeywordAutomaton.read(in));
+    }
+
+    public int size() {
+        return automaton.size();
+    }
+
+    public String phrase(int index) {
+        return automaton.keyword(index);
+    }
+
+    public static int start(long match) {
+        return (int) (match >>> 32);
+    }
+
+    public static int phraseOf(long match) {
+        return (int) match;
+    }
+
+    public int end(long match) {
+        return start(match) + automaton.keyword(phraseOf(match)).length();
+    }
+
+    // Every match in the text, sorted
+    public long[] matches(CharSequence text) {
+        long[][] found = new long[1][8];
+        int[] count = new int[1];
+        automaton.scan(text, (phrase, start, end) -> {
+            // The automaton folds case for all of Unicode; keep only what (?i) matches
+            if (equalsIgnoreAsciiCase(text, start, automaton.keyword(phrase))) {
+                if (count[0] == found[0].length) {
+                    found[0] = Arrays.copyOf(found[0], count[0] * 2);
+                }
+                found[0][count[0]++] = ((long) start << 32) | phrase;
+            }
+        });
+        long[] sorted = Arrays.copyOf(found[0], count[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // The match Matcher.find() would return first, or -1
+    public long find(CharSequence text) {
+        long[] matches = matches(text);
+        return matches.length == 0 ? -1 : matches[0];
+    }
+
+    // The match the last of repeated Matcher.find() calls would return, or -1.
+    // Each search resumes where the previous match ended.
+    public long findLast(CharSequence text) {
+        long last = -1;
+        int from = 0;
+        for (long match : matches(text)) {
+            if (start(match) >= from) {
+                last = match;
+                from = end(match);
+            }
+        }
+        return last;
+    }
+
+    // Matched text of a match
+    public String group(CharSequence text, long match) {
+        return text.subSequence(start(match), end(match)).toString();
+    }
+
+    private static boolean equalsIgnoreAsciiCase(CharSequence text, int start, String phrase) {
+        for (int i = 0; i < phrase.length(); i++) {
+            char a = text.charAt(start + i);
+            char b = phrase.charAt(i);
+            if (a != b && toLowerAscii(a) != toLowerAscii(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Plain text and Markdown resumes, in UTF-8 with or without a byte order mark.
+//
+// Files are decoded straight out of a read-only memory mapping into one
+// character buffer sized by the character cap, so the bytes never pass
+// through the heap. Markdown markup is kept as it is: sections and skills are
+// found by whole words, so "## Experience" and "**Java**" work unchanged.
+public class PlainTextExtractor implements ResumeTextExtractor {
+    // Bump when the text produced changes so stale cache entries are ignored
+    public static final String VERSION = "text/1";
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    // Valid UTF-8 without NUL bytes; a sequence cut off by the end of the
+    // head is fine, as the rest may follow
+    @Override
+    public boolean accepts(byte[] head, int length) {
+        int i = 0;
+        while (i < length) {
+            int b = head[i] & 0xFF;
+            int continuation;
+            if (b == 0) {
+                return false;
+            } else if (b < 0x80) {
+                continuation = 0;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return false;
+            }
+            for (int c = 1; c <= continuation && i + c < length; c++) {
+                if ((head[i + c] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+
+    @Override
+    public String extract(Path file, ExtractionLimits limits) throws ExtractionException {
+        long size = limits.checkFile(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), file.toString(), limits);
+        } catch (NoSuchFileException e) {
+            throw new ExtractionException(ExtractionException.Reason.NOT_FOUND, "No such file: " + file, e);
+        } catch (ClosedByInterruptException e) {
+            throw new ExtractionException(ExtractionException.Reason.INTERRUPTED,
+                    "Extraction of " + file + " was interrupted", e);
+        } catch (ExtractionException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new ExtractionException(ExtractionException.Reason.IO_ERROR, "Cannot read " + file, e);
+        }
+    }
+
+    @Override
+    public String extract(byte[] content, String name, ExtractionLimits limits) throws ExtractionException {
+        limits.checkSize(content.length, name);
+        return decode(ByteBuffer.wrap(content), name, limits);
+    }
+
+    private static String decode(ByteBuffer bytes, String name, ExtractionLimits limits)
+            throws ExtractionException {
+        if (bytes.remaining() >= 3 && bytes.get(bytes.position()) == (byte) 0xEF
+                && bytes.get(bytes.position() + 1) == (byte) 0xBB && bytes.get(bytes.position() + 2) == (byte) 0xBF) {
+            bytes.position(bytes.position() + 3);
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        // UTF-8 never decodes to more characters than it has bytes
+        CharBuffer text = CharBuffer.allocate((int) Math.min(bytes.remaining(), (long) limits.getMaxChars()));
+        CoderResult result = decoder.decode(bytes, text, true);
+        if (!result.isError() && !result.isOverflow()) {
+            result = decoder.flush(text);
+        }
+        if (result.isOverflow()) {
+            throw new ExtractionException(ExtractionException.Reason.TOO_MUCH_TEXT,
+                    name + " produces more text than allowed");
+        }
+        if (result.isError()) {
+            throw new ExtractionException(ExtractionException.Reason.MALFORMED,
+                    name + " is not valid UTF-8 text");
+        }
+        text.flip();
+        return text.toString();
+    }
+}
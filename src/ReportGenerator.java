@@ -1,74 +1,91 @@
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class ReportGenerator {
+    private static final DateTimeFormatter GENERATED_ON = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final char FILLED_BLOCK = '█';
+    private static final char EMPTY_BLOCK = '░';
+
     public void generateReport(String resumeFile, JobMatcher.MatchResult matchResult, String suggestions) throws IOException {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
-        String reportFile = "data/report_" + timestamp + ".txt";
-        
-        FileWriter writer = new FileWriter(reportFile);
-        
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.GENERATE_REPORT, suggestions.length())) {
+            writeReport(resumeFile, matchResult, suggestions);
+            span.succeeded();
+        }
+    }
+
+    private void writeReport(String resumeFile, JobMatcher.MatchResult matchResult, String suggestions) throws IOException {
+        // A new file per report, never one another run is writing
+        ReportSink sink = ReportSink.createUnique(Paths.get("data"), "report_", ReportSink.Format.TEXT, false);
+        try (ReportSink report = sink) {
+            report.write(resumeFile, null, matchResult, suggestions);
+        }
+        System.out.println("Detailed Report Generated: " + sink.getFile());
+    }
+
+    // The text report for one result; job may be null when it is not known
+    static void formatReport(StringBuilder out, String resumeFile, String job, JobMatcher.MatchResult matchResult,
+                             String suggestions, LocalDateTime generatedOn) {
         // Add header with timestamp
-        writer.write("=======================================================\n");
-        writer.write("                ATS COMPATIBILITY REPORT               \n");
-        writer.write("=======================================================\n\n");
-        writer.write("Generated on: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
-        writer.write("Resume File: " + resumeFile + "\n\n");
+        out.append("=======================================================\n");
+        out.append("                ATS COMPATIBILITY REPORT               \n");
+        out.append("=======================================================\n\n");
+        out.append("Generated on: ").append(generatedOn.format(GENERATED_ON)).append("\n");
+        out.append("Resume File: ").append(resumeFile).append("\n");
+        if (job != null) {
+            out.append("Job Description: ").append(job).append("\n");
+        }
+        out.append("\n");
         
         // Format score with 2 decimal places and add visual representation
         double score = matchResult.getScore();
-        writer.write("JOB MATCH SCORE: " + String.format("%.2f", score) + "%\n");
+        out.append("JOB MATCH SCORE: ").append(String.format("%.2f", score)).append("%\n");
         
         // Visual representation of score
-        writer.write("[");
+        out.append("[");
         int filledBlocks = (int) (score / 5); // Each block represents 5%
         for (int i = 0; i < 20; i++) {
-            if (i < filledBlocks) {
-                writer.write("█");
-            } else {
-                writer.write("░");
-            }
+            out.append(i < filledBlocks ? FILLED_BLOCK : EMPTY_BLOCK);
         }
-        writer.write("]\n\n");
+        out.append("]\n\n");
         
         // Score interpretation
-        writer.write("Score Interpretation:\n");
+        out.append("Score Interpretation:\n");
         if (score >= 80) {
-            writer.write("Excellent match! Your resume is well-aligned with the job requirements.\n");
+            out.append("Excellent match! Your resume is well-aligned with the job requirements.\n");
         } else if (score >= 60) {
-            writer.write("Good match. With a few improvements, your resume could be more competitive.\n");
+            out.append("Good match. With a few improvements, your resume could be more competitive.\n");
         } else if (score >= 40) {
-            writer.write("Average match. Consider implementing the suggested improvements to increase your chances.\n");
+            out.append("Average match. Consider implementing the suggested improvements to increase your chances.\n");
         } else {
-            writer.write("Below average match. Significant improvements may be needed to align with this job.\n");
+            out.append("Below average match. Significant improvements may be needed to align with this job.\n");
         }
-        writer.write("\n");
+        out.append("\n");
         
         // Matched keywords
         List<String> matchedKeywords = matchResult.getMatchedKeywords();
-        writer.write("MATCHED KEYWORDS (" + matchedKeywords.size() + "):\n");
+        out.append("MATCHED KEYWORDS (").append(matchedKeywords.size()).append("):\n");
         if (!matchedKeywords.isEmpty()) {
             for (String keyword : matchedKeywords) {
-                writer.write("✓ " + keyword + "\n");
+                out.append("✓ ").append(keyword).append("\n");
             }
         } else {
-            writer.write("No keywords matched.\n");
+            out.append("No keywords matched.\n");
         }
-        writer.write("\n");
+        out.append("\n");
         
         // Add suggestions section
-        writer.write("=======================================================\n");
-        writer.write(suggestions);
-        writer.write("\n=======================================================\n");
-        writer.write("NEXT STEPS:\n");
-        writer.write("1. Update your resume based on the suggestions above\n");
-        writer.write("2. Run the analysis again to verify improvements\n");
-        writer.write("3. Tailor your resume for each specific job application\n");
-        
-        writer.close();
-        System.out.println("Detailed Report Generated: " + reportFile);
+        if (suggestions != null) {
+            out.append("=======================================================\n");
+            out.append(suggestions);
+            out.append("\n");
+        }
+        out.append("=======================================================\n");
+        out.append("NEXT STEPS:\n");
+        out.append("1. Update your resume based on the suggestions above\n");
+        out.append("2. Run the analysis again to verify improvements\n");
+        out.append("3. Tailor your resume for each specific job application\n");
     }
 }
@@ -0,0 +1,308 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Streams analysis results into one report file.
+//
+// A sink writes the classic text report, JSON Lines (one object per result)
+// or CSV, optionally gzip-compressed, through a large buffer. Records are
+// formatted by the calling thread before the sink's lock is taken, so many
+// scoring threads can share one sink. A background thread flushes every sink
+// once a second, so a file being written can be followed and a crash loses at
+// most the last second of results.
+//
+// Files are always created new, never overwritten. createUnique names them
+// after the current time to the millisecond and adds a counter if that name is
+// already taken, so runs in parallel, even in different processes, never
+// collide.
+public class ReportSink implements Closeable {
+
+    public enum Format {
+        TEXT(".txt"),
+        JSONL(".jsonl"),
+        CSV(".csv");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        // The format a file name's extension asks for, ignoring a trailing .gz
+        public static Format forFile(String fileName) {
+            String name = stripGzip(fileName.toLowerCase(Locale.ROOT));
+            for (Format format : values()) {
+                if (name.endsWith(format.extension)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown report format for " + fileName
+                    + " (use .txt, .jsonl or .csv, optionally followed by .gz)");
+        }
+    }
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+    private static final String CSV_HEADER = "resume,job,score,matched,missing,suggestions\n";
+
+    private static final ScheduledThreadPoolExecutor FLUSHER = newFlusher();
+
+    private final Path file;
+    private final Format format;
+    private final FileChannel channel;
+    private final Writer writer;
+    private final ScheduledFuture<?> flushTask;
+    private long records;
+    private boolean closed;
+    // First failure of a background flush, reported by the next write or close
+    private IOException flushFailure;
+
+    private ReportSink(Path file, Format format, FileChannel channel, boolean gzip) throws IOException {
+        this.file = file;
+        this.format = format;
+        this.channel = channel;
+        OutputStream out = Channels.newOutputStream(channel);
+        OutputStream stream = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : out;
+        this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        this.flushTask = FLUSHER.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MILLIS,
+                FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // A new file, with the format and compression taken from its name
+    // (e.g. results.jsonl.gz); fails if the file already exists
+    public static ReportSink open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        return create(file, Format.forFile(name), name.toLowerCase(Locale.ROOT).endsWith(GZIP_EXTENSION));
+    }
+
+    // A new file; fails if it already exists
+    public static ReportSink create(Path file, Format format, boolean gzip) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            return new ReportSink(file, format, channel, gzip);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // A new file in directory named <prefix><timestamp>[-n]<extension>
+    public static ReportSink createUnique(Path directory, String prefix, Format format, boolean gzip)
+            throws IOException {
+        Files.createDirectories(directory);
+        String base = prefix + LocalDateTime.now().format(FILE_TIMESTAMP);
+        String extension = format.getExtension() + (gzip ? GZIP_EXTENSION : "");
+        for (int attempt = 1; ; attempt++) {
+            Path file = directory.resolve(attempt == 1 ? base + extension : base + "-" + attempt + extension);
+            try {
+                return create(file, format, gzip);
+            } catch (FileAlreadyExistsException e) {
+                // another run got this name first; try the next one
+            }
+        }
+    }
+
+    // A new file named after the given one with a timestamp before its
+    // extension (results.jsonl.gz -> results_<timestamp>.jsonl.gz), for a
+    // process that reopens the same report path every time it starts
+    public static ReportSink createUnique(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Format format = Format.forFile(name);
+        boolean gzip = name.toLowerCase(Locale.ROOT).endsWith(GZIP_EXTENSION);
+        int extension = format.getExtension().length() + (gzip ? GZIP_EXTENSION.length() : 0);
+        Path parent = file.toAbsolutePath().getParent();
+        return createUnique(parent, name.substring(0, name.length() - extension) + "_", format, gzip);
+    }
+
+    private static ScheduledThreadPoolExecutor newFlusher() {
+        ScheduledThreadPoolExecutor flusher = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("report-flush"));
+        // Short-lived sinks (one report per analysis) must not leave their
+        // cancelled flush tasks queued behind them
+        flusher.setRemoveOnCancelPolicy(true);
+        return flusher;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    // Write one result; job and suggestions may be null when there are none
+    public void write(String resumeFile, String job, JobMatcher.MatchResult result, String suggestions)
+            throws IOException {
+        String record = format(resumeFile, job, result, suggestions);
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Report " + file + " is closed");
+            }
+            checkFlushFailure();
+            if (format == Format.TEXT && records > 0) {
+                writer.write('\n'); // blank line between reports
+            }
+            writer.write(record);
+            records++;
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            writer.flush();
+        }
+    }
+
+    // Flush, and wait until everything written so far is on disk
+    public synchronized void sync() throws IOException {
+        if (!closed) {
+            writer.flush();
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushTask.cancel(false);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writer.close();
+            checkFlushFailure();
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            if (flushFailure == null) {
+                flushFailure = e;
+            }
+        }
+    }
+
+    private void checkFlushFailure() throws IOException {
+        if (flushFailure != null) {
+            throw new IOException("Writing report " + file + " failed", flushFailure);
+        }
+    }
+
+    private String format(String resumeFile, String job, JobMatcher.MatchResult result, String suggestions) {
+        switch (format) {
+            case JSONL:
+                return jsonLine(resumeFile, job, result, suggestions);
+            case CSV:
+                return csvLine(resumeFile, job, result, suggestions);
+            default:
+                StringBuilder text = new StringBuilder(2048);
+                ReportGenerator.formatReport(text, resumeFile, job, result, suggestions, LocalDateTime.now());
+                return text.toString();
+        }
+    }
+
+    private static String jsonLine(String resumeFile, String job, JobMatcher.MatchResult result, String suggestions) {
+        Json json = new Json().beginObject().field("resume", resumeFile);
+        if (job != null) {
+            json.field("job", job);
+        }
+        json.field("score", result.getScore())
+                .field("matchedKeywords", result.getMatchedKeywords())
+                .field("missingKeywords", result.getMissingKeywords());
+        if (suggestions != null) {
+            json.field("suggestions", suggestions);
+        }
+        return json.endObject().toString() + "\n";
+    }
+
+    private static String csvLine(String resumeFile, String job, JobMatcher.MatchResult result, String suggestions) {
+        StringBuilder line = new StringBuilder(256);
+        csvField(line, resumeFile).append(',');
+        csvField(line, job).append(',');
+        appendTwoDecimals(line, result.getScore()).append(',');
+        csvField(line, joined(result.getMatchedKeywords())).append(',');
+        csvField(line, joined(result.getMissingKeywords())).append(',');
+        csvField(line, suggestions);
+        return line.append('\n').toString();
+    }
+
+    // Same digits as "%.2f", which rounds the shortest decimal form of the
+    // value half up, without creating a Formatter per record
+    private static StringBuilder appendTwoDecimals(StringBuilder line, double value) {
+        if (!Double.isFinite(value)) {
+            return line.append(String.format(Locale.ROOT, "%.2f", value));
+        }
+        return line.append(new BigDecimal(Double.toString(value)).setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    private static String joined(List<String> values) {
+        return String.join("; ", values);
+    }
+
+    // RFC 4180: quote fields holding separators, quotes or line breaks
+    private static StringBuilder csvField(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private static String stripGzip(String name) {
+        return name.endsWith(GZIP_EXTENSION) ? name.substring(0, name.length() - GZIP_EXTENSION.length()) : name;
+    }
+}
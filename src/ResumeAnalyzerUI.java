@@ -2,17 +2,27 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ResumeAnalyzerUI extends JFrame {
     private JTextField resumePathField;
     private JTextField jobDescPathField;
     private JTextArea resultArea;
     private JButton analyzeButton;
+    private JButton cancelButton;
     private JButton browseResumeButton;
     private JButton browseJobButton;
+    private JProgressBar progressBar;
+
+    // Analyses run here, one at a time, so the Event Dispatch Thread stays responsive
+    private final ExecutorService analysisExecutor =
+            Executors.newSingleThreadExecutor(new DaemonThreadFactory("analysis"));
+    private AnalysisWorker worker;
 
     public ResumeAnalyzerUI() {
         setTitle("Resume Analyzer");
@@ -21,6 +31,7 @@ public class ResumeAnalyzerUI extends JFrame {
         setLocationRelativeTo(null);
 
         initComponents();
+        StageMetrics.registerMBeans();
         layoutComponents();
     }
 
@@ -32,6 +43,11 @@ public class ResumeAnalyzerUI extends JFrame {
         resultArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         
         analyzeButton = new JButton("Analyze Resume");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
         browseResumeButton = new JButton("Browse...");
         browseJobButton = new JButton("Browse...");
 
@@ -47,6 +63,16 @@ public class ResumeAnalyzerUI extends JFrame {
             }
         });
 
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (worker != null) {
+                    // Interrupts the worker thread, which aborts text extraction
+                    worker.cancel(true);
+                }
+            }
+        });
+
         browseResumeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -108,11 +134,19 @@ public class ResumeAnalyzerUI extends JFrame {
         gbc.weightx = 0;
         inputPanel.add(browseJobButton, gbc);
 
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        buttonPanel.add(analyzeButton);
+        buttonPanel.add(cancelButton);
+
         gbc.gridx = 0;
         gbc.gridy = 2;
         gbc.gridwidth = 3;
         gbc.fill = GridBagConstraints.CENTER;
-        inputPanel.add(analyzeButton, gbc);
+        inputPanel.add(buttonPanel, gbc);
+
+        gbc.gridy = 3;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        inputPanel.add(progressBar, gbc);
 
         mainPanel.add(inputPanel, BorderLayout.NORTH);
 
@@ -133,58 +167,176 @@ public class ResumeAnalyzerUI extends JFrame {
             return;
         }
 
-        try {
-            resultArea.setText("Analyzing resume...\n");
-            
+        resultArea.setText("");
+        analyzeButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        worker = new AnalysisWorker(resumePath, jobDescPath);
+        worker.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                progressBar.setValue((Integer) event.getNewValue());
+            } else if ("stage".equals(event.getPropertyName())) {
+                progressBar.setString((String) event.getNewValue());
+            }
+        });
+        analysisExecutor.execute(worker);
+    }
+
+    // Runs the analysis pipeline off the Event Dispatch Thread and publishes
+    // each stage's output as soon as the stage finishes. SwingWorker coalesces
+    // publish() calls, so process() appends whatever text has accumulated in
+    // one go instead of touching the text area once per line.
+    private class AnalysisWorker extends SwingWorker<Void, String> {
+        private static final int STAGES = 7;
+
+        private final String resumePath;
+        private final String jobDescPath;
+        private final StringBuilder timings = new StringBuilder();
+        private int completedStages;
+        // Read on the EDT when the analysis ends
+        private volatile String stage = "Starting";
+        private volatile boolean failed;
+        private long stageStart;
+
+        AnalysisWorker(String resumePath, String jobDescPath) {
+            this.resumePath = resumePath;
+            this.jobDescPath = jobDescPath;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            publish("Analyzing resume...\n");
+
             // Parse resume
+            beginStage("Extracting text");
             ResumeParser parser = new ResumeParser();
-            String resumeText = parser.extractText(resumePath);
-            
-            if (resumeText.equals("Error extracting text")) {
-                resultArea.append("Error: Could not extract text from resume. Please check the file path and format.\n");
-                return;
+            String resumeText;
+            try {
+                resumeText = parser.extractText(resumePath);
+            } catch (ExtractionException e) {
+                if (e.getReason() != ExtractionException.Reason.INTERRUPTED) {
+                    failed = true;
+                    publish("Error: Could not extract text from resume (" + e.getReason() + "): "
+                            + e.getMessage() + "\n");
+                }
+                return null;
             }
-            
+            if (!endStage("Extracted " + resumeText.length() + " characters of text\n")) {
+                return null;
+            }
+
             // Extract resume components
-            resultArea.append("\nExtracted skills from resume:\n");
-            resultArea.append(String.join(", ", parser.extractSkills(resumeText)) + "\n");
-            
-            resultArea.append("\nExtracted education:\n");
-            resultArea.append(String.join(", ", parser.extractEducation(resumeText)) + "\n");
-            
-            resultArea.append("\nExtracted experience:\n");
-            resultArea.append(String.join(", ", parser.extractExperience(resumeText)) + "\n");
-            
+            beginStage("Extracting skills");
+            List<String> skills = parser.extractSkills(resumeText);
+            if (!endStage("\nExtracted skills from resume:\n" + String.join(", ", skills) + "\n")) {
+                return null;
+            }
+
+            beginStage("Extracting education");
+            ResumeSections sections = parser.segment(resumeText);
+            List<String> education = parser.extractEducation(sections);
+            if (!endStage("\nExtracted education:\n" + String.join(", ", education) + "\n")) {
+                return null;
+            }
+
+            beginStage("Extracting experience");
+            List<String> experience = parser.extractExperience(sections);
+            if (!endStage("\nExtracted experience:\n" + String.join(", ", experience) + "\n")) {
+                return null;
+            }
+
             // Match with job description
-            resultArea.append("\nComparing with job description...\n");
+            beginStage("Comparing with job description");
+            String jobDescription = new String(Files.readAllBytes(Paths.get(jobDescPath)));
             JobMatcher matcher = new JobMatcher();
-            JobMatcher.MatchResult matchResult = matcher.compareWithJob(resumeText, jobDescPath);
-            
-            resultArea.append("\nMatch score: " + String.format("%.2f", matchResult.getScore()) + "%\n");
-            resultArea.append("\nMatched keywords:\n");
-            resultArea.append(String.join("\n", matchResult.getMatchedKeywords()) + "\n");
-            
-            resultArea.append("\nMissing important keywords:\n");
-            resultArea.append(String.join("\n", matchResult.getMissingKeywords()) + "\n");
-            
+            JobMatcher.MatchResult matchResult = matcher.calculateMatchScore(skills, education, experience,
+                    jobDescription);
+            StringBuilder matchOutput = new StringBuilder();
+            matchOutput.append("\nMatch score: ").append(String.format("%.2f", matchResult.getScore())).append("%\n");
+            matchOutput.append("\nMatched keywords:\n");
+            matchOutput.append(String.join("\n", matchResult.getMatchedKeywords())).append("\n");
+            matchOutput.append("\nMissing important keywords:\n");
+            matchOutput.append(String.join("\n", matchResult.getMissingKeywords())).append("\n");
+            if (!endStage(matchOutput.toString())) {
+                return null;
+            }
+
             // Generate suggestions
-            resultArea.append("\nGenerating optimization suggestions...\n");
+            beginStage("Generating suggestions");
             ATSOptimizer optimizer = new ATSOptimizer();
-            String jobDescription = new String(Files.readAllBytes(Paths.get(jobDescPath)));
-            String suggestions = optimizer.suggestEnhancements(resumeText, jobDescription, matchResult.getMissingKeywords());
-            resultArea.append("\n" + suggestions + "\n");
-            
+            String suggestions = optimizer.suggestEnhancements(resumeText, jobDescription,
+                    matchResult.getMissingKeywords());
+            if (!endStage("\n" + suggestions + "\n")) {
+                return null;
+            }
+
             // Generate report
-            resultArea.append("\nGenerating comprehensive report...\n");
+            beginStage("Writing report");
             ReportGenerator reportGen = new ReportGenerator();
             reportGen.generateReport(resumePath, matchResult, suggestions);
-            resultArea.append("\nReport generated in the 'data' folder.\n");
-            
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            resultArea.append("\nError during analysis: " + ex.getMessage() + "\n");
-            JOptionPane.showMessageDialog(this, "Error during analysis: " + ex.getMessage(), 
-                                         "Error", JOptionPane.ERROR_MESSAGE);
+            if (!endStage("\nReport generated in the 'data' folder.\n")) {
+                return null;
+            }
+
+            publish("\nStage timings:\n" + timings);
+            return null;
+        }
+
+        private void beginStage(String name) {
+            String previous = stage;
+            stage = name;
+            firePropertyChange("stage", previous, name + "...");
+            stageStart = System.nanoTime();
+        }
+
+        // Publish a finished stage's output and record its time. Returns false
+        // if the analysis has been cancelled and should stop here.
+        private boolean endStage(String output) {
+            long millis = (System.nanoTime() - stageStart) / 1_000_000;
+            timings.append(String.format("  %-32s %6d ms%n", stage, millis));
+            completedStages++;
+            setProgress(completedStages * 100 / STAGES);
+            if (isCancelled()) {
+                return false;
+            }
+            publish(output);
+            return true;
+        }
+
+        @Override
+        protected void process(List<String> chunks) {
+            if (isCancelled()) {
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (String chunk : chunks) {
+                text.append(chunk);
+            }
+            resultArea.append(text.toString());
+        }
+
+        @Override
+        protected void done() {
+            analyzeButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            worker = null;
+            if (isCancelled()) {
+                resultArea.append("\nAnalysis cancelled during: " + stage + "\n");
+                progressBar.setString("Cancelled");
+                return;
+            }
+            try {
+                get();
+                progressBar.setString(failed ? "Failed" : "Done");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Throwable ex = e.getCause();
+                ex.printStackTrace();
+                progressBar.setString("Failed");
+                resultArea.append("\nError during analysis: " + ex.getMessage() + "\n");
+                JOptionPane.showMessageDialog(ResumeAnalyzerUI.this, "Error during analysis: " + ex.getMessage(),
+                                             "Error", JOptionPane.ERROR_MESSAGE);
+            }
         }
     }
 
@@ -1,250 +1,407 @@
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 
 public class ResumeParser {
+    // Bump when extractSkills, extractEducation or extractExperience output changes
+    public static final int PARSER_VERSION = 2;
 
-    // Extract text from the resume PDF
-    public String extractText(String filePath) {
-        try (PDDocument document = Loader.loadPDF(new File(filePath))) {
-            PDFTextStripper pdfStripper = new PDFTextStripper();
-            return pdfStripper.getText(document);
+    private final ExtractionCache cache;
+    private final ResumeTextExtractors extractors;
+
+    public ResumeParser() {
+        this(ExtractionCache.shared());
+    }
+
+    // Use the given extraction cache, or none if null
+    public ResumeParser(ExtractionCache cache) {
+        this(cache, new ResumeTextExtractors());
+    }
+
+    public ResumeParser(ExtractionCache cache, ResumeTextExtractors extractors) {
+        this.cache = cache;
+        this.extractors = extractors;
+    }
+
+    // Extract text from the resume file (PDF, DOCX, plain text or Markdown)
+    public String extractText(String filePath) throws ExtractionException {
+        try {
+            return readResume(filePath).getText();
+        } catch (ExtractionException e) {
+            throw e;
         } catch (IOException e) {
-            e.printStackTrace();
-            return "Error extracting text";
+            throw new ExtractionException(ExtractionException.Reason.IO_ERROR,
+                    "Cannot read " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Extract a resume's text, going through the extraction cache when one is
+    // configured. A cache hit skips extraction and may also carry the parsed components.
+    public ParsedResume readResume(String filePath) throws IOException {
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.EXTRACT_TEXT, 0)) {
+            try {
+                // Reject missing or oversized files before spending time on them
+                Path file = Paths.get(filePath);
+                span.setSize(extractors.getLimits().checkFile(file));
+                ResumeTextExtractor extractor = extractors.forFile(file);
+                ParsedResume resume;
+                if (cache == null) {
+                    resume = new ParsedResume(filePath, extractor.extract(file, extractors.getLimits()));
+                } else {
+                    String key = ExtractionCache.keyFor(file, extractor.getVersion());
+                    resume = readCached(filePath, key, () -> extractor.extract(file, extractors.getLimits()));
+                }
+                span.succeeded();
+                return resume;
+            } catch (ExtractionException e) {
+                span.failed(e.getReason().name());
+                throw e;
+            }
+        }
+    }
+
+    // Same for a resume held in memory, such as an upload; name labels it
+    public ParsedResume readResume(byte[] content, String name) throws IOException {
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.EXTRACT_TEXT, content.length)) {
+            try {
+                extractors.getLimits().checkSize(content.length, name);
+                ResumeTextExtractor extractor = extractors.forContent(content, name);
+                ParsedResume resume;
+                if (cache == null) {
+                    resume = new ParsedResume(name, extractor.extract(content, name, extractors.getLimits()));
+                } else {
+                    String key = ExtractionCache.keyFor(content, extractor.getVersion());
+                    resume = readCached(name, key, () -> extractor.extract(content, name, extractors.getLimits()));
+                }
+                span.succeeded();
+                return resume;
+            } catch (ExtractionException e) {
+                span.failed(e.getReason().name());
+                throw e;
+            }
+        }
+    }
+
+    private interface TextLoader {
+        String load() throws ExtractionException;
+    }
+
+    private ParsedResume readCached(String name, String key, TextLoader loader) throws ExtractionException {
+        ExtractionCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            ParsedResume resume = entry.hasParsed(parserVersion(Taxonomy.current()))
+                    ? new ParsedResume(name, entry.getText(), entry.getSkills(), entry.getEducation(),
+                                       entry.getExperience())
+                    : new ParsedResume(name, entry.getText());
+            return resume.withCacheKey(key);
         }
+
+        String text = loader.load();
+        cache.put(key, new ExtractionCache.Entry(text, PARSER_VERSION, null, null, null));
+        return new ParsedResume(name, text).withCacheKey(key);
+    }
+
+    // Store freshly parsed components next to the cached text, tagged with
+    // the taxonomy they were found with
+    void cacheParsed(ParsedResume resume, Taxonomy taxonomy) {
+        if (cache != null && resume.getCacheKey() != null) {
+            cache.put(resume.getCacheKey(), new ExtractionCache.Entry(resume.getText(), parserVersion(taxonomy),
+                    resume.getSkills(), resume.getEducation(), resume.getExperience()));
+        }
+    }
+
+    // Version cached components carry: a change to the parser or to the
+    // taxonomy makes earlier results stale
+    private static int parserVersion(Taxonomy taxonomy) {
+        return 31 * PARSER_VERSION + taxonomy.getHash().hashCode();
+    }
+
+    // Extraction cache key of a resume file, the same one readResume uses
+    public String cacheKeyFor(Path file) throws IOException {
+        return ExtractionCache.keyFor(file, extractors.forFile(file).getVersion());
     }
 
     // Extract skills dynamically from resume text
     public List<String> extractSkills(String resumeText) {
-        List<String> skills = new ArrayList<>();
-        
-        // Common technical skill patterns
-        Pattern techPattern = Pattern.compile("\\b(Java|Python|C\\+\\+|JavaScript|React|Angular|Vue|Node\\.js|Express|Spring|Hibernate|SQL|NoSQL|MongoDB|MySQL|PostgreSQL|AWS|Azure|GCP|Docker|Kubernetes|CI/CD|Jenkins|Git|REST|SOAP|Microservices|Machine Learning|AI|Data Science|TensorFlow|PyTorch|NLP|Computer Vision|Agile|Scrum|DevOps|HTML|CSS|XML|JSON)\\b");
-        
-        // Software/frameworks pattern
-        Pattern frameworkPattern = Pattern.compile("\\b(Spring Boot|Django|Flask|Laravel|ASP\\.NET|Ruby on Rails|Symfony|Bootstrap|JUnit|Mockito|Selenium|Cypress|Jest|Mocha|Chai)\\b");
-        
-        // Concepts pattern
-        Pattern conceptPattern = Pattern.compile("\\b(Object-Oriented Programming|OOP|Functional Programming|Data Structures|Algorithms|Design Patterns|MVC|MVVM|REST API|GraphQL|SOLID|Clean Code|TDD|BDD|Multithreading|Concurrency|Parallel Computing|Distributed Systems|Cloud Computing|Serverless|Blockchain)\\b");
-        
-        // Extract skills using patterns
-        addMatchesToList(techPattern.matcher(resumeText), skills);
-        addMatchesToList(frameworkPattern.matcher(resumeText), skills);
-        addMatchesToList(conceptPattern.matcher(resumeText), skills);
-        
-        return skills;
+        return extractSkills(resumeText, Taxonomy.current());
     }
-    
-    private void addMatchesToList(Matcher matcher, List<String> list) {
-        Set<String> uniqueMatches = new HashSet<>(); // To avoid duplicates
-        while (matcher.find()) {
-            uniqueMatches.add(matcher.group());
+
+    List<String> extractSkills(String resumeText, Taxonomy taxonomy) {
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.EXTRACT_SKILLS, resumeText.length())) {
+            List<String> skills = taxonomy.getSkillMatcher().findSkills(resumeText);
+            span.succeeded();
+            return skills;
         }
-        list.addAll(uniqueMatches);
     }
-    
+
+    // The skill dictionary as a matcher, for callers that track skills themselves
+    static SkillMatcher skillMatcher() {
+        return Taxonomy.current().getSkillMatcher();
+    }
+
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    // Split resume text into typed sections (education, experience, skills, ...)
+    public ResumeSections segment(String resumeText) {
+        return SectionSegmenter.segment(resumeText);
+    }
+
     // Extract education information
     public List<String> extractEducation(String resumeText) {
-        List<String> education = new ArrayList<>();
-        
-        // Define the education section pattern
-        Pattern eduSectionPattern = Pattern.compile("(?i)\\bEDUCATION\\b[\\s\\S]*?(?=\\b(WORK|EXPERIENCE|SKILLS|PROJECTS|HONORS|AWARDS|ACTIVITIES|RESEARCH)\\b|$)");
-        Matcher sectionMatcher = eduSectionPattern.matcher(resumeText);
-        
-        if (sectionMatcher.find()) {
-            String educationSection = sectionMatcher.group().trim();
-            
-            // First, try to extract specific degree information
-            Pattern degreePattern = Pattern.compile("(?i)(Bachelor|Master|PhD|B\\.Tech|M\\.Tech|MBA|B\\.S\\.|M\\.S\\.|B\\.A\\.|M\\.A\\.|B\\.E\\.).{0,20}?(of|in)\\s.{0,100}?(Engineering|Science|Computer Science|Information Technology|Technology)");
-            Matcher degreeMatcher = degreePattern.matcher(educationSection);
-            
-            if (degreeMatcher.find()) {
-                String degree = degreeMatcher.group().trim();
-                // Remove any line breaks within the degree
-                degree = degree.replaceAll("\\s+", " ").trim();
-                education.add(degree);
-                return education;
-            }
-            
-            // If no specific degree found, take the most relevant line
-            String[] lines = educationSection.split("\n");
-            for (int i = 1; i < lines.length; i++) { // Start from 1 to skip the "EDUCATION" header
-                String line = lines[i].trim();
-                if (!line.isEmpty() && 
-                    (line.contains("Bachelor") || 
-                     line.contains("Master") || 
-                     line.contains("B.Tech") || 
-                     line.contains("Computer Science") || 
-                     line.contains("Engineering"))) {
-                    education.add(line);
-                    return education;
-                }
+        return extractEducation(segment(resumeText));
+    }
+
+    public List<String> extractEducation(ResumeSections sections) {
+        return extractEducation(sections, Taxonomy.current());
+    }
+
+    List<String> extractEducation(ResumeSections sections, Taxonomy taxonomy) {
+        String text = sections.getText();
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.EXTRACT_EDUCATION, text.length())) {
+            List<String> education = new ArrayList<>();
+            String educationSection = sections.sectionText(ResumeSections.Type.EDUCATION);
+            String entry = educationSection == null ? null : educationFromSection(educationSection, taxonomy);
+            if (entry == null) {
+                // If all else fails, search for degree information anywhere in the text
+                entry = educationAnywhere(text, taxonomy);
             }
-            
-            // If still no match, take the first non-empty line after the header
-            for (int i = 1; i < lines.length; i++) {
-                String line = lines[i].trim();
-                if (!line.isEmpty() && !line.equalsIgnoreCase("EDUCATION")) {
-                    education.add(line);
-                    return education;
-                }
+            if (entry != null) {
+                education.add(entry);
             }
+            span.succeeded();
+            return education;
         }
+    }
+
+    // The first degree mentioned anywhere in the text, or null
+    String educationAnywhere(String resumeText, Taxonomy taxonomy) {
+        String degree = taxonomy.findDegreeAnywhere(resumeText);
+        return degree == null ? null : degree.trim();
+    }
+
+    // The education entry found in an education section, or null if the
+    // section holds nothing usable and the whole text has to be searched
+    String educationFromSection(String educationSection, Taxonomy taxonomy) {
+        // First, try to extract specific degree information
+        String degree = taxonomy.findDegree(educationSection);
         
-        // If all else fails, search for degree information anywhere in the text
-        if (education.isEmpty()) {
-            Pattern generalDegreePattern = Pattern.compile("(?i)(Bachelor|Master|PhD|B\\.Tech|M\\.Tech|MBA).{0,100}?(Computer Science|Engineering|Technology)");
-            Matcher generalMatcher = generalDegreePattern.matcher(resumeText);
-            if (generalMatcher.find()) {
-                education.add(generalMatcher.group().trim());
+        if (degree != null) {
+            degree = degree.trim();
+            // Remove any line breaks within the degree
+            degree = WHITESPACE_PATTERN.matcher(degree).replaceAll(" ").trim();
+            return degree;
+        }
+        
+        // If no specific degree found, take the most relevant line
+        String[] lines = educationSection.split("\n");
+        for (int i = 1; i < lines.length; i++) { // Start from 1 to skip the "EDUCATION" header
+            String line = lines[i].trim();
+            if (!line.isEmpty() && taxonomy.isEducationLine(line)) {
+                return line;
             }
         }
         
-        return education;
+        // If still no match, take the first non-empty line after the header
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (!line.isEmpty() && !line.equalsIgnoreCase("EDUCATION")) {
+                return line;
+            }
+        }
+        return null;
     }
     
     // Extract experience information
     public List<String> extractExperience(String resumeText) {
-        List<String> experience = new ArrayList<>();
-        
-        // Define patterns to find the experience section
-        List<Pattern> sectionPatterns = new ArrayList<>();
-        sectionPatterns.add(Pattern.compile("(?i)\\bWORK\\s*EXPERIENCE\\b[\\s\\S]*?(?=\\b(EDUCATION|SKILLS|PROJECTS|HONORS|AWARDS|ACTIVITIES|RESEARCH)\\b|$)"));
-        sectionPatterns.add(Pattern.compile("(?i)\\bEXPERIENCE\\b[\\s\\S]*?(?=\\b(EDUCATION|SKILLS|PROJECTS|HONORS|AWARDS|ACTIVITIES|RESEARCH)\\b|$)"));
-        
-        String experienceSection = null;
-        
-        // Try to extract experience section using different patterns
-        for (Pattern pattern : sectionPatterns) {
-            Matcher matcher = pattern.matcher(resumeText);
-            if (matcher.find()) {
-                experienceSection = matcher.group().trim();
-                break;
+        return extractExperience(segment(resumeText));
+    }
+
+    public List<String> extractExperience(ResumeSections sections) {
+        return extractExperience(sections, Taxonomy.current());
+    }
+
+    List<String> extractExperience(ResumeSections sections, Taxonomy taxonomy) {
+        String text = sections.getText();
+        try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.EXTRACT_EXPERIENCE, text.length())) {
+            List<String> experience = new ArrayList<>();
+            String experienceSection = sections.sectionText(ResumeSections.Type.EXPERIENCE);
+            String entry = experienceSection == null ? null : experienceFromSection(experienceSection, taxonomy);
+            if (entry == null) {
+                // If nothing found, search for common job titles anywhere in the text
+                entry = experienceAnywhere(text, taxonomy);
             }
+            if (entry != null) {
+                experience.add(entry);
+            }
+            span.succeeded();
+            return experience;
         }
-        
-        if (experienceSection != null) {
-            // Extract job title and company information
-            Pattern jobPattern = Pattern.compile("(?i)([A-Za-z0-9\\s&,]+)(,|-)\\s*([A-Za-z\\s,]+)\\s*([A-Za-z0-9\\s]+\\d{4}.+?\\d{4}|[A-Za-z0-9\\s]+\\d{4}.+?Present|[A-Za-z0-9\\s]+\\d{4}.+?Current)");
-            Matcher jobMatcher = jobPattern.matcher(experienceSection);
+    }
+
+    // The first common job title mentioned anywhere in the text, or null
+    String experienceAnywhere(String resumeText, Taxonomy taxonomy) {
+        String title = taxonomy.findTitleAnywhere(resumeText);
+        return title == null ? null : title.trim();
+    }
+
+    // The experience entry found in an experience section, or null if the
+    // section holds nothing usable and the whole text has to be searched
+    String experienceFromSection(String experienceSection, Taxonomy taxonomy) {
+        String[] lines = experienceSection.split("\n");
+
+        // Extract job title and company information from the first dated entry,
+        // e.g. "Acme Corp, Bangalore        Jun 2023 - Aug 2023"
+        int entryOffset = 0;
+        for (int i = 1; i < lines.length; i++) { // Skip the header line
+            entryOffset += lines[i - 1].length() + 1;
+            int dateStart = dateRangeStart(lines[i]);
+            if (dateStart < 0) {
+                continue;
+            }
             
-            if (jobMatcher.find() && jobMatcher.groupCount() >= 3) {
-                String company = jobMatcher.group(1).trim();
-                String location = jobMatcher.group(3).trim();
-                
-                // Look for the job title near this match
-                int matchPosition = jobMatcher.start();
-                String beforeMatch = experienceSection.substring(0, matchPosition);
-                String afterMatch = experienceSection.substring(matchPosition);
-                
-                // Try to find job title
-                Pattern titlePattern = Pattern.compile("(?i)(Intern|Software Developer|Developer|Engineer|Software Engineer|Data Scientist|Analyst|Manager)");
-                
-                // First look after the match (more common in some formats)
-                Matcher titleMatcherAfter = titlePattern.matcher(afterMatch);
-                if (titleMatcherAfter.find()) {
-                    String title = titleMatcherAfter.group().trim();
-                    experience.add(title + " at " + company);
-                    return experience;
-                }
-                
-                // Then look before the match
-                Matcher titleMatcherBefore = titlePattern.matcher(beforeMatch);
-                String title = "Professional";
-                if (titleMatcherBefore.find()) {
-                    // Get the last match
-                    String lastMatch = null;
-                    do {
-                        lastMatch = titleMatcherBefore.group();
-                    } while (titleMatcherBefore.find());
-                    
-                    if (lastMatch != null) {
-                        title = lastMatch.trim();
+            // The entry line is the dated line, or the line above it when the dates stand alone
+            String entry = lines[i].substring(0, dateStart).trim();
+            int matchPosition = entryOffset;
+            if (entry.isEmpty()) {
+                for (int j = i - 1; j >= 1; j--) {
+                    matchPosition -= lines[j].length() + 1;
+                    if (!lines[j].trim().isEmpty()) {
+                        entry = lines[j].trim();
+                        break;
                     }
                 }
-                
-                experience.add(title + " at " + company);
-                return experience;
             }
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String company = companyName(entry);
             
-            // If we couldn't extract using the pattern, try to find intern/job title and company separately
-            String[] lines = experienceSection.split("\n");
-            for (int i = 1; i < lines.length; i++) { // Skip the header line
-                String line = lines[i].trim();
-                
-                // Check if this line contains a job title
-                if (line.contains("Intern") || 
-                    line.contains("Developer") || 
-                    line.contains("Engineer") || 
-                    line.contains("Software")) {
-                    
-                    // If yes, look for a company name in nearby lines
-                    String company = "";
-                    for (int j = Math.max(1, i-1); j <= Math.min(i+1, lines.length-1); j++) {
-                        if (j != i && !lines[j].trim().isEmpty()) {
-                            company = lines[j].trim();
-                            if (company.contains(",")) {
-                                company = company.substring(0, company.indexOf(",")).trim();
-                            }
-                            break;
-                        }
-                    }
-                    
-                    if (!company.isEmpty()) {
-                        experience.add(line + " at " + company);
-                    } else {
-                        experience.add(line);
-                    }
-                    return experience;
-                }
+            // Look for the job title near this match
+            String beforeMatch = experienceSection.substring(0, matchPosition);
+            String afterMatch = experienceSection.substring(matchPosition);
+            
+            // First look after the match (more common in some formats)
+            String titleAfter = taxonomy.findTitle(afterMatch);
+            if (titleAfter != null) {
+                return titleAfter.trim() + " at " + company;
             }
             
-            // Last resort: take the first two non-empty lines after the header
-            String title = "";
-            String company = "";
-            int nonEmptyCount = 0;
+            // Then look before the match, taking the last title there
+            String lastMatch = taxonomy.findLastTitle(beforeMatch);
+            String title = lastMatch == null ? "Professional" : lastMatch.trim();
+            
+            return title + " at " + company;
+        }
+        
+        // If we couldn't find a dated entry, try to find intern/job title and company separately
+        for (int i = 1; i < lines.length; i++) { // Skip the header line
+            String line = lines[i].trim();
             
-            for (int i = 1; i < lines.length && nonEmptyCount < 2; i++) {
-                String line = lines[i].trim();
-                if (!line.isEmpty()) {
-                    if (nonEmptyCount == 0) {
-                        company = line;
-                    } else {
-                        title = line;
+            // Check if this line contains a job title
+            if (taxonomy.isExperienceLine(line)) {
+                
+                // If yes, look for a company name in nearby lines
+                String company = "";
+                for (int j = Math.max(1, i-1); j <= Math.min(i+1, lines.length-1); j++) {
+                    if (j != i && !lines[j].trim().isEmpty()) {
+                        company = lines[j].trim();
+                        if (company.contains(",")) {
+                            company = company.substring(0, company.indexOf(",")).trim();
+                        }
+                        break;
                     }
-                    nonEmptyCount++;
                 }
+                
+                return company.isEmpty() ? line : line + " at " + company;
             }
-            
-            if (!company.isEmpty()) {
-                if (title.isEmpty()) {
-                    // If we only found one line, assume it's the company
-                    experience.add("Professional at " + company);
+        }
+        
+        // Last resort: take the first two non-empty lines after the header
+        String title = "";
+        String company = "";
+        int nonEmptyCount = 0;
+        
+        for (int i = 1; i < lines.length && nonEmptyCount < 2; i++) {
+            String line = lines[i].trim();
+            if (!line.isEmpty()) {
+                if (nonEmptyCount == 0) {
+                    company = line;
                 } else {
-                    experience.add(title + " at " + company);
+                    title = line;
                 }
-                return experience;
+                nonEmptyCount++;
             }
         }
         
-        // If nothing found, search for common job titles anywhere in the text
-        if (experience.isEmpty()) {
-            Pattern titlePattern = Pattern.compile("(?i)(Software Development Intern|Intern|Software Developer|Developer|Engineer|Software Engineer)");
-            Matcher titleMatcher = titlePattern.matcher(resumeText);
-            if (titleMatcher.find()) {
-                experience.add(titleMatcher.group().trim());
+        if (!company.isEmpty()) {
+            // If we only found one line, assume it's the company
+            return title.isEmpty() ? "Professional at " + company : title + " at " + company;
+        }
+        return null;
+    }
+
+    // Start of a date range such as "2021 - 2023", "Jun 2023 - Present" or
+    // "2022 to Current" in the line, or -1. The range starts at the word before
+    // the first year when that word is a month name.
+    private static int dateRangeStart(String line) {
+        int firstYear = findYear(line, 0);
+        if (firstYear < 0) {
+            return -1;
+        }
+        String rest = line.substring(firstYear + 4).toLowerCase();
+        if (findYear(rest, 0) < 0 && !rest.contains("present") && !rest.contains("current")) {
+            return -1;
+        }
+        int start = firstYear;
+        while (start > 0 && line.charAt(start - 1) == ' ') {
+            start--;
+        }
+        int wordStart = start;
+        while (wordStart > 0 && Character.isLetter(line.charAt(wordStart - 1))) {
+            wordStart--;
+        }
+        return wordStart < start && isMonth(line.substring(wordStart, start)) ? wordStart : firstYear;
+    }
+
+    // Index of the next run of exactly four digits at or after from, or -1
+    private static int findYear(String text, int from) {
+        int run = 0;
+        for (int i = from; i <= text.length(); i++) {
+            if (i < text.length() && Character.isDigit(text.charAt(i))) {
+                run++;
+            } else {
+                if (run == 4) {
+                    return i - 4;
+                }
+                run = 0;
             }
         }
-        
-        return experience;
+        return -1;
+    }
+
+    private static boolean isMonth(String word) {
+        if (word.length() < 3) {
+            return false;
+        }
+        String prefix = word.substring(0, 3).toLowerCase();
+        return "jan feb mar apr may jun jul aug sep oct nov dec".contains(prefix);
+    }
+
+    // Company name from an entry line such as "Acme Corp, Bangalore" or "Acme Corp - Remote"
+    private static String companyName(String entry) {
+        int end = entry.length();
+        for (int i = 0; i < entry.length(); i++) {
+            char c = entry.charAt(i);
+            if (c == ',' || c == '|' || c == '\u2013'
+                    || (c == '-' && i > 0 && entry.charAt(i - 1) == ' ')) {
+                end = i;
+                break;
+            }
+        }
+        String company = entry.substring(0, end).trim();
+        return company.isEmpty() ? entry : company;
     }
 }
@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// A resume split into typed sections, with offsets into the original text.
+// Built by SectionSegmenter in one linear pass.
+public class ResumeSections {
+
+    public enum Type {
+        EDUCATION,
+        EXPERIENCE,
+        SKILLS,
+        PROJECTS,
+        HONORS,
+        AWARDS,
+        ACTIVITIES,
+        RESEARCH
+    }
+
+    // One section: the header starts at start, the body runs to end (exclusive)
+    public static class Section {
+        private final Type type;
+        private final int start;
+        private final int headerEnd;
+        private final int end;
+
+        public Section(Type type, int start, int headerEnd, int end) {
+            this.type = type;
+            this.start = start;
+            this.headerEnd = headerEnd;
+            this.end = end;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getHeaderEnd() {
+            return headerEnd;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public boolean contains(int offset) {
+            return offset >= start && offset < end;
+        }
+    }
+
+    private final String text;
+    private final Map<Type, Section> sections;
+
+    public ResumeSections(String text, Map<Type, Section> sections) {
+        this.text = text;
+        this.sections = new EnumMap<>(sections);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // The section of this type, or null if the resume has none
+    public Section get(Type type) {
+        return sections.get(type);
+    }
+
+    // The section's text from its header to its end, trimmed; null if absent
+    public String sectionText(Type type) {
+        Section section = sections.get(type);
+        return section == null ? null : text.substring(section.getStart(), section.getEnd()).trim();
+    }
+
+    // Every section found, in document order
+    public List<Section> sections() {
+        List<Section> ordered = new ArrayList<>(sections.values());
+        ordered.sort((a, b) -> Integer.compare(a.getStart(), b.getStart()));
+        return Collections.unmodifiableList(ordered);
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.List;
+
+// A parsed resume as term vectors: its skills, education entries and
+// experience entries, each interned into the shared TermDictionary. This is
+// the form JobProfile scores against. Skills are taxonomy terms and always
+// interned; the entries, nearly unique lines, only while the dictionary has
+// room (see TermVector.ofResume).
+public class ResumeTerms {
+    private final TermVector skills;
+    private final TermVector education;
+    private final TermVector experience;
+
+    public ResumeTerms(TermVector skills, TermVector education, TermVector experience) {
+        this.skills = skills;
+        this.education = education;
+        this.experience = experience;
+    }
+
+    public static ResumeTerms of(List<String> skills, List<String> education, List<String> experience) {
+        TermDictionary dictionary = TermDictionary.shared();
+        return new ResumeTerms(TermVector.of(skills, dictionary), TermVector.ofResume(education, dictionary),
+                TermVector.ofResume(experience, dictionary));
+    }
+
+    public TermVector getSkills() {
+        return skills;
+    }
+
+    public TermVector getEducation() {
+        return education;
+    }
+
+    public TermVector getExperience() {
+        return experience;
+    }
+}
@@ -0,0 +1,25 @@
+import java.nio.file.Path;
+
+// Turns one resume file format into plain text.
+//
+// ResumeTextExtractors picks the implementation from the first bytes of the
+// content, so a file does not need the right extension. More formats can be
+// plugged in by putting an implementation with a no-argument constructor on
+// the classpath and naming it in META-INF/services/ResumeTextExtractor.
+//
+// Every implementation applies the caller's ExtractionLimits and reports
+// failures as ExtractionException, the same as PDF extraction.
+public interface ResumeTextExtractor {
+    // Identifies the extractor in extraction cache keys; change it whenever
+    // the text produced for the same bytes changes
+    String getVersion();
+
+    // Whether the content is in this format, judging from its first length
+    // bytes (up to ResumeTextExtractors.SNIFF_BYTES, fewer for short files)
+    boolean accepts(byte[] head, int length);
+
+    String extract(Path file, ExtractionLimits limits) throws ExtractionException;
+
+    // Extract from content already in memory, such as an upload; name only labels errors
+    String extract(byte[] content, String name, ExtractionLimits limits) throws ExtractionException;
+}
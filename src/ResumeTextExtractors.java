@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.ServiceLoader;
+
+// Picks the ResumeTextExtractor for a resume by sniffing its first bytes:
+// PDF by its %PDF- header, DOCX by the zip signature, and plain text or
+// Markdown by being valid UTF-8 without NUL bytes. Extractors registered
+// through ServiceLoader are asked first, so a plug-in can also take over one
+// of the built-in formats.
+//
+// All extractors run under the same ExtractionLimits.
+public class ResumeTextExtractors {
+    // Bytes read from the start of a file to tell its format
+    public static final int SNIFF_BYTES = 1024;
+    // File names collected as resumes from folders
+    private static final String[] RESUME_EXTENSIONS = {".pdf", ".docx", ".txt", ".md", ".markdown"};
+
+    private static volatile List<ResumeTextExtractor> plugins;
+
+    private final ExtractionLimits limits;
+    private final List<ResumeTextExtractor> extractors;
+
+    public ResumeTextExtractors() {
+        this(ExtractionLimits.defaults());
+    }
+
+    // Plug-ins and the built-in formats under the given limits
+    public ResumeTextExtractors(ExtractionLimits limits) {
+        this(limits, withBuiltIns(plugins()));
+    }
+
+    // Exactly these extractors, asked in order
+    public ResumeTextExtractors(ExtractionLimits limits, List<ResumeTextExtractor> extractors) {
+        this.limits = limits;
+        this.extractors = new ArrayList<>(extractors);
+    }
+
+    private static List<ResumeTextExtractor> withBuiltIns(List<ResumeTextExtractor> plugins) {
+        List<ResumeTextExtractor> extractors = new ArrayList<>(plugins);
+        extractors.add(new PdfTextExtractor());
+        extractors.add(new DocxTextExtractor());
+        extractors.add(new PlainTextExtractor());
+        return extractors;
+    }
+
+    // Extractors found on the classpath, loaded once
+    private static List<ResumeTextExtractor> plugins() {
+        if (plugins == null) {
+            synchronized (ResumeTextExtractors.class) {
+                if (plugins == null) {
+                    List<ResumeTextExtractor> found = new ArrayList<>();
+                    for (ResumeTextExtractor extractor : ServiceLoader.load(ResumeTextExtractor.class)) {
+                        found.add(extractor);
+                    }
+                    plugins = Collections.unmodifiableList(found);
+                }
+            }
+        }
+        return plugins;
+    }
+
+    public ExtractionLimits getLimits() {
+        return limits;
+    }
+
+    // Whether a file in a resume folder should be picked up, by its name
+    public static boolean isResumeFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.startsWith(".")) {
+            return false;
+        }
+        for (String extension : RESUME_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Extractor for a file's content, reading only its first bytes
+    public ResumeTextExtractor forFile(Path file) throws ExtractionException {
+        byte[] head = new byte[SNIFF_BYTES];
+        int length = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while (length < head.length && (read = in.read(head, length, head.length - length)) != -1) {
+                length += read;
+            }
+        } catch (NoSuchFileException e) {
+            throw new ExtractionException(ExtractionException.Reason.NOT_FOUND, "No such file: " + file, e);
+        } catch (IOException e) {
+            throw new ExtractionException(ExtractionException.Reason.IO_ERROR, "Cannot read " + file, e);
+        }
+        return select(head, length, file.toString());
+    }
+
+    // Extractor for content held in memory; name only labels errors
+    public ResumeTextExtractor forContent(byte[] content, String name) throws ExtractionException {
+        return select(content, Math.min(content.length, SNIFF_BYTES), name);
+    }
+
+    private ResumeTextExtractor select(byte[] head, int length, String name) throws ExtractionException {
+        for (ResumeTextExtractor extractor : extractors) {
+            if (extractor.accepts(head, length)) {
+                return extractor;
+            }
+        }
+        throw new ExtractionException(ExtractionException.Reason.UNSUPPORTED_FORMAT,
+                name + " is not a PDF, DOCX or UTF-8 text document");
+    }
+}
@@ -0,0 +1,22 @@
+import java.util.Locale;
+
+// How a resume's match score against a job is computed
+public enum ScoringMode {
+    // Weighted keyword overlap (skills, education and experience), the default
+    HEURISTIC,
+    // Cosine similarity of the two documents' TF-IDF vectors over all words,
+    // with IDF from the distinct documents seen so far (see CorpusStats)
+    COSINE,
+    // The heuristic with keywords matched as whole words within a small edit
+    // distance instead of as substrings (see FuzzyKeywordMatcher)
+    FUZZY;
+
+    // Parse a mode name such as "cosine", ignoring case
+    public static ScoringMode parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown scoring mode \"" + name + "\" (use heuristic, cosine or fuzzy)");
+        }
+    }
+}
@@ -0,0 +1,427 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Long-running HTTP scoring service, so a portal can score uploads without
+// starting a JVM per resume.
+//
+//   POST /jobs                    body: job description text
+//                                 -> {"jobId": ..., "keywords": [...]}
+//   DELETE /jobs?jobId=<id>
+//   POST /score?jobId=<id>        body: the resume (PDF, DOCX or text); add &mode=cosine
+//                                 for TF-IDF cosine scoring, &mode=fuzzy for
+//                                 typo-tolerant keyword matching
+//   POST /score                   multipart/form-data with a "resume" file
+//                                 part and either "job" (text) or "jobId"
+//                                 -> score, matched/missing keywords,
+//                                    suggestions and the parsed resume
+//   GET /health
+//   GET /metrics                  per-stage metrics, Prometheus text format
+//   POST /metrics?enabled=<bool>  switch stage metrics on or off
+//
+// Each request runs on its own virtual thread when the JDK has them (21+),
+// otherwise on a cached pool of platform threads. The parser, matcher,
+// optimizer and compiled job profiles are shared by all requests, so nothing
+// is recompiled per upload.
+//
+// At most -Dresume.server.maxJobs (1000) postings stay registered; the least
+// recently used one is dropped for a new one, and its jobId gets a 404 until
+// it is posted again. The service listens on the loopback address unless
+// given --host.
+public class ScoringServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final String DEFAULT_HOST = "127.0.0.1";
+    private static final int MAX_JOBS = Integer.getInteger("resume.server.maxJobs", 1000);
+    // Room for multipart headers and an inline job description next to the resume
+    private static final long UPLOAD_OVERHEAD_BYTES = 1024 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long maxUploadBytes;
+
+    private final ResumeParser parser = new ResumeParser();
+    private final JobMatcher matcher = new JobMatcher();
+    private final ATSOptimizer optimizer = new ATSOptimizer();
+    // Registered postings by id, least recently used first
+    private final Map<String, JobProfile> jobs = Collections.synchronizedMap(new JobRegistry(MAX_JOBS));
+
+    private static final class JobRegistry extends LinkedHashMap<String, JobProfile> {
+        private final int maxJobs;
+
+        JobRegistry(int maxJobs) {
+            super(16, 0.75f, true);
+            this.maxJobs = maxJobs;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JobProfile> eldest) {
+            return size() > maxJobs;
+        }
+    }
+
+    public ScoringServer(InetSocketAddress address) throws IOException {
+        this.maxUploadBytes = ExtractionLimits.defaults().getMaxBytes() + UPLOAD_OVERHEAD_BYTES;
+        this.executor = newRequestExecutor();
+        // Without TCP_NODELAY small responses wait ~40ms on delayed ACKs. The
+        // JDK server reads this once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/jobs", this::handleJobs);
+        server.createContext("/score", this::handleScore);
+        server.createContext("/health", exchange -> respond(exchange, 200, new Json().beginObject()
+                .field("status", "ok").field("jobs", jobs.size()).endObject()));
+        server.createContext("/metrics", this::handleMetrics);
+        StageMetrics.registerMBeans();
+    }
+
+    // One virtual thread per request where available, looked up reflectively
+    // so the code still builds and runs on Java 11-20
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(new DaemonThreadFactory("http"));
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (method.equals("POST")) {
+                byte[] body = readBody(exchange);
+                String text = new String(body, StandardCharsets.UTF_8);
+                if (text.trim().isEmpty()) {
+                    respondError(exchange, 400, "Empty job description");
+                    return;
+                }
+                JobProfile profile = matcher.getJobProfile(text);
+                String jobId = jobId(profile);
+                jobs.put(jobId, profile);
+                respond(exchange, 200, new Json().beginObject()
+                        .field("jobId", jobId)
+                        .field("keywords", profile.getKeywords())
+                        .endObject());
+            } else if (method.equals("DELETE")) {
+                String jobId = queryParameters(exchange).get("jobId");
+                if (jobId == null || jobs.remove(jobId) == null) {
+                    respondError(exchange, 404, "Unknown jobId");
+                    return;
+                }
+                respond(exchange, 200, new Json().beginObject().field("removed", jobId).endObject());
+            } else {
+                respondError(exchange, 405, "Use POST or DELETE");
+            }
+        } catch (UploadTooLargeException e) {
+            respondError(exchange, 413, e.getMessage());
+        } catch (RuntimeException e) {
+            respondError(exchange, 500, e.toString());
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (method.equals("GET")) {
+            byte[] body = StageMetrics.prometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } else if (method.equals("POST")) {
+            String enabled = queryParameters(exchange).get("enabled");
+            if (enabled == null) {
+                respondError(exchange, 400, "Missing enabled=true|false");
+                return;
+            }
+            StageMetrics.setEnabled(Boolean.parseBoolean(enabled));
+            respond(exchange, 200, new Json().beginObject().field("enabled", StageMetrics.isEnabled()).endObject());
+        } else {
+            respondError(exchange, 405, "Use GET or POST");
+        }
+    }
+
+    private void handleScore(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            respondError(exchange, 405, "Use POST");
+            return;
+        }
+        try {
+            byte[] content;
+            String name = "upload";
+            JobProfile profile;
+            Map<String, String> query = queryParameters(exchange);
+            String jobId = query.get("jobId");
+            ScoringMode mode = query.containsKey("mode") ? ScoringMode.parse(query.get("mode")) : ScoringMode.HEURISTIC;
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+
+            if (contentType != null && contentType.startsWith("multipart/form-data")) {
+                Map<String, Multipart.Part> parts = Multipart.parse(readBody(exchange), contentType);
+                Multipart.Part resumePart = parts.get("resume");
+                if (resumePart == null) {
+                    respondError(exchange, 400, "Missing \"resume\" part");
+                    return;
+                }
+                content = resumePart.content;
+                if (resumePart.fileName != null) {
+                    name = resumePart.fileName;
+                }
+                if (parts.containsKey("jobId")) {
+                    jobId = parts.get("jobId").text();
+                }
+                if (parts.containsKey("job")) {
+                    profile = matcher.getJobProfile(parts.get("job").text());
+                } else {
+                    profile = jobId == null ? null : jobs.get(jobId);
+                }
+            } else {
+                content = readBody(exchange);
+                profile = jobId == null ? null : jobs.get(jobId);
+            }
+            if (profile == null) {
+                respondError(exchange, jobId == null ? 400 : 404,
+                        jobId == null ? "Give a jobId or a \"job\" part" : "Unknown jobId " + jobId);
+                return;
+            }
+
+            ParsedResume resume = parser.readResume(content, name).parse(parser);
+            JobMatcher.MatchResult result = matcher.calculateMatchScore(resume, profile, mode);
+            String suggestions = optimizer.suggestEnhancements(resume.getText(), profile.getText(),
+                    result.getMissingKeywords());
+
+            respond(exchange, 200, new Json().beginObject()
+                    .field("score", result.getScore())
+                    .field("mode", mode.name().toLowerCase(Locale.ROOT))
+                    .field("matchedKeywords", result.getMatchedKeywords())
+                    .field("missingKeywords", result.getMissingKeywords())
+                    .field("suggestions", suggestions)
+                    .name("resume").beginObject()
+                        .field("skills", resume.getSkills())
+                        .field("education", resume.getEducation())
+                        .field("experience", resume.getExperience())
+                    .endObject()
+                    .endObject());
+        } catch (UploadTooLargeException e) {
+            respondError(exchange, 413, e.getMessage());
+        } catch (ExtractionException e) {
+            respond(exchange, statusFor(e.getReason()), new Json().beginObject()
+                    .field("error", e.getMessage())
+                    .field("reason", e.getReason().name())
+                    .endObject());
+        } catch (IllegalArgumentException e) {
+            respondError(exchange, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            respondError(exchange, 500, e.toString());
+        }
+    }
+
+    private static int statusFor(ExtractionException.Reason reason) {
+        switch (reason) {
+            case FILE_TOO_LARGE:
+                return 413;
+            case UNSUPPORTED_FORMAT:
+                return 415;
+            case TOO_MANY_PAGES:
+            case TOO_MUCH_TEXT:
+            case ENCRYPTED:
+            case MALFORMED:
+                return 422;
+            case INTERRUPTED:
+                return 503;
+            default:
+                return 500;
+        }
+    }
+
+    // Ids are a prefix of the posting's content hash, so re-registering the
+    // same text returns the same id
+    private static String jobId(JobProfile profile) {
+        return profile.getContentHash().substring(0, 16);
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (body.size() + read > maxUploadBytes) {
+                    throw new UploadTooLargeException("Request body exceeds " + maxUploadBytes + " bytes");
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        return body.toByteArray();
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, new Json().beginObject().field("error", message).endObject());
+    }
+
+    private static void respond(HttpExchange exchange, int status, Json json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static class UploadTooLargeException extends IOException {
+        UploadTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    // Just enough multipart/form-data parsing for a file part and a few text fields
+    static class Multipart {
+        static class Part {
+            final String fileName;
+            final byte[] content;
+
+            Part(String fileName, byte[] content) {
+                this.fileName = fileName;
+                this.content = content;
+            }
+
+            String text() {
+                return new String(content, StandardCharsets.UTF_8);
+            }
+        }
+
+        static Map<String, Part> parse(byte[] body, String contentType) {
+            String boundary = headerParameter(contentType, "boundary");
+            if (boundary == null) {
+                throw new IllegalArgumentException("multipart request without a boundary");
+            }
+            byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+            Map<String, Part> parts = new HashMap<>();
+
+            int position = indexOf(body, delimiter, 0);
+            while (position >= 0) {
+                int partStart = position + delimiter.length;
+                // "--" after the delimiter closes the body
+                if (partStart + 1 < body.length && body[partStart] == '-' && body[partStart + 1] == '-') {
+                    break;
+                }
+                partStart += 2; // CRLF after the delimiter
+                int headersEnd = indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1), partStart);
+                int next = indexOf(body, delimiter, partStart);
+                if (headersEnd < 0 || next < 0 || headersEnd > next) {
+                    throw new IllegalArgumentException("malformed multipart body");
+                }
+                String headers = new String(body, partStart, headersEnd - partStart, StandardCharsets.UTF_8);
+                String name = null;
+                String fileName = null;
+                for (String header : headers.split("\r\n")) {
+                    if (header.regionMatches(true, 0, "Content-Disposition:", 0, 20)) {
+                        name = headerParameter(header, "name");
+                        fileName = headerParameter(header, "filename");
+                    }
+                }
+                int contentStart = headersEnd + 4;
+                int contentEnd = next - 2; // CRLF before the next delimiter
+                if (name != null && contentEnd >= contentStart) {
+                    byte[] content = new byte[contentEnd - contentStart];
+                    System.arraycopy(body, contentStart, content, 0, content.length);
+                    parts.put(name, new Part(fileName, content));
+                }
+                position = next;
+            }
+            return parts;
+        }
+
+        // Value of a "key=value" or key="value" parameter in a header, or null
+        private static String headerParameter(String header, String key) {
+            for (String parameter : header.split(";")) {
+                String trimmed = parameter.trim();
+                if (trimmed.regionMatches(true, 0, key + "=", 0, key.length() + 1)) {
+                    String value = trimmed.substring(key.length() + 1);
+                    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        private static int indexOf(byte[] data, byte[] pattern, int from) {
+            outer:
+            for (int i = from; i <= data.length - pattern.length; i++) {
+                for (int j = 0; j < pattern.length; j++) {
+                    if (data[i + j] != pattern[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    // Usage: --serve [--port N] [--host address]
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        String host = DEFAULT_HOST;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--host") && i + 1 < args.length) {
+                host = args[++i];
+            } else {
+                System.err.println("Usage: Main --serve [--port N] [--host address]");
+                return;
+            }
+        }
+        ScoringServer server = new ScoringServer(new InetSocketAddress(host, port));
+        server.start();
+        System.out.println("Scoring service listening on " + host + ":" + server.getPort());
+    }
+}
@@ -0,0 +1,148 @@
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Splits resume text into typed sections in a single linear pass.
+//
+// Section headers are recognized as whole words (EDUCATION, EXPERIENCE or
+// WORK EXPERIENCE, SKILLS, PROJECTS, HONORS, AWARDS, ACTIVITIES, RESEARCH),
+// case-insensitively, wherever they appear. A section runs from its first
+// header to the next header of another kind; EXPERIENCE sections are not ended
+// by the word "work". These are the same boundaries the old lazy
+// "[\s\S]*?(?=...)" regexes found, without their backtracking cost.
+public class SectionSegmenter {
+    // Token kinds: section types use their ordinal, plus these extras
+    private static final int WORK = ResumeSections.Type.values().length;
+    private static final String[] KEYWORDS = new String[WORK + 1];
+
+    static {
+        for (ResumeSections.Type type : ResumeSections.Type.values()) {
+            KEYWORDS[type.ordinal()] = type.name();
+        }
+        KEYWORDS[WORK] = "WORK";
+    }
+
+    private SectionSegmenter() {
+    }
+
+    public static ResumeSections segment(String text) {
+        // Header keyword tokens, in text order
+        int[] kinds = new int[16];
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int count = 0;
+
+        // First "WORK EXPERIENCE" (or "WORKEXPERIENCE") header, if any
+        int workExperienceStart = -1;
+        int workExperienceEnd = -1;
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWordChar(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            int end = i;
+
+            if (workExperienceStart < 0 && end - start == 14 && text.regionMatches(true, start, "WORKEXPERIENCE", 0, 14)) {
+                workExperienceStart = start;
+                workExperienceEnd = end;
+                continue;
+            }
+
+            int kind = keywordKind(text, start, end);
+            if (kind < 0) {
+                continue;
+            }
+            if (count == kinds.length) {
+                kinds = Arrays.copyOf(kinds, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            kinds[count] = kind;
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+
+            // "WORK" followed by only whitespace and then "EXPERIENCE"
+            if (workExperienceStart < 0 && kind == ResumeSections.Type.EXPERIENCE.ordinal() && count > 1
+                    && kinds[count - 2] == WORK && onlyWhitespace(text, ends[count - 2], start)) {
+                workExperienceStart = starts[count - 2];
+                workExperienceEnd = end;
+            }
+        }
+
+        Map<ResumeSections.Type, ResumeSections.Section> sections = new EnumMap<>(ResumeSections.Type.class);
+        for (ResumeSections.Type type : ResumeSections.Type.values()) {
+            int headerStart = -1;
+            int headerEnd = -1;
+            if (type == ResumeSections.Type.EXPERIENCE && workExperienceStart >= 0) {
+                headerStart = workExperienceStart;
+                headerEnd = workExperienceEnd;
+            } else {
+                for (int h = 0; h < count; h++) {
+                    if (kinds[h] == type.ordinal()) {
+                        headerStart = starts[h];
+                        headerEnd = ends[h];
+                        break;
+                    }
+                }
+            }
+            if (headerStart < 0) {
+                continue;
+            }
+
+            int sectionEnd = length;
+            for (int h = 0; h < count; h++) {
+                if (starts[h] >= headerEnd && endsSection(type, kinds[h])) {
+                    sectionEnd = starts[h];
+                    break;
+                }
+            }
+            sections.put(type, new ResumeSections.Section(type, headerStart, headerEnd, sectionEnd));
+        }
+        return new ResumeSections(text, sections);
+    }
+
+    // A section ends at the next header of another kind; the word "work" does
+    // not end an experience section
+    private static boolean endsSection(ResumeSections.Type type, int kind) {
+        if (kind == type.ordinal()) {
+            return false;
+        }
+        return !(type == ResumeSections.Type.EXPERIENCE && kind == WORK);
+    }
+
+    private static int keywordKind(String text, int start, int end) {
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            String keyword = KEYWORDS[k];
+            if (keyword.length() == end - start && text.regionMatches(true, start, keyword, 0, keyword.length())) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean onlyWhitespace(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same character classes as \w and \s in java.util.regex
+    static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Relations between skills (synonyms, a language and its frameworks, related
+// technologies), so a resume can get partial credit for a skill the job asks
+// for when it lists a related one instead.
+//
+// The graph is read from a text file (data/skill_graph.txt by default, see
+// the file for the syntax) and its closure is worked out once when it is
+// loaded: for every skill, every other skill reachable from it along with the
+// best product of edge weights on the way there. Scoring then never walks the
+// graph; it looks a skill up by term id in an open-addressing table and reads
+// its related skills from flat arrays, strongest first.
+//
+// Weights are rounded down to eighths, so credit earned through the graph
+// stays exact when added up and subtracted again (see IncrementalScorer).
+// Relations weaker than MIN_WEIGHT after following a chain are dropped.
+public class SkillGraph {
+    private static final double MIN_WEIGHT = 0.25;
+    private static final String DEFAULT_FILE = "data/skill_graph.txt";
+
+    private static final SkillGraph EMPTY = new SkillGraph(new int[0], new int[1], new int[0], new byte[0]);
+    private static volatile SkillGraph shared;
+    private static boolean sharedFromFile;
+
+    // Open-addressing table from term id + 1 (0 marks a free slot) to node
+    private final int[] keys;
+    private final int[] nodes;
+    private final int mask;
+    // Related skills of node n are relatedTerms[firstEdge[n]..firstEdge[n + 1]),
+    // with their weights in eighths
+    private final int[] firstEdge;
+    private final int[] relatedTerms;
+    private final byte[] relatedEighths;
+
+    private SkillGraph(int[] nodeTerms, int[] firstEdge, int[] relatedTerms, byte[] relatedEighths) {
+        int capacity = Integer.highestOneBit(Math.max(4, nodeTerms.length * 2) - 1) << 1;
+        this.keys = new int[capacity];
+        this.nodes = new int[capacity];
+        this.mask = capacity - 1;
+        for (int node = 0; node < nodeTerms.length; node++) {
+            int slot = slot(nodeTerms[node]);
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = nodeTerms[node] + 1;
+            nodes[slot] = node;
+        }
+        this.firstEdge = firstEdge;
+        this.relatedTerms = relatedTerms;
+        this.relatedEighths = relatedEighths;
+    }
+
+    // The process-wide graph, read from -Dresume.skillGraph=<file> or
+    // data/skill_graph.txt; empty when there is no such file
+    public static SkillGraph shared() {
+        SkillGraph graph = shared;
+        if (graph == null) {
+            synchronized (SkillGraph.class) {
+                graph = shared;
+                if (graph == null) {
+                    graph = loadShared();
+                    shared = graph;
+                    sharedFromFile = true;
+                }
+            }
+        }
+        return graph;
+    }
+
+    public static synchronized void setShared(SkillGraph graph) {
+        shared = graph;
+        sharedFromFile = false;
+    }
+
+    // Skill names are resolved against the taxonomy, so a graph read from its
+    // file is read again on next use after the taxonomy changes
+    static synchronized void taxonomyChanged() {
+        if (sharedFromFile) {
+            shared = null;
+        }
+    }
+
+    public static SkillGraph empty() {
+        return EMPTY;
+    }
+
+    private static SkillGraph loadShared() {
+        String configured = System.getProperty("resume.skillGraph");
+        Path file = Paths.get(configured != null && !configured.isEmpty() ? configured : DEFAULT_FILE);
+        if (configured == null && !Files.exists(file)) {
+            return EMPTY;
+        }
+        try {
+            return load(file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Skill graph disabled: " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    public static SkillGraph load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+    }
+
+    // Build a graph from relation lines. Skill names are matched to the
+    // current taxonomy's skills ignoring case, so they are credited under the
+    // exact term extractSkills reports.
+    public static SkillGraph parse(List<String> lines, String source) {
+        Map<String, String> canonical = new HashMap<>();
+        for (String term : ResumeParser.skillMatcher().terms()) {
+            canonical.putIfAbsent(term.toLowerCase(Locale.ROOT), term);
+        }
+        TermDictionary dictionary = TermDictionary.shared();
+
+        // Direct edges, by term id, with weights in eighths
+        Map<Integer, Map<Integer, Integer>> edges = new HashMap<>();
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int op = operatorIndex(line);
+            if (op < 0) {
+                throw new IllegalArgumentException(source + " line " + (n + 1)
+                        + ": expected \"A = B\", \"A > B weight\" or \"A ~ B weight\"");
+            }
+            char kind = line.charAt(op);
+            String left = line.substring(0, op).trim();
+            String right = line.substring(op + 1).trim();
+            int eighths = 8;
+            if (kind != '=') {
+                int space = right.lastIndexOf(' ');
+                if (space < 0) {
+                    throw new IllegalArgumentException(source + " line " + (n + 1) + ": missing weight");
+                }
+                eighths = eighths(right.substring(space + 1), source, n + 1);
+                right = right.substring(0, space).trim();
+            }
+            if (left.isEmpty() || right.isEmpty()) {
+                throw new IllegalArgumentException(source + " line " + (n + 1) + ": missing skill name");
+            }
+            int a = dictionary.intern(canonical.getOrDefault(left.toLowerCase(Locale.ROOT), left));
+            int b = dictionary.intern(canonical.getOrDefault(right.toLowerCase(Locale.ROOT), right));
+            if (a == b) {
+                continue;
+            }
+            if (kind == '>') {
+                // Knowing the child (a framework) says more about the parent
+                // (its language) than the other way round
+                addEdge(edges, b, a, eighths);
+                addEdge(edges, a, b, eighths / 2);
+            } else {
+                addEdge(edges, a, b, eighths);
+                addEdge(edges, b, a, eighths);
+            }
+        }
+        return close(edges);
+    }
+
+    private static int operatorIndex(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '=' || c == '>' || c == '~') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int eighths(String weight, String source, int line) {
+        double value;
+        try {
+            value = Double.parseDouble(weight);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(source + " line " + line + ": bad weight \"" + weight + "\"");
+        }
+        if (!(value > 0 && value <= 1)) {
+            throw new IllegalArgumentException(source + " line " + line + ": weight must be in (0, 1]");
+        }
+        return (int) Math.floor(value * 8);
+    }
+
+    private static void addEdge(Map<Integer, Map<Integer, Integer>> edges, int from, int to, int eighths) {
+        if (eighths > 0) {
+            edges.computeIfAbsent(from, k -> new HashMap<>()).merge(to, eighths, Math::max);
+        }
+    }
+
+    // Best path weight from every skill to every skill it reaches: a
+    // best-first search per skill, multiplying weights along the path
+    private static SkillGraph close(Map<Integer, Map<Integer, Integer>> edges) {
+        int[] nodeTerms = edges.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] firstEdge = new int[nodeTerms.length + 1];
+        List<int[]> related = new ArrayList<>();
+
+        for (int node = 0; node < nodeTerms.length; node++) {
+            int source = nodeTerms[node];
+            Map<Integer, Double> best = new HashMap<>();
+            PriorityQueue<double[]> queue = new PriorityQueue<>((x, y) -> Double.compare(y[1], x[1]));
+            queue.add(new double[] {source, 1.0});
+            while (!queue.isEmpty()) {
+                double[] next = queue.poll();
+                int term = (int) next[0];
+                if (term != source && best.containsKey(term)) {
+                    continue; // already reached along a stronger path
+                }
+                if (term != source) {
+                    best.put(term, next[1]);
+                }
+                Map<Integer, Integer> out = edges.get(term);
+                if (out == null) {
+                    continue;
+                }
+                for (Map.Entry<Integer, Integer> edge : out.entrySet()) {
+                    double weight = next[1] * edge.getValue() / 8.0;
+                    if (edge.getKey() != source && weight >= MIN_WEIGHT && !best.containsKey(edge.getKey())) {
+                        queue.add(new double[] {edge.getKey(), weight});
+                    }
+                }
+            }
+
+            List<int[]> reached = new ArrayList<>();
+            for (Map.Entry<Integer, Double> entry : best.entrySet()) {
+                reached.add(new int[] {entry.getKey(), (int) Math.floor(entry.getValue() * 8)});
+            }
+            // Strongest first, then by term id so the order is reproducible
+            reached.sort((x, y) -> x[1] != y[1] ? Integer.compare(y[1], x[1]) : Integer.compare(x[0], y[0]));
+            related.addAll(reached);
+            firstEdge[node + 1] = related.size();
+        }
+
+        int[] relatedTerms = new int[related.size()];
+        byte[] relatedEighths = new byte[related.size()];
+        for (int i = 0; i < relatedTerms.length; i++) {
+            relatedTerms[i] = related.get(i)[0];
+            relatedEighths[i] = (byte) related.get(i)[1];
+        }
+        return new SkillGraph(nodeTerms, firstEdge, relatedTerms, relatedEighths);
+    }
+
+    private int slot(int term) {
+        return ((term + 1) * 0x9E3779B9 >>> 16) & mask;
+    }
+
+    // Node of the skill with this term id, or -1 when it has no related skills
+    // (always for the negative ids of terms local to a TermVector)
+    public int node(int term) {
+        if (term < 0) {
+            return -1;
+        }
+        int slot = slot(term);
+        while (true) {
+            int key = keys[slot];
+            if (key == term + 1) {
+                return nodes[slot];
+            }
+            if (key == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Related skills of a node are the edges firstEdge(node) to firstEdge(node + 1)
+    public int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    public int relatedTerm(int edge) {
+        return relatedTerms[edge];
+    }
+
+    // Share of a skill's weight the related skill earns, a multiple of 1/8
+    public double relatedWeight(int edge) {
+        return relatedEighths[edge] / 8.0;
+    }
+}
@@ -0,0 +1,554 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+// Inverted index from resume skills, education and experience entries to the
+// resumes that contain them, for finding the best candidates for one job
+// without scoring every resume on file.
+//
+// A resume's match score is a sum of independent per-entry contributions
+// divided by (total keyword weight + a per-resume constant), so a query first
+// works out what each indexed entry is worth for the job and then only walks
+// the postings of entries worth something. MaxScore pruning on top of that
+// skips resumes whose best possible score cannot reach the current top K.
+// Scores are the same ones JobMatcher.calculateMatchScore produces.
+//
+// Entries are stored as ids from the shared TermDictionary, so the index holds
+// each distinct entry's text once per process rather than once per field.
+//
+// A query costs what the job and the entries it matches cost, not the size of
+// the vocabulary: per-entry values live in sparse maps, the automata that find
+// entries in the job text are only extended as entries arrive, and experience
+// entries are found from the grams of each job keyword.
+public class SkillIndex {
+    // Version 2 writes strings as length-prefixed UTF-8, as writeUTF in
+    // version 1 cannot hold more than 65535 encoded bytes
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int SKILL = 0;
+    private static final int EDUCATION = 1;
+    private static final int EXPERIENCE = 2;
+
+    private final List<String> resumeIds = new ArrayList<>();
+    private int[] educationCounts = new int[16];
+    private int[] experienceCounts = new int[16];
+
+    private final TermDictionary dictionary = TermDictionary.shared();
+
+    // Per field: the dictionary ids of the field's entries in the order they
+    // were first indexed (an entry's position is its local id), the local id
+    // plus one of every dictionary id (0 when absent), and the postings for
+    // each local id
+    private final int[][] termIds = new int[3][16];
+    private final int[] termCounts = new int[3];
+    private final int[][] localIds = new int[3][0];
+    private final List<List<Postings>> postings = new ArrayList<>();
+    // Per field, the local id of the empty entry, or -1
+    private final int[] emptyIds = {-1, -1, -1};
+
+    // Education and experience entries for scanning the job text, coded as
+    // 2 * local id (+ 1 for experience): automata over runs of entries in the
+    // order they were indexed, largest first, and the entries not compiled
+    // into one yet. Runs merge like carries in a binary counter, so each
+    // entry is recompiled O(log n) times in all and a scan runs O(log n)
+    // automata.
+    private final List<EntryRun> entryRuns = new ArrayList<>();
+    private int[] newEntries = new int[16];
+    private int newEntryCount;
+    // Experience entries by each 1, 2 and 3 character substring (see gram)
+    private final Map<Long, Postings> experienceGrams = new HashMap<>();
+
+    public SkillIndex() {
+        for (int field = 0; field < 3; field++) {
+            postings.add(new ArrayList<>());
+        }
+    }
+
+    // One resume in a top-K result
+    public static class Hit {
+        private final String resumeId;
+        private final double score;
+
+        public Hit(String resumeId, double score) {
+            this.resumeId = resumeId;
+            this.score = score;
+        }
+
+        public String getResumeId() {
+            return resumeId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private static class EntryRun {
+        final int[] entries;
+        final KeywordAutomaton automaton;
+
+        EntryRun(int[] entries, KeywordAutomaton automaton) {
+            this.entries = entries;
+            this.automaton = automaton;
+        }
+    }
+
+    // Growable, doc-ordered posting list
+    private static class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+        int maxFreq;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                maxFreq = Math.max(maxFreq, ++freqs[size - 1]);
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size++] = 1;
+            maxFreq = Math.max(maxFreq, 1);
+        }
+
+        // Index of the first posting at or after from whose doc is >= doc
+        int advance(int from, int doc) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && docs[high] < doc) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            int found = Arrays.binarySearch(docs, low, high, doc);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+
+    public synchronized int size() {
+        return resumeIds.size();
+    }
+
+    // Index one parsed resume and return its document number
+    public synchronized int addResume(String resumeId, List<String> skills, List<String> education,
+                                      List<String> experience) {
+        int doc = resumeIds.size();
+        resumeIds.add(resumeId);
+        if (doc == educationCounts.length) {
+            educationCounts = Arrays.copyOf(educationCounts, doc * 2);
+            experienceCounts = Arrays.copyOf(experienceCounts, doc * 2);
+        }
+        educationCounts[doc] = education.size();
+        experienceCounts[doc] = experience.size();
+
+        for (String skill : skills) {
+            addPosting(SKILL, skill, doc);
+        }
+        for (String edu : education) {
+            addPosting(EDUCATION, edu, doc);
+        }
+        for (String exp : experience) {
+            addPosting(EXPERIENCE, exp, doc);
+        }
+        return doc;
+    }
+
+    private void addPosting(int field, String term, int doc) {
+        int termId = dictionary.intern(term);
+        if (termId >= localIds[field].length) {
+            localIds[field] = Arrays.copyOf(localIds[field], Math.max(termId + 1, dictionary.size()));
+        }
+        int id = localIds[field][termId] - 1;
+        if (id < 0) {
+            id = termCounts[field]++;
+            if (id == termIds[field].length) {
+                termIds[field] = Arrays.copyOf(termIds[field], id * 2);
+            }
+            termIds[field][id] = termId;
+            localIds[field][termId] = id + 1;
+            postings.get(field).add(new Postings());
+            if (term.isEmpty()) {
+                emptyIds[field] = id;
+            }
+            if (field != SKILL) {
+                if (newEntryCount == newEntries.length) {
+                    newEntries = Arrays.copyOf(newEntries, newEntryCount * 2);
+                }
+                newEntries[newEntryCount++] = 2 * id + (field == EXPERIENCE ? 1 : 0);
+            }
+            if (field == EXPERIENCE) {
+                String lower = dictionary.lowerCaseTerm(termId);
+                for (int length = 1; length <= 3; length++) {
+                    for (int i = 0; i + length <= lower.length(); i++) {
+                        experienceGrams.computeIfAbsent(gram(lower, i, length), g -> new Postings()).add(id);
+                    }
+                }
+            }
+        }
+        postings.get(field).get(id).add(doc);
+    }
+
+    // Lowercased text of a field's entry, by local id
+    private String lowerCaseTerm(int field, int id) {
+        return dictionary.lowerCaseTerm(termIds[field][id]);
+    }
+
+    // The length and characters of a substring of up to 3 characters
+    private static long gram(String text, int offset, int length) {
+        long gram = length;
+        for (int i = offset; i < offset + length; i++) {
+            gram = (gram << 16) | text.charAt(i);
+        }
+        return gram;
+    }
+
+    // Top K resumes for a job, best first, scored exactly like calculateMatchScore
+    public synchronized List<Hit> topK(JobProfile job, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        List<Postings> lists = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        collectContributions(job, lists, values);
+        return maxScore(lists, values, job.getTotalWeight(), k);
+    }
+
+    // Work out what each indexed entry is worth for this job, keeping only the
+    // entries worth something
+    private void collectContributions(JobProfile job, List<Postings> lists, List<Double> values) {
+
+        // The skill vocabulary is bounded by the skill dictionary, so it is cheap
+        // to walk; the profile memoizes each skill's value by term id
+        for (int id = 0; id < termCounts[SKILL]; id++) {
+            double value = job.skillContribution(termIds[SKILL][id]);
+            if (value > 0) {
+                lists.add(postings.get(SKILL).get(id));
+                values.add(value);
+            }
+        }
+
+        // Education and experience entries the job description mentions, by
+        // local id; sorted, so values are added up in the same order as ever
+        Map<Integer, Double> educationValue = new TreeMap<>();
+        Map<Integer, Double> experienceValue = new TreeMap<>();
+        String text = job.getLowerCaseText();
+        for (EntryRun run : entryRuns()) {
+            run.automaton.scan(text, (keyword, start, end) -> {
+                int entry = run.entries[keyword];
+                if ((entry & 1) == 0) {
+                    educationValue.put(entry >>> 1, 0.5);
+                } else {
+                    experienceValue.put(entry >>> 1, 0.75);
+                }
+            });
+        }
+        if (emptyIds[EDUCATION] >= 0) {
+            educationValue.put(emptyIds[EDUCATION], 0.5);
+        }
+        for (Map.Entry<Integer, Double> entry : educationValue.entrySet()) {
+            lists.add(postings.get(EDUCATION).get(entry.getKey()));
+            values.add(entry.getValue());
+        }
+
+        // Experience entries that mention a job keyword earn half its weight,
+        // using the first such keyword in iteration order
+        Set<Integer> credited = new HashSet<>();
+        for (int keyword = 0; keyword < job.keywordCount(); keyword++) {
+            String key = job.keyword(keyword).toLowerCase();
+            double credit = 0.5 * job.weight(keyword);
+            for (int id : experienceTermsContaining(key)) {
+                if (credited.add(id)) {
+                    experienceValue.merge(id, credit, Double::sum);
+                }
+            }
+        }
+        if (emptyIds[EXPERIENCE] >= 0) {
+            experienceValue.merge(emptyIds[EXPERIENCE], 0.75, Double::sum);
+        }
+        for (Map.Entry<Integer, Double> entry : experienceValue.entrySet()) {
+            if (entry.getValue() > 0) {
+                lists.add(postings.get(EXPERIENCE).get(entry.getKey()));
+                values.add(entry.getValue());
+            }
+        }
+    }
+
+    // Compile the entries indexed since the last query into a run, merging
+    // it with every run that is no larger
+    private List<EntryRun> entryRuns() {
+        if (newEntryCount == 0) {
+            return entryRuns;
+        }
+        int[] entries = Arrays.copyOf(newEntries, newEntryCount);
+        newEntryCount = 0;
+        while (!entryRuns.isEmpty() && entryRuns.get(entryRuns.size() - 1).entries.length <= entries.length) {
+            int[] last = entryRuns.remove(entryRuns.size() - 1).entries;
+            int[] merged = Arrays.copyOf(last, last.length + entries.length);
+            System.arraycopy(entries, 0, merged, last.length, entries.length);
+            entries = merged;
+        }
+        List<String> keywords = new ArrayList<>(entries.length);
+        for (int entry : entries) {
+            keywords.add(lowerCaseTerm((entry & 1) == 0 ? EDUCATION : EXPERIENCE, entry >>> 1));
+        }
+        entryRuns.add(new EntryRun(entries, new KeywordAutomaton(keywords, false, false)));
+        return entryRuns;
+    }
+
+    // Experience term ids whose lowercased text contains the given lowercased key
+    private int[] experienceTermsContaining(String key) {
+        if (key.isEmpty()) {
+            // Every entry contains it
+            return IntStream.range(0, termCounts[EXPERIENCE]).toArray();
+        }
+        if (key.length() <= 3) {
+            // The gram's postings are exactly the entries containing it
+            Postings list = experienceGrams.get(gram(key, 0, key.length()));
+            return list == null ? new int[0] : Arrays.copyOf(list.docs, list.size);
+        }
+
+        // Intersect trigram postings starting from the rarest one, then verify
+        Postings rarest = null;
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            Postings list = experienceGrams.get(gram(key, i, 3));
+            if (list == null) {
+                return new int[0];
+            }
+            if (rarest == null || list.size < rarest.size) {
+                rarest = list;
+            }
+        }
+        int[] candidates = new int[rarest.size];
+        int count = 0;
+        for (int i = 0; i < rarest.size; i++) {
+            int id = rarest.docs[i];
+            if (lowerCaseTerm(EXPERIENCE, id).contains(key)) {
+                candidates[count++] = id;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    // Document-at-a-time MaxScore over the posting lists that carry weight
+    private List<Hit> maxScore(List<Postings> lists, List<Double> values, double totalWeight, int k) {
+        int n = lists.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        // Lowest upper bound first, so the non-essential lists form a prefix
+        Arrays.sort(order, Comparator.comparingDouble(i -> values.get(i) * lists.get(i).maxFreq));
+
+        Postings[] sortedLists = new Postings[n];
+        double[] sortedValues = new double[n];
+        double[] prefixBound = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            sortedLists[i] = lists.get(order[i]);
+            sortedValues[i] = values.get(order[i]);
+            prefixBound[i + 1] = prefixBound[i] + sortedValues[i] * sortedLists[i].maxFreq;
+        }
+
+        int[] cursor = new int[n];
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::getScore));
+        double threshold = -1;
+        int firstEssential = 0;
+
+        while (true) {
+            // Next document present in any essential list
+            int doc = Integer.MAX_VALUE;
+            for (int i = firstEssential; i < n; i++) {
+                if (cursor[i] < sortedLists[i].size) {
+                    doc = Math.min(doc, sortedLists[i].docs[cursor[i]]);
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+
+            double weight = 0;
+            for (int i = firstEssential; i < n; i++) {
+                Postings list = sortedLists[i];
+                if (cursor[i] < list.size && list.docs[cursor[i]] == doc) {
+                    weight += sortedValues[i] * list.freqs[cursor[i]];
+                    cursor[i]++;
+                }
+            }
+
+            // Probe the non-essential lists only while the document can still make the cut
+            for (int i = firstEssential - 1; i >= 0; i--) {
+                if (scoreBound(weight + prefixBound[i + 1], totalWeight) <= threshold) {
+                    break;
+                }
+                Postings list = sortedLists[i];
+                cursor[i] = list.advance(cursor[i], doc);
+                if (cursor[i] < list.size && list.docs[cursor[i]] == doc) {
+                    weight += sortedValues[i] * list.freqs[cursor[i]];
+                }
+            }
+
+            double score = score(weight, totalWeight, doc);
+            if (best.size() < k) {
+                best.add(new Hit(resumeIds.get(doc), score));
+            } else if (score > threshold) {
+                best.poll();
+                best.add(new Hit(resumeIds.get(doc), score));
+            } else {
+                continue;
+            }
+
+            if (best.size() == k) {
+                threshold = best.peek().getScore();
+                while (firstEssential < n && scoreBound(prefixBound[firstEssential + 1], totalWeight) <= threshold) {
+                    firstEssential++;
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparing(Hit::getResumeId));
+        return hits;
+    }
+
+    // Same formula as calculateMatchScore
+    private double score(double matchedWeight, double totalWeight, int doc) {
+        double maxPossibleWeight = totalWeight + educationCounts[doc] * 0.5 + experienceCounts[doc] * 0.75;
+        return (maxPossibleWeight > 0) ? Math.min(100, (matchedWeight / maxPossibleWeight) * 100) : 0;
+    }
+
+    // Highest score any resume could reach with the given matched weight
+    private static double scoreBound(double matchedWeight, double totalWeight) {
+        return totalWeight > 0 ? Math.min(100, (matchedWeight / totalWeight) * 100) : 100;
+    }
+
+    public synchronized void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(resumeIds.size());
+            for (int doc = 0; doc < resumeIds.size(); doc++) {
+                writeString(out, resumeIds.get(doc));
+                out.writeInt(educationCounts[doc]);
+                out.writeInt(experienceCounts[doc]);
+            }
+            for (int field = 0; field < 3; field++) {
+                out.writeInt(termCounts[field]);
+                for (int id = 0; id < termCounts[field]; id++) {
+                    Postings list = postings.get(field).get(id);
+                    writeString(out, dictionary.term(termIds[field][id]));
+                    out.writeInt(list.size);
+                    for (int i = 0; i < list.size; i++) {
+                        out.writeInt(list.docs[i]);
+                        out.writeInt(list.freqs[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    public static SkillIndex load(Path file) throws IOException {
+        SkillIndex index = new SkillIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION && version != 1) {
+                throw new IOException("Unsupported index format " + version + " in " + file);
+            }
+            int docs = in.readInt();
+            index.educationCounts = new int[Math.max(16, docs)];
+            index.experienceCounts = new int[Math.max(16, docs)];
+            for (int doc = 0; doc < docs; doc++) {
+                index.resumeIds.add(readString(in, version));
+                index.educationCounts[doc] = in.readInt();
+                index.experienceCounts[doc] = in.readInt();
+            }
+            for (int field = 0; field < 3; field++) {
+                int termCount = in.readInt();
+                for (int id = 0; id < termCount; id++) {
+                    String term = readString(in, version);
+                    int size = in.readInt();
+                    for (int i = 0; i < size; i++) {
+                        int doc = in.readInt();
+                        int freq = in.readInt();
+                        for (int f = 0; f < freq; f++) {
+                            index.addPosting(field, term, doc);
+                        }
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, int version) throws IOException {
+        if (version == 1) {
+            return in.readUTF();
+        }
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt index: string of length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Usage: --index build <resume dir|manifest> <index file>
+    //        --index query <index file> <job description file> [k]
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 4 && args[1].equals("build")) {
+            ResumeParser parser = new ResumeParser();
+            SkillIndex index = new SkillIndex();
+            for (Path resumeFile : BatchRanker.collectResumes(Paths.get(args[2]))) {
+                ParsedResume resume;
+                try {
+                    resume = parser.readResume(resumeFile.toString()).parse(parser);
+                } catch (IOException e) {
+                    System.err.println("Skipping " + resumeFile + ": could not extract text");
+                    continue;
+                }
+                index.addResume(resume.getSourceFile(), resume.getSkills(), resume.getEducation(),
+                        resume.getExperience());
+            }
+            index.save(Paths.get(args[3]));
+            System.out.println("Indexed " + index.size() + " resumes into " + args[3]);
+        } else if (args.length >= 4 && args[1].equals("query")) {
+            SkillIndex index = load(Paths.get(args[2]));
+            String jobDescription = new String(Files.readAllBytes(Paths.get(args[3])));
+            int k = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+            JobProfile job = new JobMatcher().getJobProfile(jobDescription);
+            int rank = 1;
+            for (Hit hit : index.topK(job, k)) {
+                System.out.println(String.format("%3d. %6.2f%%  %s", rank++, hit.getScore(), hit.getResumeId()));
+            }
+        } else {
+            System.err.println("Usage: Main --index build <resume dir|manifest> <index file>");
+            System.err.println("       Main --index query <index file> <job description file> [k]");
+        }
+    }
+}
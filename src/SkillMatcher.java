@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Finds dictionary skills in text with a single pass of a KeywordAutomaton.
+//
+// Skills are organized in groups (technical skills, frameworks, concepts...).
+// Within a group a skill only counts as a whole word, case-sensitively, and
+// matches never overlap: at each position the earliest skill wins, and on a
+// tie the one listed first. That is exactly how the old per-group
+// "\b(A|B|C)\b" alternation regexes behaved, so results are unchanged, but the
+// cost no longer grows with the number of skills in the dictionary.
+public class SkillMatcher {
+    private final KeywordAutomaton automaton;
+    private final int[] groupOf;
+    private final int groupCount;
+
+    public SkillMatcher(String[]... groups) {
+        List<String> terms = new ArrayList<>();
+        List<Integer> termGroups = new ArrayList<>();
+        for (int g = 0; g < groups.length; g++) {
+            for (String term : groups[g]) {
+                terms.add(term);
+                termGroups.add(g);
+            }
+        }
+        this.automaton = new KeywordAutomaton(terms, false, true);
+        this.groupOf = termGroups.stream().mapToInt(Integer::intValue).toArray();
+        this.groupCount = groups.length;
+    }
+
+    private SkillMatcher(KeywordAutomaton automaton, int[] groupOf, int groupCount) {
+        this.automaton = automaton;
+        this.groupOf = groupOf;
+        this.groupCount = groupCount;
+    }
+
+    // Save the compiled matcher; read() restores it without rebuilding
+    public void write(Snapshot.Writer out) throws IOException {
+        out.writeInt(groupCount);
+        out.writeInts(groupOf);
+        automaton.write(out);
+    }
+
+    public static SkillMatcher read(ByteBuffer in) {
+        int groupCount = in.getInt();
+        int[] groupOf = Snapshot.readInts(in);
+        KeywordAutomaton automaton = KeywordAutomaton.read(in);
+        if (groupOf.length != automaton.size()) {
+            throw new IllegalArgumentException("Damaged snapshot: inconsistent skill groups");
+        }
+        for (int group : groupOf) {
+            if (group < 0 || group >= groupCount) {
+                throw new IllegalArgumentException("Damaged snapshot: skill group " + group);
+            }
+        }
+        return new SkillMatcher(automaton, groupOf, groupCount);
+    }
+
+    // Every skill term in the dictionary, in group order
+    public List<String> terms() {
+        List<String> terms = new ArrayList<>(automaton.size());
+        for (int k = 0; k < automaton.size(); k++) {
+            terms.add(automaton.keyword(k));
+        }
+        return Collections.unmodifiableList(terms);
+    }
+
+    public int size() {
+        return automaton.size();
+    }
+
+    public String term(int index) {
+        return automaton.keyword(index);
+    }
+
+    // Distinct skills found in the text, grouped in dictionary group order and
+    // then by first occurrence
+    public List<String> findSkills(String text) {
+        Set<String> skills = new LinkedHashSet<>();
+        for (int index : findSkillIndexes(text)) {
+            skills.add(automaton.keyword(index));
+        }
+        return new ArrayList<>(skills);
+    }
+
+    // Same as findSkills, as indexes into terms(). Matches never cross a line
+    // break, so the skills of a text are the union of the skills of its lines.
+    public int[] findSkillIndexes(String text) {
+        // Each hit is packed as (group, start, keyword) so that sorting the
+        // array puts every group's hits in regex scan order
+        long[][] hits = new long[1][16];
+        int[] count = new int[1];
+        automaton.scan(text, (keyword, start, end) -> {
+            if (count[0] == hits[0].length) {
+                hits[0] = Arrays.copyOf(hits[0], count[0] * 2);
+            }
+            hits[0][count[0]++] = ((long) groupOf[keyword] << 52) | ((long) start << 20) | keyword;
+        });
+
+        long[] sorted = hits[0];
+        Arrays.sort(sorted, 0, count[0]);
+
+        Set<Integer> skills = new LinkedHashSet<>();
+        int[] groupEnd = new int[groupCount];
+        int lastGroup = -1;
+        int lastStart = -1;
+        for (int i = 0; i < count[0]; i++) {
+            int group = (int) (sorted[i] >>> 52);
+            int start = (int) ((sorted[i] >>> 20) & 0xFFFFFFFFL);
+            int keyword = (int) (sorted[i] & 0xFFFFF);
+            if (group == lastGroup && start == lastStart) {
+                continue; // a skill listed earlier already matched here
+            }
+            if (start < groupEnd[group]) {
+                continue; // overlaps the previous match in this group
+            }
+            lastGroup = group;
+            lastStart = start;
+            groupEnd[group] = start + automaton.keyword(keyword).length();
+            skills.add(keyword);
+        }
+        return skills.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Encoding of the binary snapshots compiled structures are saved in (see
+// Taxonomy). Arrays are their length followed by their values, little-endian
+// like the machines this runs on, so reading one back from a mapped file is a
+// plain memory copy rather than a rebuild. Lists of strings are stored as
+// their lengths and one block of characters.
+public final class Snapshot {
+    private Snapshot() {
+    }
+
+    // Buffered writer onto a channel
+    public static class Writer implements Closeable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        public Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        public void writeBoolean(boolean value) throws IOException {
+            room(1);
+            buffer.put((byte) (value ? 1 : 0));
+        }
+
+        public void writeInt(int value) throws IOException {
+            room(4);
+            buffer.putInt(value);
+        }
+
+        public void writeInts(int[] values) throws IOException {
+            writeInt(values.length);
+            for (int done = 0; done < values.length; ) {
+                room(4);
+                int count = Math.min(values.length - done, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, done, count);
+                buffer.position(buffer.position() + count * 4);
+                done += count;
+            }
+        }
+
+        public void writeLongs(long[] values) throws IOException {
+            writeInt(values.length);
+            for (int done = 0; done < values.length; ) {
+                room(8);
+                int count = Math.min(values.length - done, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, done, count);
+                buffer.position(buffer.position() + count * 8);
+                done += count;
+            }
+        }
+
+        public void writeString(String value) throws IOException {
+            writeInt(value.length());
+            writeChars(value.toCharArray());
+        }
+
+        public void writeStrings(List<String> values) throws IOException {
+            int[] lengths = new int[values.size()];
+            StringBuilder chars = new StringBuilder();
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] = values.get(i).length();
+                chars.append(values.get(i));
+            }
+            writeInts(lengths);
+            writeInt(chars.length());
+            char[] all = new char[chars.length()];
+            chars.getChars(0, all.length, all, 0);
+            writeChars(all);
+        }
+
+        private void writeChars(char[] values) throws IOException {
+            for (int done = 0; done < values.length; ) {
+                room(2);
+                int count = Math.min(values.length - done, buffer.remaining() / 2);
+                buffer.asCharBuffer().put(values, done, count);
+                buffer.position(buffer.position() + count * 2);
+                done += count;
+            }
+        }
+
+        // Flush when fewer than bytes are free
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Readers take a buffer in snapshot byte order, see order()
+    public static ByteBuffer order(ByteBuffer in) {
+        return in.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public static int[] readInts(ByteBuffer in) {
+        int[] values = new int[readLength(in, 4)];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * 4);
+        return values;
+    }
+
+    public static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[readLength(in, 8)];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * 8);
+        return values;
+    }
+
+    public static String readString(ByteBuffer in) {
+        return new String(readChars(in, readLength(in, 2)));
+    }
+
+    public static List<String> readStrings(ByteBuffer in) {
+        int[] lengths = readInts(in);
+        char[] chars = readChars(in, readLength(in, 2));
+        List<String> values = new ArrayList<>(lengths.length);
+        int offset = 0;
+        for (int length : lengths) {
+            if (length < 0 || length > chars.length - offset) {
+                throw new IllegalArgumentException("Damaged snapshot: string length " + length);
+            }
+            values.add(new String(chars, offset, length));
+            offset += length;
+        }
+        return values;
+    }
+
+    private static char[] readChars(ByteBuffer in, int count) {
+        char[] chars = new char[count];
+        in.asCharBuffer().get(chars);
+        in.position(in.position() + count * 2);
+        return chars;
+    }
+
+    // A length that fits in what is left of the buffer, so a damaged
+    // snapshot fails here rather than with a huge allocation
+    private static int readLength(ByteBuffer in, int bytesEach) {
+        int length = in.getInt();
+        if (length < 0 || (long) length * bytesEach > in.remaining()) {
+            throw new IllegalArgumentException("Damaged snapshot: length " + length + " at " + in.position());
+        }
+        return length;
+    }
+}
@@ -0,0 +1,73 @@
+// A document as a unit-length TF-IDF vector: parallel arrays of term ids
+// (ascending) and weights.
+//
+// A term's weight is (1 + ln tf) * idf, so a word repeated ten times counts
+// about three times as much as a word used once, and words most documents
+// share count little. Vectors are normalized when built, so the cosine
+// similarity of two documents is just the dot product over their shared
+// terms, found by merging the two sorted id arrays.
+public class SparseVector {
+    public static final SparseVector EMPTY = new SparseVector(new int[0], new double[0]);
+
+    private final int[] ids;
+    private final double[] weights;
+
+    private SparseVector(int[] ids, double[] weights) {
+        this.ids = ids;
+        this.weights = weights;
+    }
+
+    public static SparseVector tfIdf(TermVector terms, CorpusStats corpus) {
+        int size = terms.size();
+        if (size == 0) {
+            return EMPTY;
+        }
+        int[] ids = new int[size];
+        double[] weights = new double[size];
+        double squares = 0;
+        for (int i = 0; i < size; i++) {
+            ids[i] = terms.id(i);
+            weights[i] = (1 + Math.log(terms.count(i))) * corpus.idf(ids[i]);
+            squares += weights[i] * weights[i];
+        }
+        double norm = Math.sqrt(squares);
+        for (int i = 0; i < size; i++) {
+            weights[i] /= norm;
+        }
+        return new SparseVector(ids, weights);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    public double weight(int index) {
+        return weights[index];
+    }
+
+    // Cosine similarity in [0, 1]; 0 when either document is empty
+    public double cosine(SparseVector other) {
+        int[] otherIds = other.ids;
+        double[] otherWeights = other.weights;
+        double dot = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids.length && j < otherIds.length) {
+            int a = ids[i];
+            int b = otherIds[j];
+            if (a == b) {
+                dot += weights[i++] * otherWeights[j++];
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        // Rounding can push identical documents a hair past 1
+        return Math.min(1.0, dot);
+    }
+}
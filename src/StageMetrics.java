@@ -0,0 +1,440 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Per-stage timing of the analysis pipeline.
+//
+// Every stage call is wrapped in a Span:
+//
+//   try (StageMetrics.Span span = StageMetrics.begin(StageMetrics.Stage.EXTRACT_SKILLS, text.length())) {
+//       List<String> skills = ...;
+//       span.succeeded();
+//       return skills;
+//   }
+//
+// Each stage keeps lock-free counters and a latency histogram with four
+// buckets per power of two (LongAdder and AtomicLongArray, so concurrent
+// requests never contend on a lock). The numbers are exposed as one MXBean
+// per stage under "ResumeAnalyzer:type=Stage", and as Prometheus text format
+// (ScoringServer serves it on /metrics). Each span is also a "resume.Stage"
+// Flight Recorder event carrying the stage, document size and outcome, which
+// JFR records whenever a recording with the event enabled is running.
+//
+// Recording is switched with -Dresume.metrics=false at startup, and at runtime
+// through the Enabled attribute of "ResumeAnalyzer:type=StageMetrics" or
+// setEnabled. When neither metrics nor the JFR event are on, begin() returns a
+// shared no-op span and costs two volatile reads.
+public class StageMetrics {
+
+    public enum Stage {
+        // Input size: resume file bytes
+        EXTRACT_TEXT("extractText"),
+        // Input size for the rest: characters of text, or terms for scoring
+        EXTRACT_SKILLS("extractSkills"),
+        EXTRACT_EDUCATION("extractEducation"),
+        EXTRACT_EXPERIENCE("extractExperience"),
+        CALCULATE_KEYWORD_WEIGHTS("calculateKeywordWeights"),
+        CALCULATE_MATCH_SCORE("calculateMatchScore"),
+        SUGGEST_ENHANCEMENTS("suggestEnhancements"),
+        GENERATE_REPORT("generateReport");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    // Histogram buckets: values below 4ns get their own bucket, above that
+    // each power of two is split into four
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    // Prometheus "le" bounds are powers of two from ~1us to ~69s
+    private static final int FIRST_EXPORTED_POWER = 10;
+    private static final int LAST_EXPORTED_POWER = 36;
+
+    private static final String JMX_DOMAIN = "ResumeAnalyzer";
+
+    private static volatile boolean enabled = !"false".equals(System.getProperty("resume.metrics"));
+    private static final StageStats[] STATS = new StageStats[Stage.values().length];
+    private static final StageEvent EVENT_PROBE = new StageEvent();
+    private static final Span NOOP = new Span(null, 0, 0, null);
+    private static boolean mbeansRegistered;
+
+    static {
+        for (Stage stage : Stage.values()) {
+            STATS[stage.ordinal()] = new StageStats(stage);
+        }
+    }
+
+    private StageMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // Start timing a stage; size is the document size the stage works on
+    public static Span begin(Stage stage, long size) {
+        boolean recording = enabled;
+        boolean tracing = EVENT_PROBE.isEnabled();
+        if (!recording && !tracing) {
+            return NOOP;
+        }
+        StageEvent event = null;
+        if (tracing) {
+            event = new StageEvent();
+            event.begin();
+        }
+        return new Span(stage, size, recording ? System.nanoTime() : 0, event);
+    }
+
+    // One timed stage call. The outcome is "error" unless succeeded() is
+    // called before the span is closed.
+    public static class Span implements AutoCloseable {
+        private final Stage stage;
+        private final long startNanos;
+        private final StageEvent event;
+        private long size;
+        private boolean ok;
+        private String outcome = "error";
+
+        Span(Stage stage, long size, long startNanos, StageEvent event) {
+            this.stage = stage;
+            this.size = size;
+            this.startNanos = startNanos;
+            this.event = event;
+        }
+
+        // For stages that only learn their input size while running
+        public void setSize(long size) {
+            if (stage != null) {
+                this.size = size;
+            }
+        }
+
+        public void succeeded() {
+            if (stage != null) {
+                ok = true;
+                outcome = "ok";
+            }
+        }
+
+        // A failure reason more specific than "error", such as an ExtractionException reason
+        public void failed(String reason) {
+            if (stage != null) {
+                ok = false;
+                outcome = reason;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (stage == null) {
+                return;
+            }
+            if (startNanos != 0) {
+                STATS[stage.ordinal()].record(System.nanoTime() - startNanos, size, ok);
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.stage = stage.getLabel();
+                    event.documentSize = size;
+                    event.outcome = outcome;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    @Name("resume.Stage")
+    @Label("Analysis Stage")
+    @Category("Resume Analyzer")
+    @Description("One call of a resume analysis pipeline stage")
+    static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Document Size")
+        @Description("Resume file bytes for extractText, characters or terms for the other stages")
+        long documentSize;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    // JMX view of one stage; times are in milliseconds
+    public interface StageMXBean {
+        String getStage();
+
+        long getCount();
+
+        long getErrors();
+
+        long getInputSize();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP90Millis();
+
+        double getP99Millis();
+
+        double getMaxMillis();
+    }
+
+    // JMX switch for recording
+    public interface StageMetricsMXBean {
+        boolean isEnabled();
+
+        void setEnabled(boolean enabled);
+
+        void reset();
+    }
+
+    private static class StageStats implements StageMXBean {
+        private final Stage stage;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder inputSize = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        StageStats(Stage stage) {
+            this.stage = stage;
+        }
+
+        void record(long nanos, long size, boolean ok) {
+            count.increment();
+            if (!ok) {
+                errors.increment();
+            }
+            totalNanos.add(nanos);
+            inputSize.add(size);
+            buckets.incrementAndGet(bucket(nanos));
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        void reset() {
+            count.reset();
+            errors.reset();
+            totalNanos.reset();
+            inputSize.reset();
+            maxNanos.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        // Upper bound of the bucket holding the given quantile, in nanoseconds
+        long quantileNanos(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        // Number of recorded values below 2^power nanoseconds
+        long countBelowPowerOfTwo(int power) {
+            long below = 0;
+            for (int i = 0; i < Math.min(BUCKETS, power * SUB_BUCKETS); i++) {
+                below += buckets.get(i);
+            }
+            return below;
+        }
+
+        @Override
+        public String getStage() {
+            return stage.getLabel();
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getInputSize() {
+            return inputSize.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return quantileNanos(0.50) / 1e6;
+        }
+
+        @Override
+        public double getP90Millis() {
+            return quantileNanos(0.90) / 1e6;
+        }
+
+        @Override
+        public double getP99Millis() {
+            return quantileNanos(0.99) / 1e6;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+    }
+
+    // Bucket of a duration: its power of two, then the next two bits
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        int power = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (power - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return power * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int power = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (power - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + sub) * width) + width - 1;
+    }
+
+    public static void reset() {
+        for (StageStats stats : STATS) {
+            stats.reset();
+        }
+    }
+
+    public static StageMXBean stats(Stage stage) {
+        return STATS[stage.ordinal()];
+    }
+
+    // Register the per-stage and control MXBeans on the platform MBean server,
+    // once per JVM
+    public static synchronized void registerMBeans() {
+        if (mbeansRegistered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new StageMetricsMXBean() {
+                @Override
+                public boolean isEnabled() {
+                    return StageMetrics.isEnabled();
+                }
+
+                @Override
+                public void setEnabled(boolean on) {
+                    StageMetrics.setEnabled(on);
+                }
+
+                @Override
+                public void reset() {
+                    StageMetrics.reset();
+                }
+            }, new ObjectName(JMX_DOMAIN + ":type=StageMetrics"));
+            for (StageStats stats : STATS) {
+                server.registerMBean(stats, new ObjectName(JMX_DOMAIN + ":type=Stage,name=" + stats.getStage()));
+            }
+            mbeansRegistered = true;
+        } catch (JMException e) {
+            System.err.println("Stage metrics not registered with JMX: " + e.getMessage());
+        }
+    }
+
+    // Every stage in Prometheus text exposition format
+    public static String prometheusText() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        out.append("# HELP resume_stage_duration_seconds Time spent in each analysis stage.\n");
+        out.append("# TYPE resume_stage_duration_seconds histogram\n");
+        for (StageStats stats : STATS) {
+            String stage = stats.getStage();
+            for (int power = FIRST_EXPORTED_POWER; power <= LAST_EXPORTED_POWER; power++) {
+                out.append("resume_stage_duration_seconds_bucket{stage=\"").append(stage).append("\",le=\"")
+                        .append(seconds(1L << power)).append("\"} ")
+                        .append(stats.countBelowPowerOfTwo(power)).append('\n');
+            }
+            long count = stats.getCount();
+            out.append("resume_stage_duration_seconds_bucket{stage=\"").append(stage).append("\",le=\"+Inf\"} ")
+                    .append(count).append('\n');
+            out.append("resume_stage_duration_seconds_sum{stage=\"").append(stage).append("\"} ")
+                    .append(seconds(stats.totalNanos.sum())).append('\n');
+            out.append("resume_stage_duration_seconds_count{stage=\"").append(stage).append("\"} ")
+                    .append(count).append('\n');
+        }
+        appendCounter(out, "resume_stage_errors_total", "Stage calls that failed.", StageStats::getErrors);
+        appendCounter(out, "resume_stage_input_size_total",
+                "Input processed: resume file bytes for extractText, characters or terms for the other stages.",
+                StageStats::getInputSize);
+        out.append("# HELP resume_stage_metrics_enabled Whether stage metrics are being recorded.\n");
+        out.append("# TYPE resume_stage_metrics_enabled gauge\n");
+        out.append("resume_stage_metrics_enabled ").append(enabled ? 1 : 0).append('\n');
+        return out.toString();
+    }
+
+    private interface Counter {
+        long value(StageStats stats);
+    }
+
+    private static void appendCounter(StringBuilder out, String name, String help, Counter counter) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        for (StageStats stats : STATS) {
+            out.append(name).append("{stage=\"").append(stats.getStage()).append("\"} ")
+                    .append(counter.value(stats)).append('\n');
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
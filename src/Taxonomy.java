@@ -0,0 +1,530 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The terms ResumeParser looks for: skills, degrees and fields of study, and
+// job titles, compiled into matchers.
+//
+// Terms are read from data/taxonomy.txt (or -Dresume.taxonomy=<file>), which
+// documents the syntax; the built-in DEFAULT_TAXONOMY is used when there is
+// no such file. Skills go into a SkillMatcher and degrees, fields and titles
+// into PhraseMatchers, so matching costs one pass over the text however many
+// terms there are, and finds what the old hardcoded regexes found.
+//
+// Compiling tens of thousands of terms takes a while, so the compiled form is
+// saved next to the file (taxonomy.bin, or -Dresume.taxonomySnapshot=<file>)
+// together with the SHA-256 of the text it came from, and later processes
+// load that instead as long as the text is unchanged.
+//
+// The file is checked for changes every -Dresume.taxonomy.reloadMillis (2000
+// by default, 0 to turn off) on a background thread. A changed file is
+// compiled there and swapped in atomically, so analyses never wait for a
+// reload: each one uses the taxonomy that was current when it started.
+public class Taxonomy {
+    public static final String[] DEFAULT_TAXONOMY = {
+        "[skills: Technical]",
+        "Java", "Python", "C++", "JavaScript", "React", "Angular", "Vue", "Node.js", "Express", "Spring",
+        "Hibernate", "SQL", "NoSQL", "MongoDB", "MySQL", "PostgreSQL", "AWS", "Azure", "GCP", "Docker",
+        "Kubernetes", "CI/CD", "Jenkins", "Git", "REST", "SOAP", "Microservices", "Machine Learning", "AI",
+        "Data Science", "TensorFlow", "PyTorch", "NLP", "Computer Vision", "Agile", "Scrum", "DevOps", "HTML",
+        "CSS", "XML", "JSON",
+        "[skills: Frameworks]",
+        "Spring Boot", "Django", "Flask", "Laravel", "ASP.NET", "Ruby on Rails", "Symfony", "Bootstrap",
+        "JUnit", "Mockito", "Selenium", "Cypress", "Jest", "Mocha", "Chai",
+        "[skills: Concepts]",
+        "Object-Oriented Programming", "OOP", "Functional Programming", "Data Structures", "Algorithms",
+        "Design Patterns", "MVC", "MVVM", "REST API", "GraphQL", "SOLID", "Clean Code", "TDD", "BDD",
+        "Multithreading", "Concurrency", "Parallel Computing", "Distributed Systems", "Cloud Computing",
+        "Serverless", "Blockchain",
+        "[degrees]",
+        "Bachelor", "Master", "PhD", "B.Tech", "M.Tech", "MBA", "B.S.", "M.S.", "B.A.", "M.A.", "B.E.",
+        "[fields]",
+        "Engineering", "Science", "Computer Science", "Information Technology", "Technology",
+        "[degrees anywhere]",
+        "Bachelor", "Master", "PhD", "B.Tech", "M.Tech", "MBA",
+        "[fields anywhere]",
+        "Computer Science", "Engineering", "Technology",
+        "[education lines]",
+        "Bachelor", "Master", "B.Tech", "Computer Science", "Engineering",
+        "[titles]",
+        "Intern", "Software Developer", "Developer", "Engineer", "Software Engineer", "Data Scientist", "Analyst",
+        "Manager",
+        "[titles anywhere]",
+        "Software Development Intern", "Intern", "Software Developer", "Developer", "Engineer", "Software Engineer",
+        "[experience lines]",
+        "Intern", "Developer", "Engineer", "Software"
+    };
+
+    private static final String DEFAULT_FILE = "data/taxonomy.txt";
+    private static final String SKILLS_HEADING = "skills:";
+    private static final List<String> LISTS = Arrays.asList("degrees", "fields", "degrees anywhere",
+            "fields anywhere", "education lines", "titles", "titles anywhere", "experience lines");
+    private static final int SNAPSHOT_MAGIC = 0x52545831; // "RTX1"
+    // Bump when the snapshot layout or what is compiled into it changes
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long RACY_MILLIS = 2000;
+    // Most characters between a degree and "of"/"in", and before the field
+    private static final int MAX_CONNECTIVE_GAP = 20;
+    private static final int MAX_FIELD_GAP = 100;
+
+    private static final AtomicReference<Taxonomy> CURRENT = new AtomicReference<>();
+    private static ScheduledExecutorService reloader;
+
+    private final String hash;
+    private final List<String> skillGroups;
+    private final SkillMatcher skills;
+    private final PhraseMatcher degrees;
+    private final PhraseMatcher fields;
+    private final PhraseMatcher degreesAnywhere;
+    private final PhraseMatcher fieldsAnywhere;
+    private final List<String> educationLines;
+    private final PhraseMatcher titles;
+    private final PhraseMatcher titlesAnywhere;
+    private final List<String> experienceLines;
+
+    private Taxonomy(String hash, List<String> skillGroups, SkillMatcher skills, PhraseMatcher degrees,
+                     PhraseMatcher fields, PhraseMatcher degreesAnywhere, PhraseMatcher fieldsAnywhere,
+                     List<String> educationLines, PhraseMatcher titles, PhraseMatcher titlesAnywhere,
+                     List<String> experienceLines) {
+        this.hash = hash;
+        this.skillGroups = Collections.unmodifiableList(skillGroups);
+        this.skills = skills;
+        this.degrees = degrees;
+        this.fields = fields;
+        this.degreesAnywhere = degreesAnywhere;
+        this.fieldsAnywhere = fieldsAnywhere;
+        this.educationLines = Collections.unmodifiableList(educationLines);
+        this.titles = titles;
+        this.titlesAnywhere = titlesAnywhere;
+        this.experienceLines = Collections.unmodifiableList(experienceLines);
+    }
+
+    // The taxonomy analyses should use now
+    public static Taxonomy current() {
+        Taxonomy taxonomy = CURRENT.get();
+        if (taxonomy == null) {
+            synchronized (Taxonomy.class) {
+                taxonomy = CURRENT.get();
+                if (taxonomy == null) {
+                    taxonomy = loadShared();
+                    CURRENT.set(taxonomy);
+                }
+            }
+        }
+        return taxonomy;
+    }
+
+    // Use this taxonomy from now on, and stop following the file
+    public static synchronized void setCurrent(Taxonomy taxonomy) {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+        swap(taxonomy);
+    }
+
+    private static void swap(Taxonomy taxonomy) {
+        CURRENT.set(taxonomy);
+        SkillGraph.taxonomyChanged();
+    }
+
+    public static Taxonomy defaults() {
+        return parse(Arrays.asList(DEFAULT_TAXONOMY), "built-in taxonomy",
+                sha256(String.join("\n", DEFAULT_TAXONOMY).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Taxonomy loadShared() {
+        String configured = System.getProperty("resume.taxonomy");
+        Path file = Paths.get(configured != null && !configured.isEmpty() ? configured : DEFAULT_FILE);
+        if (configured == null && !Files.exists(file)) {
+            return defaults();
+        }
+        Path snapshot = snapshotFor(file);
+        Taxonomy taxonomy;
+        try {
+            taxonomy = load(file, snapshot);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Using built-in taxonomy: " + e.getMessage());
+            taxonomy = defaults();
+        }
+        long reloadMillis = Long.getLong("resume.taxonomy.reloadMillis", 2000);
+        if (reloadMillis > 0) {
+            follow(file, snapshot, reloadMillis);
+        }
+        return taxonomy;
+    }
+
+    private static Path snapshotFor(Path file) {
+        String configured = System.getProperty("resume.taxonomySnapshot");
+        if (configured != null) {
+            return configured.isEmpty() ? null : Paths.get(configured);
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return file.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".bin");
+    }
+
+    // Poll the file and swap in a new taxonomy when it changes. A file that
+    // does not compile is reported and the current taxonomy kept.
+    private static void follow(Path file, Path snapshot, long periodMillis) {
+        String[] seen = {stamp(file)};
+        reloader = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("taxonomy-reload"));
+        reloader.scheduleWithFixedDelay(() -> {
+            String stamp = stamp(file);
+            if (stamp.equals(seen[0])) {
+                return;
+            }
+            seen[0] = stamp;
+            try {
+                Taxonomy taxonomy = load(file, snapshot);
+                synchronized (Taxonomy.class) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        swap(taxonomy);
+                    }
+                }
+                System.err.println("Taxonomy reloaded from " + file + " (" + taxonomy.skills.size() + " skills)");
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Keeping the current taxonomy, " + file + " could not be loaded: "
+                        + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Size and modification time, enough to notice an edit or a replaced file
+    private static String stamp(Path file) {
+        try {
+            return stamp(Files.readAttributes(file, BasicFileAttributes.class));
+        } catch (IOException e) {
+            return "missing";
+        }
+    }
+
+    private static String stamp(BasicFileAttributes attributes) {
+        return attributes.size() + "/" + attributes.lastModifiedTime().toMillis();
+    }
+
+    // Load a taxonomy file, from its snapshot when that was made from the
+    // same text, otherwise by compiling it and saving a new snapshot. A null
+    // snapshot path compiles every time.
+    //
+    // Hashing the text costs more than loading the snapshot in a fresh JVM,
+    // so like git's index the snapshot also records the file's size and
+    // modification time and the hash is only checked when those differ. The
+    // stamp is read before the text and not recorded for a file modified in
+    // the last RACY_MILLIS, so an edit can never hide behind a matching stamp.
+    public static Taxonomy load(Path file, Path snapshot) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String stamp = stamp(attributes);
+        if (snapshot != null) {
+            Taxonomy saved = readSnapshot(snapshot, stamp, null);
+            if (saved != null) {
+                return saved;
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        String hash = sha256(bytes);
+        if (snapshot != null) {
+            Taxonomy saved = readSnapshot(snapshot, null, hash);
+            if (saved != null) {
+                return saved;
+            }
+        }
+        Taxonomy taxonomy = parse(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split("\r?\n")),
+                file.toString(), hash);
+        if (snapshot != null) {
+            boolean racy = System.currentTimeMillis() - attributes.lastModifiedTime().toMillis() < RACY_MILLIS;
+            try {
+                taxonomy.writeSnapshot(snapshot, racy ? "" : stamp);
+            } catch (IOException e) {
+                System.err.println("Could not save taxonomy snapshot " + snapshot + ": " + e.getMessage());
+            }
+        }
+        return taxonomy;
+    }
+
+    // Build a taxonomy from lines in the taxonomy file syntax; hash
+    // identifies the text in snapshots and cached parse results
+    public static Taxonomy parse(List<String> lines, String source, String hash) {
+        Map<String, List<String>> skillGroups = new LinkedHashMap<>();
+        Map<String, List<String>> lists = new LinkedHashMap<>();
+        for (String list : LISTS) {
+            lists.put(list, new ArrayList<>());
+        }
+        List<String> terms = null;
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                String heading = line.substring(1, line.length() - 1).trim();
+                if (heading.startsWith(SKILLS_HEADING)) {
+                    String group = heading.substring(SKILLS_HEADING.length()).trim();
+                    terms = skillGroups.computeIfAbsent(group, g -> new ArrayList<>());
+                } else if (lists.containsKey(heading)) {
+                    terms = lists.get(heading);
+                } else {
+                    throw new IllegalArgumentException(source + " line " + (n + 1) + ": unknown list [" + heading
+                            + "], expected [skills: <group>] or one of " + LISTS);
+                }
+            } else if (terms == null) {
+                throw new IllegalArgumentException(source + " line " + (n + 1) + ": term before any [list] heading");
+            } else {
+                terms.add(line);
+            }
+        }
+
+        String[][] groups = new String[skillGroups.size()][];
+        int g = 0;
+        for (List<String> group : skillGroups.values()) {
+            groups[g++] = group.toArray(new String[0]);
+        }
+        return new Taxonomy(hash, new ArrayList<>(skillGroups.keySet()), new SkillMatcher(groups),
+                new PhraseMatcher(lists.get("degrees")), new PhraseMatcher(lists.get("fields")),
+                new PhraseMatcher(lists.get("degrees anywhere")), new PhraseMatcher(lists.get("fields anywhere")),
+                lists.get("education lines"), new PhraseMatcher(lists.get("titles")),
+                new PhraseMatcher(lists.get("titles anywhere")), lists.get("experience lines"));
+    }
+
+    // The taxonomy saved in the snapshot if it was made from a file with this
+    // stamp or from text with this hash, or null
+    private static Taxonomy readSnapshot(Path snapshot, String stamp, String hash) {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer in = Snapshot.order(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (in.remaining() < 8 || in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            String savedStamp = Snapshot.readString(in);
+            String savedHash = Snapshot.readString(in);
+            if (!(stamp != null && !savedStamp.isEmpty() && savedStamp.equals(stamp)
+                    || hash != null && savedHash.equals(hash))) {
+                return null;
+            }
+            return new Taxonomy(savedHash, Snapshot.readStrings(in), SkillMatcher.read(in), PhraseMatcher.read(in),
+                    PhraseMatcher.read(in), PhraseMatcher.read(in), PhraseMatcher.read(in), Snapshot.readStrings(in),
+                    PhraseMatcher.read(in), PhraseMatcher.read(in), Snapshot.readStrings(in));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring taxonomy snapshot " + snapshot + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Written to a temporary file and renamed, so a process starting at the
+    // same time never reads half a snapshot
+    private void writeSnapshot(Path snapshot, String stamp) throws IOException {
+        Path dir = snapshot.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (Snapshot.Writer out = new Snapshot.Writer(
+                    FileChannel.open(temp, StandardOpenOption.WRITE))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeString(stamp);
+                out.writeString(hash);
+                out.writeStrings(skillGroups);
+                skills.write(out);
+                degrees.write(out);
+                fields.write(out);
+                degreesAnywhere.write(out);
+                fieldsAnywhere.write(out);
+                out.writeStrings(educationLines);
+                titles.write(out);
+                titlesAnywhere.write(out);
+                out.writeStrings(experienceLines);
+            }
+            try {
+                Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Hex SHA-256 of the text the taxonomy was compiled from
+    public String getHash() {
+        return hash;
+    }
+
+    public List<String> getSkillGroups() {
+        return skillGroups;
+    }
+
+    public SkillMatcher getSkillMatcher() {
+        return skills;
+    }
+
+    // What "(?i)(<degrees>).{0,20}?(of|in)\s.{0,100}?(<fields>)" finds in an
+    // education section, such as "Bachelor of Science in Computer Science", or null
+    public String findDegree(String text) {
+        return findDegree(text, degrees, fields, true);
+    }
+
+    // What "(?i)(<degrees anywhere>).{0,100}?(<fields anywhere>)" finds, or null
+    public String findDegreeAnywhere(String text) {
+        return findDegree(text, degreesAnywhere, fieldsAnywhere, false);
+    }
+
+    // Whether an education section line is worth reporting as the entry
+    public boolean isEducationLine(String line) {
+        return containsAny(line, educationLines);
+    }
+
+    // The first job title in the text, or null
+    public String findTitle(String text) {
+        long match = titles.find(text);
+        return match < 0 ? null : titles.group(text, match);
+    }
+
+    // The last job title in the text, or null
+    public String findLastTitle(String text) {
+        long match = titles.findLast(text);
+        return match < 0 ? null : titles.group(text, match);
+    }
+
+    // The first job title in the text from the whole-text list, or null
+    public String findTitleAnywhere(String text) {
+        long match = titlesAnywhere.find(text);
+        return match < 0 ? null : titlesAnywhere.group(text, match);
+    }
+
+    // Whether an experience section line names a job
+    public boolean isExperienceLine(String line) {
+        return containsAny(line, experienceLines);
+    }
+
+    private static boolean containsAny(String line, List<String> words) {
+        for (String word : words) {
+            if (line.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Degree and field matches are each found in one pass; a degree then
+    // takes the first field that follows closely enough, trying degrees in the
+    // order the regex would
+    private static String findDegree(String text, PhraseMatcher degrees, PhraseMatcher fields,
+                                     boolean connective) {
+        long[] degreeMatches = degrees.matches(text);
+        if (degreeMatches.length == 0) {
+            return null;
+        }
+        long[] fieldMatches = fields.matches(text);
+        for (long degree : degreeMatches) {
+            int end = degrees.end(degree);
+            int fieldEnd = connective ? connectiveThenField(text, end, fields, fieldMatches)
+                    : fieldAfter(text, end, fields, fieldMatches);
+            if (fieldEnd >= 0) {
+                return text.substring(PhraseMatcher.start(degree), fieldEnd);
+            }
+        }
+        return null;
+    }
+
+    // End of ".{0,20}?(of|in)\s.{0,100}?(<field>)" matched at from, or -1
+    private static int connectiveThenField(String text, int from, PhraseMatcher fields, long[] fieldMatches) {
+        for (int at = from; at <= from + MAX_CONNECTIVE_GAP && at + 3 <= text.length(); at++) {
+            if (at > from && isLineTerminator(text.charAt(at - 1))) {
+                break;
+            }
+            if ((isAsciiIgnoreCase(text, at, "of") || isAsciiIgnoreCase(text, at, "in"))
+                    && isRegexSpace(text.charAt(at + 2))) {
+                int end = fieldAfter(text, at + 3, fields, fieldMatches);
+                if (end >= 0) {
+                    return end;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // End of ".{0,100}?(<field>)" matched at from, or -1: the earliest field
+    // match at or after from, if no line break comes before it
+    private static int fieldAfter(String text, int from, PhraseMatcher fields, long[] fieldMatches) {
+        int low = 0;
+        int high = fieldMatches.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (PhraseMatcher.start(fieldMatches[mid]) < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == fieldMatches.length) {
+            return -1;
+        }
+        int start = PhraseMatcher.start(fieldMatches[low]);
+        if (start - from > MAX_FIELD_GAP) {
+            return -1;
+        }
+        for (int i = from; i < start; i++) {
+            if (isLineTerminator(text.charAt(i))) {
+                return -1;
+            }
+        }
+        return fields.end(fieldMatches[low]);
+    }
+
+    private static boolean isAsciiIgnoreCase(String text, int at, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (PhraseMatcher.toLowerAscii(text.charAt(at + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Characters "." does not match
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // Characters "\s" matches
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static String sha256(byte[] bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest(bytes)) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
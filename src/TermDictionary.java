@@ -0,0 +1,90 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns terms (skills, education and experience entries, word tokens) into
+// dense integer ids, so documents can be held and compared as int arrays
+// instead of strings.
+//
+// Ids are assigned in first-seen order and never change or get reused. Reads
+// (id and term lookups) never lock; only adding a new term does.
+//
+// Since terms are never dropped, the terms of single resumes (word tokens,
+// whole education and experience lines) are only added while the dictionary
+// holds fewer than its capacity, -Dresume.terms.max for the shared one. Past
+// that, a resume's new terms get ids local to its TermVector instead (see
+// TermVector.ofResume), so a long-running process stops growing. Terms of
+// things that live on (taxonomy skills, job descriptions, indexes) are always
+// added.
+public class TermDictionary {
+    private static final int DEFAULT_CAPACITY = Integer.getInteger("resume.terms.max", 1 << 20);
+    private static final TermDictionary SHARED = new TermDictionary(DEFAULT_CAPACITY);
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int capacity;
+    // Replaced wholesale when it grows; slots below size are never rewritten
+    private volatile String[] terms = new String[1024];
+    private volatile String[] lowerCaseTerms = new String[1024];
+    private volatile int size;
+
+    public TermDictionary() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public TermDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public static TermDictionary shared() {
+        return SHARED;
+    }
+
+    // Id of the term, adding it if it is new
+    public int intern(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : add(term);
+    }
+
+    // Id of the term, adding it if it is new and the dictionary is below its
+    // capacity; -1 for a new term once it is full
+    public int internIfRoom(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : size < capacity ? add(term) : -1;
+    }
+
+    // Id of the term, or -1 if it has never been interned
+    public int id(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : -1;
+    }
+
+    public String term(int id) {
+        return terms[id];
+    }
+
+    // The term lowercased, computed once per term
+    public String lowerCaseTerm(int id) {
+        return lowerCaseTerms[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private synchronized int add(String term) {
+        Integer existing = ids.get(term);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        if (id == terms.length) {
+            lowerCaseTerms = Arrays.copyOf(lowerCaseTerms, id * 2);
+            terms = Arrays.copyOf(terms, id * 2);
+        }
+        terms[id] = term;
+        lowerCaseTerms[id] = term.toLowerCase();
+        size = id + 1;
+        // Publish the id last, once term(id) is readable from any thread
+        ids.put(term, id);
+        return id;
+    }
+}
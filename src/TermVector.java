@@ -0,0 +1,239 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A bag of terms as parallel arrays of term ids (ascending) and their counts.
+// Immutable, and compact: one int pair per distinct term instead of a string
+// per occurrence.
+//
+// The vectors of a resume (ofResume, ofResumeTokens) may hold terms a full
+// TermDictionary no longer takes. Those get negative ids, -1 - i for the i-th
+// such term, that only mean something within the vector; term() and
+// lowerCaseTerm() resolve both kinds.
+public class TermVector {
+    public static final TermVector EMPTY = new TermVector(new int[0], new int[0], 0, null, 0);
+
+    private final int[] ids;
+    private final int[] counts;
+    private final int totalCount;
+    // Terms behind the local ids, or null if there are none, and the
+    // dictionary size when they were last looked up
+    private final String[] localTerms;
+    private final int dictionarySize;
+
+    private TermVector(int[] ids, int[] counts, int totalCount, String[] localTerms, int dictionarySize) {
+        this.ids = ids;
+        this.counts = counts;
+        this.totalCount = totalCount;
+        this.localTerms = localTerms;
+        this.dictionarySize = dictionarySize;
+    }
+
+    // One term per list element, interned as is
+    public static TermVector of(List<String> terms, TermDictionary dictionary) {
+        return of(terms, new Interner(dictionary, false));
+    }
+
+    // The same for one resume's terms, which are not added to a full dictionary
+    public static TermVector ofResume(List<String> terms, TermDictionary dictionary) {
+        return of(terms, new Interner(dictionary, true));
+    }
+
+    private static TermVector of(List<String> terms, Interner interner) {
+        if (terms.isEmpty()) {
+            return EMPTY;
+        }
+        int[] termIds = new int[terms.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = interner.intern(terms.get(i));
+        }
+        return fromIds(termIds, termIds.length, interner);
+    }
+
+    // The lowercased word tokens of a text. Tokens are runs of letters and
+    // digits that may also contain '.', '+' and '#', so "Node.js", "C++" and
+    // "C#" stay whole; a trailing '.' (end of sentence) is dropped.
+    public static TermVector ofTokens(String text, TermDictionary dictionary) {
+        return ofTokens(text, new Interner(dictionary, false));
+    }
+
+    // The same for a resume's text, whose new tokens are not added to a full
+    // dictionary
+    public static TermVector ofResumeTokens(String text, TermDictionary dictionary) {
+        return ofTokens(text, new Interner(dictionary, true));
+    }
+
+    private static TermVector ofTokens(String text, Interner interner) {
+        int[] termIds = new int[16];
+        int count = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isTokenChar(text.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            while (text.charAt(end - 1) == '.') {
+                end--;
+            }
+            if (count == termIds.length) {
+                termIds = Arrays.copyOf(termIds, count * 2);
+            }
+            termIds[count++] = interner.intern(text.substring(start, end).toLowerCase());
+        }
+        return count == 0 ? EMPTY : fromIds(termIds, count, interner);
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '+' || c == '#';
+    }
+
+    // Sort and collapse repeated ids into counts
+    private static TermVector fromIds(int[] termIds, int count, Interner interner) {
+        Arrays.sort(termIds, 0, count);
+        int distinct = 0;
+        int[] counts = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (distinct > 0 && termIds[distinct - 1] == termIds[i]) {
+                counts[distinct - 1]++;
+            } else {
+                termIds[distinct] = termIds[i];
+                counts[distinct++] = 1;
+            }
+        }
+        return new TermVector(Arrays.copyOf(termIds, distinct), Arrays.copyOf(counts, distinct), count,
+                interner.localTerms(), interner.dictionarySize);
+    }
+
+    // Interns the terms of one vector, handing out local ids for the terms a
+    // full dictionary does not take
+    private static final class Interner {
+        private final TermDictionary dictionary;
+        private final boolean bounded;
+        // Read before interning, so a local term the dictionary gains
+        // meanwhile is still looked up again by resolve
+        private final int dictionarySize;
+        private Map<String, Integer> localIds;
+
+        Interner(TermDictionary dictionary, boolean bounded) {
+            this.dictionary = dictionary;
+            this.bounded = bounded;
+            this.dictionarySize = dictionary.size();
+        }
+
+        int intern(String term) {
+            if (!bounded) {
+                return dictionary.intern(term);
+            }
+            int id = dictionary.internIfRoom(term);
+            if (id >= 0) {
+                return id;
+            }
+            if (localIds == null) {
+                localIds = new HashMap<>();
+            }
+            Integer local = localIds.get(term);
+            if (local == null) {
+                local = -1 - localIds.size();
+                localIds.put(term, local);
+            }
+            return local;
+        }
+
+        String[] localTerms() {
+            if (localIds == null) {
+                return null;
+            }
+            String[] terms = new String[localIds.size()];
+            for (Map.Entry<String, Integer> entry : localIds.entrySet()) {
+                terms[-1 - entry.getValue()] = entry.getKey();
+            }
+            return terms;
+        }
+    }
+
+    // This vector with its local terms that the dictionary has taken since
+    // under their dictionary ids, so they compare equal to the same terms in
+    // vectors built later (a job description added after this resume)
+    public TermVector resolve(TermDictionary dictionary) {
+        if (localTerms == null || dictionary.size() == dictionarySize) {
+            return this;
+        }
+        int size = dictionary.size();
+        long[] pairs = new long[ids.length];
+        List<String> stillLocal = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            if (id < 0) {
+                String term = localTerms[-1 - id];
+                id = dictionary.id(term);
+                if (id < 0) {
+                    stillLocal.add(term);
+                    id = -stillLocal.size();
+                }
+            }
+            pairs[i] = ((long) id << 32) | counts[i];
+        }
+        Arrays.sort(pairs);
+        int[] resolvedIds = new int[pairs.length];
+        int[] resolvedCounts = new int[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            resolvedIds[i] = (int) (pairs[i] >> 32);
+            resolvedCounts[i] = (int) pairs[i];
+        }
+        return new TermVector(resolvedIds, resolvedCounts, totalCount,
+                stillLocal.isEmpty() ? null : stillLocal.toArray(new String[0]), size);
+    }
+
+    // Number of distinct terms
+    public int size() {
+        return ids.length;
+    }
+
+    // Number of terms counting repeats
+    public int totalCount() {
+        return totalCount;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    public int count(int index) {
+        return counts[index];
+    }
+
+    // The term at an index, from the dictionary or local to this vector
+    public String term(int index, TermDictionary dictionary) {
+        int id = ids[index];
+        return id >= 0 ? dictionary.term(id) : localTerms[-1 - id];
+    }
+
+    public String lowerCaseTerm(int index, TermDictionary dictionary) {
+        int id = ids[index];
+        return id >= 0 ? dictionary.lowerCaseTerm(id) : localTerms[-1 - id].toLowerCase();
+    }
+
+    // Occurrences of the term, 0 if absent
+    public int countOf(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? counts[index] : 0;
+    }
+
+    public long estimatedBytes() {
+        long bytes = 8L * ids.length + 48;
+        if (localTerms != null) {
+            for (String term : localTerms) {
+                bytes += 2L * term.length() + 48;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,656 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Watches a resume folder and a job folder and scores whatever lands in them,
+// for ATS exports that drop files into a shared directory.
+//
+// Three kinds of threads cooperate:
+//   - the watcher turns WatchService events into "this file changed at time t"
+//     entries in a map keyed by path, so a burst of events for one file (or a
+//     burst of thousands of files) costs one entry per file and the watcher
+//     never blocks. When the OS event queue overflows, the folders are
+//     rescanned instead.
+//   - the dispatcher picks up files that have been quiet for the debounce
+//     period and whose size and modification time did not change since it
+//     last looked, so files still being copied are left alone, and hands them
+//     to the workers. It blocks while every worker and queue slot is taken,
+//     which is the backpressure: pending work stays in the per-file map.
+//   - a fixed pool of workers extracts and scores resumes and writes each
+//     result to the report (see ReportSink).
+// A new or changed resume is scored against every job; a new or changed job
+// against every resume seen so far.
+//
+// Finished files are recorded in a ledger with the size and modification time
+// they had, so after a restart only files that are new or changed since are
+// processed. Ledger lines are held in memory until the report rows they vouch
+// for are on disk: each flush takes the lines recorded so far, forces the
+// report to disk, and only then writes and forces those lines. A file whose
+// results could not be written is not recorded. So a crash can at worst
+// repeat the last few results, never lose them.
+public class WatchDaemon implements Closeable {
+    private static final int QUEUE_CAPACITY_PER_WORKER = 4;
+    private static final long DEFAULT_QUIET_MILLIS = 2000;
+    private static final long LEDGER_FLUSH_MILLIS = 1000;
+    private static final String JOB_EXTENSION = ".txt";
+
+    private final Path resumeDir;
+    private final Path jobDir;
+    private final ReportSink report;
+    private final Ledger ledger;
+    private final ScoringMode mode;
+    private final long quietNanos;
+    private final int threads;
+
+    private final ResumeParser parser = new ResumeParser();
+    private final JobMatcher matcher = new JobMatcher();
+    private final ThreadPoolExecutor workers;
+    // One permit per running or queued task
+    private final Semaphore slots;
+
+    // Files waiting out the debounce period, by path
+    private final ConcurrentHashMap<Path, Pending> pending = new ConcurrentHashMap<>();
+    // Current job profiles, by file
+    private final ConcurrentHashMap<Path, JobProfile> jobs = new ConcurrentHashMap<>();
+    // Resumes dispatched so far (by this run or, per the ledger, an earlier
+    // one); only touched by the dispatcher, which is what makes sure a resume
+    // and a job arriving together are scored against each other exactly once
+    private final Set<Path> knownResumes = new HashSet<>();
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private WatchService watchService;
+    private Thread watcherThread;
+    private Thread dispatcherThread;
+    private volatile boolean running;
+
+    // A file that changed, when, and how it looked at the last stability check
+    private static final class Pending {
+        final long changedAt;
+        final long size;
+        final long modified;
+
+        Pending(long changedAt, long size, long modified) {
+            this.changedAt = changedAt;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    public WatchDaemon(Path resumeDir, Path jobDir, ReportSink report, Path ledgerFile, ScoringMode mode,
+                       int threads, long quietMillis) throws IOException {
+        this.resumeDir = resumeDir.toAbsolutePath().normalize();
+        this.jobDir = jobDir.toAbsolutePath().normalize();
+        this.report = report;
+        this.ledger = Ledger.open(ledgerFile);
+        this.mode = mode;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+        this.threads = Math.max(1, threads);
+        this.workers = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new DaemonThreadFactory("watch-worker"));
+        this.slots = new Semaphore(this.threads * (1 + QUEUE_CAPACITY_PER_WORKER));
+    }
+
+    // Start watching. Jobs already processed are loaded right away; anything
+    // new or changed since the last run is picked up like a fresh file.
+    public void start() throws IOException {
+        StageMetrics.registerMBeans();
+        watchService = resumeDir.getFileSystem().newWatchService();
+        for (Path dir : new LinkedHashSet<>(Arrays.asList(resumeDir, jobDir))) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        for (Path file : ledger.files()) {
+            if (isResume(file)) {
+                knownResumes.add(file);
+            }
+        }
+        for (Path file : list(jobDir)) {
+            BasicFileAttributes attributes = attributes(file);
+            if (isJob(file) && attributes != null
+                    && ledger.isCurrent(file, attributes.size(), attributes.lastModifiedTime().toMillis())) {
+                jobs.put(file, matcher.getJobProfile(new String(Files.readAllBytes(file))));
+            }
+        }
+        // Registered before the scan, so nothing can slip between the two
+        rescan();
+
+        running = true;
+        DaemonThreadFactory threadFactory = new DaemonThreadFactory("watch");
+        watcherThread = threadFactory.newThread(this::watch);
+        dispatcherThread = threadFactory.newThread(this::dispatch);
+        watcherThread.start();
+        dispatcherThread.start();
+        System.out.println("Watching " + resumeDir + " for resumes and " + jobDir + " for jobs ("
+                + jobs.size() + " jobs loaded, " + pending.size() + " files to process)");
+    }
+
+    // Block until close() is called
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void watch() {
+        try {
+            while (running) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were dropped; find out what changed the slow way
+                        rescan();
+                        continue;
+                    }
+                    Path file = dir.resolve((Path) event.context());
+                    if (isResume(file) || isJob(file)) {
+                        changed(file);
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closing
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Watching stopped: " + e);
+        }
+    }
+
+    private void changed(Path file) {
+        pending.put(file, new Pending(System.nanoTime(), -1, -1));
+    }
+
+    // Queue every file the ledger does not have in its current state, and
+    // every file the ledger has that is gone
+    private void rescan() throws IOException {
+        Set<Path> present = new HashSet<>();
+        for (Path file : list(resumeDir)) {
+            present.add(file);
+        }
+        for (Path file : list(jobDir)) {
+            present.add(file);
+        }
+        for (Path file : present) {
+            BasicFileAttributes attributes = attributes(file);
+            if (attributes == null
+                    || !ledger.isCurrent(file, attributes.size(), attributes.lastModifiedTime().toMillis())
+                    || (isJob(file) && !jobs.containsKey(file))) {
+                changed(file);
+            }
+        }
+        for (Path file : ledger.files()) {
+            if (!present.contains(file)) {
+                changed(file);
+            }
+        }
+    }
+
+    private void dispatch() {
+        long pollMillis = Math.max(10, TimeUnit.NANOSECONDS.toMillis(quietNanos) / 4);
+        long lastFlush = System.nanoTime();
+        try {
+            while (running) {
+                Thread.sleep(pollMillis);
+                long now = System.nanoTime();
+                for (Map.Entry<Path, Pending> entry : pending.entrySet()) {
+                    if (running && now - entry.getValue().changedAt >= quietNanos) {
+                        settle(entry.getKey(), entry.getValue(), now);
+                    }
+                }
+                if (now - lastFlush >= TimeUnit.MILLISECONDS.toNanos(LEDGER_FLUSH_MILLIS)) {
+                    flush();
+                    lastFlush = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closing
+        } catch (RuntimeException e) {
+            System.err.println("Dispatching stopped: " + e);
+        }
+    }
+
+    // A file has been quiet long enough: process it if it also looks the
+    // same as at the last check, otherwise give it another quiet period
+    private void settle(Path file, Pending state, long now) throws InterruptedException {
+        BasicFileAttributes attributes = attributes(file);
+        if (attributes == null) {
+            if (pending.remove(file, state)) {
+                deleted(file);
+            }
+            return;
+        }
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (size != state.size || modified != state.modified) {
+            pending.replace(file, state, new Pending(now, size, modified));
+            return;
+        }
+        if (!pending.remove(file, state)) {
+            return; // changed again in the meantime
+        }
+        if (isResume(file)) {
+            if (!ledger.isCurrent(file, size, modified)) {
+                knownResumes.add(file);
+                List<Map.Entry<Path, JobProfile>> snapshot = currentJobs();
+                submit(() -> scoreResume(file, size, modified, snapshot));
+            }
+        } else if (!ledger.isCurrent(file, size, modified) || !jobs.containsKey(file)) {
+            jobChanged(file, size, modified);
+        }
+    }
+
+    private void jobChanged(Path file, long size, long modified) throws InterruptedException {
+        JobProfile job;
+        try {
+            job = matcher.getJobProfile(new String(Files.readAllBytes(file)));
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            System.err.println("Skipping job " + file + ": " + e);
+            return;
+        }
+        boolean known = ledger.isCurrent(file, size, modified);
+        jobs.put(file, job);
+        if (known) {
+            return; // loaded again after a rescan; every resume has seen it
+        }
+        // Resumes dispatched from now on see the new job themselves
+        List<Path> resumes = new ArrayList<>(knownResumes);
+        AtomicInteger remaining = new AtomicInteger(resumes.size() + 1);
+        AtomicBoolean written = new AtomicBoolean(true);
+        Runnable done = () -> {
+            if (remaining.decrementAndGet() == 0 && written.get()) {
+                ledger.record(file, size, modified);
+            }
+        };
+        for (Path resume : resumes) {
+            submit(() -> {
+                try {
+                    if (!scoreAgainst(resume,
+                            Collections.singletonList(new AbstractMap.SimpleImmutableEntry<>(file, job)))) {
+                        written.set(false);
+                    }
+                } finally {
+                    done.run();
+                }
+            });
+        }
+        done.run();
+    }
+
+    private void deleted(Path file) {
+        if (isResume(file)) {
+            knownResumes.remove(file);
+        } else {
+            jobs.remove(file);
+        }
+        ledger.forget(file);
+    }
+
+    private List<Map.Entry<Path, JobProfile>> currentJobs() {
+        return new ArrayList<>(new TreeMap<>(jobs).entrySet());
+    }
+
+    // Hand a task to the workers, waiting for a free slot
+    private void submit(Runnable task) throws InterruptedException {
+        slots.acquire();
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release(); // shutting down
+        }
+    }
+
+    private void scoreResume(Path file, long size, long modified, List<Map.Entry<Path, JobProfile>> snapshot) {
+        // Recorded even when extraction failed, so a broken file is not
+        // retried on every restart; it is retried as soon as it changes. Not
+        // when a result could not be written, which the next start retries.
+        if (scoreAgainst(file, snapshot)) {
+            ledger.record(file, size, modified);
+        }
+        int count = processed.incrementAndGet();
+        if (count % 100 == 0) {
+            System.out.println("Scored " + count + " resumes...");
+        }
+    }
+
+    // False if a result could not be written to the report
+    private boolean scoreAgainst(Path file, List<Map.Entry<Path, JobProfile>> targets) {
+        ParsedResume resume;
+        try {
+            resume = parser.readResume(file.toString());
+            resume.parse(parser);
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            System.err.println("Skipping " + file + ": " + e);
+            return true;
+        }
+        boolean written = true;
+        for (Map.Entry<Path, JobProfile> target : targets) {
+            JobMatcher.MatchResult result = matcher.calculateMatchScore(resume, target.getValue(), mode);
+            try {
+                report.write(resume.getSourceFile(), target.getKey().toString(), result, null);
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                written = false;
+                System.err.println("Could not write result for " + file + ": " + e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    // Take the ledger lines recorded so far, whose results are already in
+    // the report, and write them only once the report is on disk. Lines
+    // recorded meanwhile wait for the next flush. If the report cannot be
+    // synced, its lines are dropped and those files are redone after a restart.
+    private void flush() {
+        String lines = ledger.takeUnwritten();
+        try {
+            report.sync();
+            ledger.write(lines);
+        } catch (IOException e) {
+            System.err.println("Flushing failed: " + e.getMessage());
+        }
+    }
+
+    // Stop watching, let the workers finish what they were given, and close
+    // the report and ledger. Files still waiting are picked up on the next start.
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+            if (dispatcherThread != null) {
+                dispatcherThread.interrupt();
+                dispatcherThread.join();
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                report.close();
+            } finally {
+                ledger.close();
+                stopped.countDown();
+            }
+        }
+        System.out.println("Watch stopped: " + processed.get() + " resumes scored, " + failed.get() + " failed");
+    }
+
+    private boolean isResume(Path file) {
+        // Text files in a folder shared with the jobs are jobs
+        return resumeDir.equals(file.getParent()) && ResumeTextExtractors.isResumeFile(file) && !isJob(file);
+    }
+
+    private boolean isJob(Path file) {
+        return jobDir.equals(file.getParent()) && hasExtension(file, JOB_EXTENSION)
+                && !file.equals(report.getFile().toAbsolutePath().normalize());
+    }
+
+    private static boolean hasExtension(Path file, String extension) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && name.toLowerCase(Locale.ROOT).endsWith(extension);
+    }
+
+    private List<Path> list(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                if (isResume(path) || isJob(path)) {
+                    files.add(path);
+                }
+            }
+        }
+        return files;
+    }
+
+    // Size and modification time, or null if the file is gone
+    private static BasicFileAttributes attributes(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.isRegularFile() ? attributes : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Processed files with the size and modification time they were processed
+    // at, as an append-only text file of "<size> <modified> <path>" lines and
+    // "- <path>" removals. Rewritten compactly every time it is opened. New
+    // lines stay in memory until the owner writes them (see flush).
+    static class Ledger implements Closeable {
+        private final Path file;
+        private final Map<Path, long[]> entries = new ConcurrentHashMap<>();
+        private final FileChannel channel;
+        private StringBuilder unwritten = new StringBuilder();
+
+        private Ledger(Path file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+        }
+
+        static Ledger open(Path file) throws IOException {
+            Map<Path, long[]> entries = new TreeMap<>();
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    parse(line, entries);
+                }
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<Path, long[]> entry : entries.entrySet()) {
+                    out.write(line(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Ledger ledger = new Ledger(file, FileChannel.open(file, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND));
+            ledger.entries.putAll(entries);
+            return ledger;
+        }
+
+        // A torn last line (the process died mid-write) is ignored
+        private static void parse(String line, Map<Path, long[]> entries) {
+            try {
+                if (line.startsWith("- ")) {
+                    entries.remove(Paths.get(line.substring(2)));
+                    return;
+                }
+                int first = line.indexOf(' ');
+                int second = line.indexOf(' ', first + 1);
+                if (first > 0 && second > first) {
+                    entries.put(Paths.get(line.substring(second + 1)), new long[] {
+                            Long.parseLong(line.substring(0, first)),
+                            Long.parseLong(line.substring(first + 1, second))});
+                }
+            } catch (RuntimeException e) {
+                // skip
+            }
+        }
+
+        private static String line(Path path, long size, long modified) {
+            return size + " " + modified + " " + path + "\n";
+        }
+
+        boolean isCurrent(Path path, long size, long modified) {
+            long[] entry = entries.get(path);
+            return entry != null && entry[0] == size && entry[1] == modified;
+        }
+
+        List<Path> files() {
+            return new ArrayList<>(entries.keySet());
+        }
+
+        void record(Path path, long size, long modified) {
+            entries.put(path, new long[] {size, modified});
+            append(line(path, size, modified));
+        }
+
+        void forget(Path path) {
+            if (entries.remove(path) != null) {
+                append("- " + path + "\n");
+            }
+        }
+
+        private synchronized void append(String line) {
+            unwritten.append(line);
+        }
+
+        // The lines recorded since the last call
+        synchronized String takeUnwritten() {
+            String lines = unwritten.toString();
+            unwritten = new StringBuilder();
+            return lines;
+        }
+
+        // Append lines to the file and wait until they are on disk
+        synchronized void write(String lines) throws IOException {
+            if (lines.isEmpty()) {
+                return;
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+            try {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new IOException("Could not update " + file + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Usage: --watch --resumes <dir> --jobs <dir> [--report <file.txt|.jsonl|.csv>[.gz]]
+    //        [--ledger <file>] [--threads N] [--quiet-ms N] [--cache <dir>] [--mode heuristic|cosine|fuzzy]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String resumes = null;
+        String jobs = null;
+        String report = null;
+        String ledger = "data/watch.ledger";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long quietMillis = DEFAULT_QUIET_MILLIS;
+        String cacheDir = null;
+        ScoringMode mode = ScoringMode.HEURISTIC;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--watch":
+                    break;
+                case "--resumes":
+                    resumes = args[++i];
+                    break;
+                case "--jobs":
+                    jobs = args[++i];
+                    break;
+                case "--report":
+                    report = args[++i];
+                    break;
+                case "--ledger":
+                    ledger = args[++i];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--quiet-ms":
+                    quietMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--cache":
+                    cacheDir = args[++i];
+                    break;
+                case "--mode":
+                    mode = ScoringMode.parse(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        if (resumes == null || jobs == null) {
+            System.err.println("Usage: Main --watch --resumes <dir> --jobs <dir> "
+                    + "[--report <file.txt|.jsonl|.csv>[.gz]] [--ledger <file>] [--threads N] [--quiet-ms N] "
+                    + "[--cache <dir>] [--mode heuristic|cosine|fuzzy]");
+            return;
+        }
+        if (cacheDir != null) {
+            ExtractionCache.setShared(new ExtractionCache(Paths.get(cacheDir), 512L * 1024 * 1024));
+        }
+
+        // Every run writes a new report, next to the one asked for; the
+        // ledger is what carries over
+        ReportSink sink = report != null ? ReportSink.createUnique(Paths.get(report))
+                : ReportSink.createUnique(Paths.get("data"), "watch_", ReportSink.Format.JSONL, false);
+        System.out.println("Writing results to " + sink.getFile());
+        WatchDaemon daemon = new WatchDaemon(Paths.get(resumes), Paths.get(jobs), sink, Paths.get(ledger), mode,
+                threads, quietMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+            } catch (IOException e) {
+                System.err.println("Closing failed: " + e.getMessage());
+            }
+        }));
+        daemon.start();
+        daemon.awaitStop();
+    }
+}